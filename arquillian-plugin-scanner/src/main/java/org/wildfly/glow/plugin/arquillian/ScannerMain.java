@@ -52,14 +52,15 @@ public class ScannerMain {
 
         boolean verbose = Boolean.parseBoolean(args[4]);
         boolean abortOnError = Boolean.parseBoolean(args[5]);
+        int threads = Integer.parseInt(args[6]);
         // ClassLoader to load the Scanner from the classpath (equivalent to application cp).
         // Delegates to the application classpath to resolve Java API.
         URLClassLoader cpLoader = buildClassLoader(cpArray, Thread.currentThread().getContextClassLoader());
         // ClassLoader to load the test classes, delegate to cpLoader
         URLClassLoader testLoader = buildClassLoader(urlsArray, cpLoader);
         Class<?> exporterClass = Class.forName("org.wildfly.glow.plugin.arquillian.GlowArquillianDeploymentExporter", true, cpLoader);
-        Constructor ctr = exporterClass.getConstructor(List.class, ClassLoader.class, Path.class, Boolean.TYPE, Boolean.TYPE);
-        Object obj = ctr.newInstance(classes, testLoader, outputFolder, verbose, abortOnError);
+        Constructor ctr = exporterClass.getConstructor(List.class, ClassLoader.class, Path.class, Boolean.TYPE, Boolean.TYPE, Integer.TYPE);
+        Object obj = ctr.newInstance(classes, testLoader, outputFolder, verbose, abortOnError, threads);
         Method scan = exporterClass.getMethod("scanAndExport");
         scan.invoke(obj);
         System.exit(0);
@@ -0,0 +1,99 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow.plugin.arquillian;
+
+import static org.objectweb.asm.Opcodes.ACC_STATIC;
+import static org.objectweb.asm.Opcodes.ASM9;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * Reads the test class files to find the static @Deployment methods without
+ * loading the classes. The test classes without such method, in the class or
+ * in its super classes, don't have to be loaded, nor their dependencies. The
+ * result of the super classes, often shared by many test classes, is kept.
+ *
+ * A class file that can't be found or read is reported as having deployment
+ * methods, the class is loaded and its errors are reported as before.
+ */
+final class DeploymentMethodFilter {
+
+    private static final String DEPLOYMENT_DESCRIPTOR = "Lorg/jboss/arquillian/container/test/api/Deployment;";
+    private final ClassLoader loader;
+    private final Map<String, Boolean> classes = new HashMap<>();
+
+    DeploymentMethodFilter(ClassLoader loader) {
+        this.loader = loader;
+    }
+
+    boolean hasDeploymentMethod(String className) {
+        String internalName = className.replace('.', '/');
+        Boolean found = classes.get(internalName);
+        if (found == null) {
+            found = inspect(internalName);
+            classes.put(internalName, found);
+        }
+        return found;
+    }
+
+    private boolean inspect(String internalName) {
+        DeploymentClassVisitor visitor = new DeploymentClassVisitor();
+        try (InputStream in = loader.getResourceAsStream(internalName + ".class")) {
+            if (in == null) {
+                return true;
+            }
+            new ClassReader(in).accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        } catch (Exception ex) {
+            return true;
+        }
+        if (visitor.found) {
+            return true;
+        }
+        String superName = visitor.superName;
+        // No @Deployment methods in the JDK classes.
+        if (superName == null || superName.startsWith("java/")) {
+            return false;
+        }
+        return hasDeploymentMethod(superName);
+    }
+
+    private static class DeploymentClassVisitor extends ClassVisitor {
+
+        private String superName;
+        private boolean found;
+
+        DeploymentClassVisitor() {
+            super(ASM9);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            this.superName = superName;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            // Same methods as the ones invoked by the exporter, static and without parameters.
+            if (found || (access & ACC_STATIC) == 0 || !descriptor.startsWith("()")) {
+                return null;
+            }
+            return new MethodVisitor(ASM9) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                    if (DEPLOYMENT_DESCRIPTOR.equals(descriptor)) {
+                        found = true;
+                    }
+                    return null;
+                }
+            };
+        }
+    }
+}
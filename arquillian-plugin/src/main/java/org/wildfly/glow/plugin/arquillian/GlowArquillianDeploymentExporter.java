@@ -27,10 +27,24 @@ import java.lang.reflect.Modifier;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
- *
+ * Invokes the static @Deployment methods of the test classes and exports the
+ * archives. The test classes are inspected in order, only the ones whose class
+ * file contains deployment methods are loaded. The deployment methods are
+ * then invoked and their archives exported, one at a time by default. With
+ * more threads, the methods are invoked and the archives exported by a pool
+ * of threads, the deployment methods must then be thread safe. The archive
+ * names are computed from the test class and the number of archives exported
+ * before, in the scan order, the archive list is written in the scan order
+ * whatever the order in which the exports complete.
  */
 public class GlowArquillianDeploymentExporter {
 
@@ -41,30 +55,92 @@ public class GlowArquillianDeploymentExporter {
     private final List<String> testClasses;
     private final Path outputFolder;
     private final ClassLoader loader;
-    private final List<String> fileNames = new ArrayList<>();
-    private int counter = 0;
+    private final DeploymentMethodFilter filter;
+    private final List<Method> deploymentMethods = new ArrayList<>();
     private final boolean verbose;
     private final boolean abortOnError;
+    private final int threads;
 
     public GlowArquillianDeploymentExporter(List<String> testClasses, ClassLoader loader, Path outputFolder, boolean verbose, boolean abortOnError) {
+        this(testClasses, loader, outputFolder, verbose, abortOnError, 1);
+    }
+
+    /**
+     * @param threads The number of threads invoking the deployment methods and
+     * exporting the archives, one if less than 1.
+     */
+    public GlowArquillianDeploymentExporter(List<String> testClasses, ClassLoader loader, Path outputFolder, boolean verbose, boolean abortOnError, int threads) {
         this.testClasses = testClasses;
         this.outputFolder = outputFolder.normalize();
         this.loader = loader;
+        this.filter = new DeploymentMethodFilter(loader);
         this.verbose = verbose;
         this.abortOnError = abortOnError;
+        this.threads = Math.max(1, threads);
     }
 
     public List<String> scanAndExport() throws Throwable {
         for (String className : testClasses) {
             inspectClassFile(className);
         }
+        List<String> fileNames = exportArchives();
         Path outputPath = outputFolder.resolve(ARCHIVE_LIST_FILENAME);
         //System.out.println("--> " + outputPath);
         Files.write(outputPath, fileNames);
         return fileNames;
     }
 
+    private List<String> exportArchives() throws Throwable {
+        List<String> fileNames = new ArrayList<>();
+        int counter = 0;
+        if (threads == 1 || deploymentMethods.size() < 2) {
+            for (Method m : deploymentMethods) {
+                Archive<?> archive = invokeDeploymentMethod(m);
+                if (archive != null) {
+                    fileNames.add(exportArchive(archive, m.getDeclaringClass().getSimpleName() + (++counter)));
+                }
+            }
+            return fileNames;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, deploymentMethods.size()));
+        try {
+            List<Future<Archive<?>>> archives = new ArrayList<>();
+            for (Method m : deploymentMethods) {
+                archives.add(executor.submit(() -> invokeDeploymentMethod(m)));
+            }
+            // The archives are named in the scan order, an archive is exported as soon as its name is known.
+            List<Future<String>> exports = new ArrayList<>();
+            for (int i = 0; i < archives.size(); i++) {
+                Archive<?> archive = get(archives.get(i));
+                if (archive != null) {
+                    String outputName = deploymentMethods.get(i).getDeclaringClass().getSimpleName() + (++counter);
+                    exports.add(executor.submit(() -> exportArchive(archive, outputName)));
+                }
+            }
+            for (Future<String> export : exports) {
+                fileNames.add(get(export));
+            }
+            return fileNames;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <T> T get(Future<T> future) throws Throwable {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            throw ex.getCause();
+        }
+    }
+
     private void inspectClassFile(String className) throws Throwable {
+        if (!filter.hasDeploymentMethod(className)) {
+            if (verbose) {
+                System.out.println("No deployment method in " + className);
+            }
+            return;
+        }
         Class<?> clazz;
         try {
             if(verbose) {
@@ -84,20 +160,16 @@ public class GlowArquillianDeploymentExporter {
             return;
         }
 
-        List<Method> deploymentMethods = findDeploymentAnnotatedMethod(clazz);
-        if (deploymentMethods.isEmpty()) {
-            return;
-        }
-        //System.out.println(deploymentMethod);
-        for(Method m : deploymentMethods) {
-            invokeDeploymentMethodAndExportArchive(m);
-        }
+        deploymentMethods.addAll(findDeploymentAnnotatedMethod(clazz));
     }
 
     private List<Method> findDeploymentAnnotatedMethod(Class<?> clazz) {
         List<Method> methods = new ArrayList<>();
         try {
-            for (Method m : clazz.getDeclaredMethods()) {
+            Method[] declaredMethods = clazz.getDeclaredMethods();
+            // The order of the declared methods is unspecified, the archive names must not depend on it.
+            Arrays.sort(declaredMethods, Comparator.comparing(Method::getName));
+            for (Method m : declaredMethods) {
                 m.setAccessible(true);
                 if (!Modifier.isStatic(m.getModifiers())) {
                     continue;
@@ -125,7 +197,11 @@ public class GlowArquillianDeploymentExporter {
         return methods;
     }
 
-    private void invokeDeploymentMethodAndExportArchive(Method m) throws Exception {
+    /**
+     * @return The archive to export, null if the method failed or if the
+     * archive is empty.
+     */
+    private Archive<?> invokeDeploymentMethod(Method m) throws Exception {
         Archive<?> archive;
         try {
             ClassLoader current = Thread.currentThread().getContextClassLoader();
@@ -143,27 +219,32 @@ public class GlowArquillianDeploymentExporter {
             if (abortOnError) {
                 throw e;
             }
-            return;
+            return null;
         }
 
         if (archive.getContent().size() == 0) {
             //Some tests use a dummy archive with no content. We can't export those
-            return;
+            return null;
         }
+        return archive;
+    }
+
+    /**
+     * @return The path of the exported archive.
+     */
+    private String exportArchive(Archive<?> archive, String outputName) {
 
         // TODO Is the extension enough, or do we need to check the type?
         String archiveName = archive.getName();
         int index = archiveName.lastIndexOf('.');
         String archiveSuffix = archiveName.substring(index);
 
-        String outputName = m.getDeclaringClass().getSimpleName() + (++counter);
-        outputName += archiveSuffix;
-        Path outputPath = outputFolder.resolve(outputName).toAbsolutePath();
+        Path outputPath = outputFolder.resolve(outputName + archiveSuffix).toAbsolutePath();
         if (verbose) {
-            System.out.println("---->" + outputName);
+            System.out.println("---->" + outputName + archiveSuffix);
         }
         ZipExporter exporter = archive.as(ZipExporter.class);
         exporter.exportTo(outputPath.toFile(), true);
-        this.fileNames.add(outputPath.toString());
+        return outputPath.toString();
     }
 }
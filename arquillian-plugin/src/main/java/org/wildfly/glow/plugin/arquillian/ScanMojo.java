@@ -167,6 +167,14 @@ public class ScanMojo extends AbstractMojo {
     @Parameter(alias = "abort-scanning-on-error", property = "org.wildfly.glow.abort-scanning-on-error")
     boolean abortScanningOnError;
 
+    /**
+     * The number of threads invoking the @Deployment methods and exporting the
+     * archives. By default 1, the methods are invoked one at a time. More
+     * threads can only be used when the deployment methods are thread safe.
+     */
+    @Parameter(alias = "export-threads", property = "org.wildfly.glow.export-threads", defaultValue = "1")
+    int exportThreads;
+
     @Parameter(alias = "add-layers-for-jndi", property = "org.wildfly.glow.layers-for-jndi")
     Set<String> layersForJndi = Collections.emptySet();
 
@@ -295,6 +303,13 @@ public class ScanMojo extends AbstractMojo {
     @Parameter(alias = "enforce-input-feature-packs", property = "org.wildfly.glow.enforce-input-feature-packs")
     boolean enforceInputFeaturePacks;
 
+    /**
+     * Write the metrics of the scan (time spent in each phase, classes parsed, archives opened, rules evaluated, cache
+     * hits) to the {@code glow-metrics.json} file of the output directory.
+     */
+    @Parameter(alias = "metrics", property = "org.wildfly.glow.metrics")
+    boolean metrics;
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
 
@@ -391,8 +406,9 @@ public class ScanMojo extends AbstractMojo {
             }
 
             Arguments arguments = argumentsBuilder.build();
-            try (ScanResults results = GlowSession.scan(artifactResolver,
-                    arguments, writer)) {
+            ScanResults results = GlowSession.scan(artifactResolver, arguments, writer);
+            // The metrics are written whatever the outcome of the checks.
+            try (results) {
                 boolean skipTests = Boolean.getBoolean("maven.test.skip") || Boolean.getBoolean("skipTests");
                 if (skipTests) {
                     getLog().warn("Tests are disabled, not checking for expected discovered layers.");
@@ -500,6 +516,8 @@ public class ScanMojo extends AbstractMojo {
                 } else {
                     results.outputConfig(outputFolder, null);
                 }
+            } finally {
+                writeMetrics(results, outputFolder);
             }
         } catch (Exception ex) {
             if (ex instanceof MojoExecutionException) {
@@ -511,6 +529,19 @@ public class ScanMojo extends AbstractMojo {
         }
     }
 
+    private void writeMetrics(ScanResults results, Path outputFolder) {
+        if (metrics) {
+            Path metricsFile = outputFolder.resolve("glow-metrics.json");
+            try {
+                results.getMetrics().write(metricsFile);
+                getLog().info("Scan metrics written to " + metricsFile);
+            } catch (IOException ex) {
+                // Must not hide the failure of the scan checks.
+                getLog().warn("Can't write the scan metrics to " + metricsFile + ": " + ex);
+            }
+        }
+    }
+
     private String getJavaCommand() {
         final Path javaHome = Paths.get(System.getProperty("java.home"));
         final Path java;
@@ -572,6 +603,7 @@ public class ScanMojo extends AbstractMojo {
         cmd.add(outputFolder.toAbsolutePath().toString());
         cmd.add(verbose || getLog().isDebugEnabled() ? "true" : "false");
         cmd.add(abortScanningOnError ? "true" : "false");
+        cmd.add(String.valueOf(exportThreads));
         final ProcessBuilder builder = new ProcessBuilder(cmd)
                 .redirectError(ProcessBuilder.Redirect.INHERIT)
                 .redirectOutput(ProcessBuilder.Redirect.INHERIT);
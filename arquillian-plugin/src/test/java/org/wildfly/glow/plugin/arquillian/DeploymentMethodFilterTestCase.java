@@ -0,0 +1,68 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow.plugin.arquillian;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DeploymentMethodFilterTestCase {
+
+    public static class WithDeployment {
+
+        @Deployment
+        public static Archive<?> deployment() {
+            return ShrinkWrap.create(JavaArchive.class);
+        }
+    }
+
+    public static class InheritedDeployment extends WithDeployment {
+    }
+
+    public static class InstanceDeployment {
+
+        @Deployment
+        public Archive<?> deployment() {
+            return ShrinkWrap.create(JavaArchive.class);
+        }
+    }
+
+    public static class DeploymentWithParameter {
+
+        @Deployment
+        public static Archive<?> deployment(String name) {
+            return ShrinkWrap.create(JavaArchive.class, name);
+        }
+    }
+
+    public static class NoDeployment {
+
+        public static Archive<?> deployment() {
+            return ShrinkWrap.create(JavaArchive.class);
+        }
+    }
+
+    @Test
+    public void testDeploymentMethods() {
+        DeploymentMethodFilter filter = new DeploymentMethodFilter(DeploymentMethodFilterTestCase.class.getClassLoader());
+        Assert.assertTrue(filter.hasDeploymentMethod(WithDeployment.class.getName()));
+        Assert.assertTrue(filter.hasDeploymentMethod(InheritedDeployment.class.getName()));
+        // Only the static methods without parameters are invoked by the exporter.
+        Assert.assertFalse(filter.hasDeploymentMethod(InstanceDeployment.class.getName()));
+        Assert.assertFalse(filter.hasDeploymentMethod(DeploymentWithParameter.class.getName()));
+        Assert.assertFalse(filter.hasDeploymentMethod(NoDeployment.class.getName()));
+        Assert.assertFalse(filter.hasDeploymentMethod(DeploymentMethodFilterTestCase.class.getName()));
+    }
+
+    @Test
+    public void testUnknownClass() {
+        // Loaded by the exporter, the error is reported as when all the classes were loaded.
+        DeploymentMethodFilter filter = new DeploymentMethodFilter(DeploymentMethodFilterTestCase.class.getClassLoader());
+        Assert.assertTrue(filter.hasDeploymentMethod("org.foo.Unknown"));
+    }
+}
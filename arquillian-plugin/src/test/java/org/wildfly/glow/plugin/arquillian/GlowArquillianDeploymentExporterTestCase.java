@@ -0,0 +1,76 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow.plugin.arquillian;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GlowArquillianDeploymentExporterTestCase {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    public static class First {
+
+        @Deployment
+        public static Archive<?> deployment() {
+            return ShrinkWrap.create(JavaArchive.class, "first.jar").addClass(First.class);
+        }
+    }
+
+    public static class Empty {
+
+        @Deployment
+        public static Archive<?> deployment() {
+            return ShrinkWrap.create(JavaArchive.class, "empty.jar");
+        }
+    }
+
+    public static class Second {
+
+        @Deployment
+        public static Archive<?> deployment() {
+            return ShrinkWrap.create(JavaArchive.class, "second.war").addClass(Second.class);
+        }
+    }
+
+    @Test
+    public void testExport() throws Throwable {
+        // The empty archive is not exported and doesn't take a number, whatever the number of threads.
+        List<String> expected = Arrays.asList("First1.jar", "Second2.war");
+        Assert.assertEquals(expected, export(1));
+        Assert.assertEquals(expected, export(4));
+    }
+
+    private List<String> export(int threads) throws Throwable {
+        Path outputFolder = tmp.newFolder().toPath();
+        List<String> testClasses = Arrays.asList(First.class.getName(), Empty.class.getName(), Second.class.getName());
+        GlowArquillianDeploymentExporter exporter = new GlowArquillianDeploymentExporter(testClasses,
+                getClass().getClassLoader(), outputFolder, false, true, threads);
+        List<String> fileNames = exporter.scanAndExport();
+        Assert.assertEquals(fileNames,
+                Files.readAllLines(outputFolder.resolve(GlowArquillianDeploymentExporter.ARCHIVE_LIST_FILENAME)));
+        List<String> names = new ArrayList<>();
+        for (String fileName : fileNames) {
+            Path file = Paths.get(fileName);
+            Assert.assertTrue(fileName, Files.exists(file));
+            Assert.assertEquals(outputFolder.toAbsolutePath(), file.getParent());
+            names.add(file.getFileName().toString());
+        }
+        return names;
+    }
+}
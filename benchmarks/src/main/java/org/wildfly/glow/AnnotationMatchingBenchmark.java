@@ -0,0 +1,74 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jboss.jandex.DotName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Matching of the annotations found in a deployment against the annotation rules. {@code resolve} measures the first
+ * lookup of each annotation, {@code lookup} the following ones, served by the rules table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnnotationMatchingBenchmark {
+
+    private static final int LOOKUPS = 500;
+
+    private LayerMapping mapping;
+    private AnnotationRules rules;
+    private DotName[] annotations;
+
+    @Setup(Level.Trial)
+    public void setUp(TestFeaturePackModel model) {
+        mapping = model.mapping;
+        rules = AnnotationRules.build(mapping);
+        List<DotName> names = new ArrayList<>();
+        for (int i = 0; i < LOOKUPS; i++) {
+            if (i % 2 == 0) {
+                names.add(DotName.createSimple(Fixtures.RULE_ANNOTATIONS.get(i % Fixtures.RULE_ANNOTATIONS.size())));
+            } else {
+                names.add(DotName.createSimple("com.acme.annotations.p" + (i % 10) + ".Annotation" + i));
+            }
+        }
+        annotations = names.toArray(new DotName[0]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void resolve(Blackhole blackhole) {
+        AnnotationRules coldRules = AnnotationRules.build(mapping);
+        for (DotName annotation : annotations) {
+            blackhole.consume(coldRules.get(annotation));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void lookup(Blackhole blackhole) {
+        for (DotName annotation : annotations) {
+            blackhole.consume(rules.get(annotation));
+        }
+    }
+}
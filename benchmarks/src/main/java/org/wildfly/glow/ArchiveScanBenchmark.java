@@ -0,0 +1,74 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.jboss.galleon.util.IoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.glow.error.ErrorIdentificationSession;
+
+/**
+ * Scan of a generated WAR (classes and a nested jar) or EAR (a WAR and an EJB jar) with the mapping of the test
+ * feature-pack.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ArchiveScanBenchmark {
+
+    @Param({"war", "ear"})
+    String archiveType;
+
+    @Param({"500", "5000"})
+    int numClasses;
+
+    @Param({"1", "4"})
+    int parallelism;
+
+    private Path directory;
+    private Path archive;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("glow-benchmark-archives");
+        String name = "benchmark." + archiveType;
+        archive = "ear".equals(archiveType) ? Fixtures.writeEar(directory, name, numClasses)
+                : Fixtures.writeWar(directory, name, numClasses);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        IoUtils.recursiveDelete(directory);
+    }
+
+    @Benchmark
+    public Set<Layer> scan(TestFeaturePackModel model) throws Exception {
+        Set<Layer> layers = new LinkedHashSet<>();
+        try (DeploymentScanner scanner = new DeploymentScanner(archive, false, Collections.emptySet(), parallelism)) {
+            scanner.scan(model.mapping, layers, model.layers, new ScanEvidence(model.mapping), new ErrorIdentificationSession());
+        }
+        return layers;
+    }
+}
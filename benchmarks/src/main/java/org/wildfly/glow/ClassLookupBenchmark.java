@@ -0,0 +1,67 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Lookup of the class names referenced by a deployment in the class rules of the mapping. The rules of the test
+ * feature-pack are completed with generated rules to reach the size of a real set of feature-packs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassLookupBenchmark {
+
+    private static final int LOOKUPS = 1000;
+
+    @Param({"0", "2000"})
+    int generatedRules;
+
+    private Map<String, Set<Layer>> rules;
+    private ClassNameMatcher matcher;
+    private String[] classNames;
+
+    @Setup(Level.Trial)
+    public void setUp(TestFeaturePackModel model) {
+        rules = new HashMap<>(model.mapping.getConstantPoolClassInfos());
+        Fixtures.addClassRules(rules, generatedRules);
+        matcher = ClassNameMatcher.build(rules);
+        classNames = Fixtures.classNames(LOOKUPS).toArray(new String[0]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void lookup(Blackhole blackhole) {
+        for (String className : classNames) {
+            blackhole.consume(matcher.match(className));
+        }
+    }
+
+    @Benchmark
+    public ClassNameMatcher build() {
+        return ClassNameMatcher.build(rules);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.jboss.galleon.util.IoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wildfly.glow.error.ErrorIdentificationSession;
+
+/**
+ * Evaluation of the XML and properties file rules. {@code scanFiles} scans an exploded deployment without classes,
+ * only the file rules are evaluated. {@code streamXmlPath} and {@code evaluateXmlPath} evaluate a streamable and a
+ * non streamable XPath expression on the XML file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileRulesBenchmark {
+
+    @Param({"100", "5000"})
+    int numFiles;
+
+    private Path directory;
+    private Path deployment;
+    private Path xml;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("glow-benchmark-files");
+        deployment = Fixtures.writeExplodedFiles(directory, "files.war", numFiles);
+        xml = deployment.resolve(Fixtures.XML_RULE_FILE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        IoUtils.recursiveDelete(directory);
+    }
+
+    @Benchmark
+    public Set<Layer> scanFiles(TestFeaturePackModel model) throws Exception {
+        Set<Layer> layers = new LinkedHashSet<>();
+        try (DeploymentScanner scanner = new DeploymentScanner(deployment, false, Collections.emptySet(), 1)) {
+            scanner.scan(model.mapping, layers, model.layers, new ScanEvidence(model.mapping), new ErrorIdentificationSession());
+        }
+        return layers;
+    }
+
+    @Benchmark
+    public void streamXmlPath(Blackhole blackhole) {
+        XmlPathEvaluator evaluator = new XmlPathEvaluator();
+        evaluator.add(xml, "/root/key-only", null, blackhole::consume);
+        evaluator.add(xml, "/root/key-value", "value*", blackhole::consume);
+        evaluator.evaluate((path, ex) -> blackhole.consume(ex));
+    }
+
+    @Benchmark
+    public void evaluateXmlPath(Blackhole blackhole) {
+        XmlPathEvaluator evaluator = new XmlPathEvaluator();
+        evaluator.add(xml, "/root/entry[@id='0']/name", null, blackhole::consume);
+        evaluator.add(xml, "/root/key-value", "value*", blackhole::consume);
+        evaluator.evaluate((path, ex) -> blackhole.consume(ex));
+    }
+}
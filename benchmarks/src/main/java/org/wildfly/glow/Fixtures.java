@@ -0,0 +1,223 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Generated deployments and rules. The generated classes reference the classes and annotations of the
+ * {@code tests/test-feature-pack} rules, JDK classes and unknown classes, the deployments contain the files of the
+ * XML and properties rules.
+ */
+final class Fixtures {
+
+    static final List<String> RULE_CLASSES = List.of(
+            "org.wildfly.glow.test.rules.classes.classrule.ClassClass",
+            "org.wildfly.glow.test.rules.classes.classrule.nested.NestedClassClass",
+            "org.wildfly.glow.test.rules.classes.classrule.nested.child.NestedChildClassClass",
+            "org.wildfly.glow.test.rules.classes.classrule.sibling.nested.SiblingNestedClassClass",
+            "org.wildfly.glow.test.rules.classes.classrule.sibling.unnested.SiblingUnnestedClassClass",
+            "org.wildfly.glow.test.rules.classes.classrule.unnested.UnnestedClassClass",
+            "org.wildfly.glow.test.rules.classes.classrule.multiple.ClassMultipleClass");
+
+    static final List<String> RULE_ANNOTATIONS = List.of(
+            "org.wildfly.glow.test.rules.classes.annotations.nested.Nested",
+            "org.wildfly.glow.test.rules.classes.annotations.nested.child.NestedChild",
+            "org.wildfly.glow.test.rules.classes.annotations.sibling.nested.SiblingNested",
+            "org.wildfly.glow.test.rules.classes.annotations.sibling.unnested.SiblingUnnested",
+            "org.wildfly.glow.test.rules.classes.annotations.unnested.Unnested",
+            "org.wildfly.glow.test.rules.classes.annotations.multiple.Multiple");
+
+    static final List<String> OTHER_CLASSES = List.of(
+            "java.lang.String",
+            "java.util.List",
+            "java.util.concurrent.ConcurrentHashMap",
+            "com.acme.app.service.OrderService",
+            "com.acme.app.model.Order",
+            "org.apache.commons.lang3.StringUtils");
+
+    static final String XML_RULE_FILE = "META-INF/xml-path-testA.xml";
+    static final String PROPERTIES_RULE_FILE = "META-INF/property-file-match-testA.properties";
+
+    private static final int CLASSES_PER_PACKAGE = 50;
+
+    private Fixtures() {
+    }
+
+    /**
+     * Add generated rules to the class rules of the mapping, {@code count} exact class names, package and wildcard
+     * rules, as found in a large set of feature-packs.
+     */
+    static void addClassRules(Map<String, Set<Layer>> rules, int count) {
+        for (int i = 0; i < count; i++) {
+            Layer layer = new Layer("generated-" + (i % 200));
+            switch (i % 4) {
+                case 0:
+                    rules.put(syntheticClass(i), Collections.singleton(layer));
+                    break;
+                case 1:
+                    rules.put(syntheticPackage(i), Collections.singleton(layer));
+                    break;
+                case 2:
+                    rules.put(Utils.escapePattern(syntheticPackage(i) + ".*"), Collections.singleton(layer));
+                    break;
+                default:
+                    rules.put(Utils.escapePattern("org.generated.*.impl" + i + ".*Bean"), Collections.singleton(layer));
+            }
+        }
+    }
+
+    static String syntheticClass(int i) {
+        return syntheticPackage(i) + ".Type" + i;
+    }
+
+    static String syntheticPackage(int i) {
+        return "org.generated.p" + (i % 97) + ".sub" + i;
+    }
+
+    /**
+     * @return The class names a deployment references, rules hits and misses.
+     */
+    static List<String> classNames(int count) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            switch (i % 4) {
+                case 0:
+                    names.add(RULE_CLASSES.get(i % RULE_CLASSES.size()));
+                    break;
+                case 1:
+                    names.add(syntheticClass(i));
+                    break;
+                default:
+                    names.add(OTHER_CLASSES.get(i % OTHER_CLASSES.size()).replace("Service", "Service" + i));
+            }
+        }
+        return names;
+    }
+
+    static Path writeWar(Path directory, String name, int numClasses) throws IOException {
+        Path war = directory.resolve(name);
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(war))) {
+            writeWarContent(out, numClasses);
+        }
+        return war;
+    }
+
+    static Path writeEar(Path directory, String name, int numClasses) throws IOException {
+        Path ear = directory.resolve(name);
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(ear))) {
+            ByteArrayOutputStream war = new ByteArrayOutputStream();
+            try (ZipOutputStream warOut = new ZipOutputStream(war)) {
+                writeWarContent(warOut, numClasses / 2);
+            }
+            add(out, "web.war", war.toByteArray());
+            ByteArrayOutputStream jar = new ByteArrayOutputStream();
+            try (ZipOutputStream jarOut = new ZipOutputStream(jar)) {
+                writeClasses(jarOut, "", "ejb", numClasses - numClasses / 2);
+            }
+            add(out, "ejb.jar", jar.toByteArray());
+            add(out, "META-INF/application.xml", ("<application xmlns=\"https://jakarta.ee/xml/ns/jakartaee\" version=\"10\">"
+                    + "<module><web><web-uri>web.war</web-uri><context-root>/</context-root></web></module>"
+                    + "<module><ejb>ejb.jar</ejb></module></application>").getBytes(StandardCharsets.UTF_8));
+        }
+        return ear;
+    }
+
+    /**
+     * An exploded deployment with the files of the file rules and {@code numFiles} other files.
+     */
+    static Path writeExplodedFiles(Path directory, String name, int numFiles) throws IOException {
+        Path root = directory.resolve(name);
+        for (int i = 0; i < numFiles; i++) {
+            Path file = root.resolve("static").resolve("d" + (i % 20)).resolve("file" + i + ".txt");
+            Files.createDirectories(file.getParent());
+            Files.write(file, ("content " + i).getBytes(StandardCharsets.UTF_8));
+        }
+        Path xml = root.resolve(XML_RULE_FILE);
+        Files.createDirectories(xml.getParent());
+        Files.write(xml, xmlRuleFile(numFiles));
+        Files.write(root.resolve(PROPERTIES_RULE_FILE), propertiesRuleFile(numFiles));
+        Files.write(root.resolve("META-INF/test-one-no-wildcard.txt"), new byte[] {'x'});
+        return root;
+    }
+
+    /**
+     * An XML document with the elements the rules look for after {@code numElements} other elements.
+     */
+    static byte[] xmlRuleFile(int numElements) {
+        StringBuilder builder = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<root>\n");
+        for (int i = 0; i < numElements; i++) {
+            builder.append("  <entry id=\"").append(i).append("\"><name>entry").append(i).append("</name></entry>\n");
+        }
+        builder.append("  <key-only/>\n  <key-value>valueB</key-value>\n</root>\n");
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] propertiesRuleFile(int numProperties) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < numProperties; i++) {
+            builder.append("property").append(i).append("=value").append(i).append('\n');
+        }
+        builder.append("testA-key-only=\ntestA-key=valueA\n");
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeWarContent(ZipOutputStream out, int numClasses) throws IOException {
+        int libClasses = numClasses / 4;
+        writeClasses(out, "WEB-INF/classes/", "web", numClasses - libClasses);
+        ByteArrayOutputStream lib = new ByteArrayOutputStream();
+        try (ZipOutputStream libOut = new ZipOutputStream(lib)) {
+            writeClasses(libOut, "", "lib", libClasses);
+        }
+        add(out, "WEB-INF/lib/lib.jar", lib.toByteArray());
+        add(out, "WEB-INF/web.xml", ("<web-app xmlns=\"https://jakarta.ee/xml/ns/jakartaee\" version=\"6.0\">"
+                + "<display-name>benchmark</display-name></web-app>").getBytes(StandardCharsets.UTF_8));
+        add(out, XML_RULE_FILE, xmlRuleFile(100));
+        add(out, PROPERTIES_RULE_FILE, propertiesRuleFile(100));
+    }
+
+    private static void writeClasses(ZipOutputStream out, String prefix, String module, int numClasses) throws IOException {
+        for (int i = 0; i < numClasses; i++) {
+            String className = "org/benchmark/" + module + "/p" + (i / CLASSES_PER_PACKAGE) + "/Type" + i;
+            add(out, prefix + className + ".class", newClass(className, i));
+        }
+    }
+
+    /**
+     * A class with a field of a referenced type, one out of four classes is annotated with a rule annotation.
+     */
+    private static byte[] newClass(String internalName, int index) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V11, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, internalName, null, "java/lang/Object", null);
+        if (index % 4 == 0) {
+            String annotation = RULE_ANNOTATIONS.get(index % RULE_ANNOTATIONS.size());
+            writer.visitAnnotation("L" + annotation.replace('.', '/') + ";", true).visitEnd();
+        }
+        String referenced = index % 3 == 0 ? RULE_CLASSES.get(index % RULE_CLASSES.size())
+                : OTHER_CLASSES.get(index % OTHER_CLASSES.size());
+        writer.visitField(Opcodes.ACC_PRIVATE, "field", "L" + referenced.replace('.', '/') + ";", null, null).visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static void add(ZipOutputStream out, String name, byte[] content) throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(content);
+        out.closeEntry();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building of the model from the test feature-pack: the layers read from the feature-pack, then the layer mapping.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ModelBenchmark {
+
+    /**
+     * A copy of the layers of the model for each invocation, the mapping of an invocation never sees the layers
+     * mapped by a previous one.
+     */
+    @State(Scope.Thread)
+    public static class Layers {
+
+        Map<String, Layer> layers;
+
+        @Setup(Level.Invocation)
+        public void copy(TestFeaturePackModel model) {
+            layers = new HashMap<>(model.layers);
+        }
+    }
+
+    @Benchmark
+    public LayerMapping buildModel(TestFeaturePackModel model) throws Exception {
+        Map<String, Layer> layers = model.loadLayers();
+        return TestFeaturePackModel.buildMapping(layers);
+    }
+
+    @Benchmark
+    public LayerMapping buildMapping(Layers layers) throws Exception {
+        return TestFeaturePackModel.buildMapping(layers.layers);
+    }
+
+    @Benchmark
+    public LayerGraph buildLayerGraph(TestFeaturePackModel model) {
+        return new LayerGraph(model.layers);
+    }
+}
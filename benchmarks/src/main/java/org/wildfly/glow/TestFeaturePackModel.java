@@ -0,0 +1,80 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.jboss.galleon.api.GalleonBuilder;
+import org.jboss.galleon.api.Provisioning;
+import org.jboss.galleon.api.config.GalleonProvisioningConfig;
+import org.jboss.galleon.universe.UniverseResolver;
+import org.jboss.galleon.universe.maven.repo.MavenRepoManager;
+import org.jboss.galleon.util.IoUtils;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.wildfly.glow.maven.MavenResolver;
+
+/**
+ * The layers and the layer mapping of the {@code tests/test-feature-pack} feature-pack. The feature-pack is resolved
+ * from the local Maven repository, the project must have been installed.
+ *
+ * The glow caches are disabled, the benchmarks always measure the actual work.
+ */
+@State(Scope.Benchmark)
+public class TestFeaturePackModel {
+
+    private static final String PROVISIONING_XML = "benchmark-provisioning.xml";
+
+    Path workDirectory;
+    Path provisioningXml;
+    MavenRepoManager resolver;
+    Map<String, Layer> layers;
+    LayerMapping mapping;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setProperty(LayerModelCache.LAYER_MODEL_CACHE_PROPERTY, "false");
+        System.setProperty(FeatureStabilityCache.STABILITY_CACHE_PROPERTY, "false");
+        System.setProperty(ScanFactsCache.SCAN_CACHE_PROPERTY, "false");
+        workDirectory = Files.createTempDirectory("glow-benchmarks");
+        provisioningXml = workDirectory.resolve(PROVISIONING_XML);
+        try (InputStream in = TestFeaturePackModel.class.getClassLoader().getResourceAsStream(PROVISIONING_XML)) {
+            Files.copy(in, provisioningXml);
+        }
+        resolver = MavenResolver.newMavenResolver();
+        layers = loadLayers();
+        mapping = buildMapping(layers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        IoUtils.recursiveDelete(workDirectory);
+    }
+
+    Map<String, Layer> loadLayers() throws Exception {
+        GalleonBuilder provider = new GalleonBuilder();
+        provider.addArtifactResolver(resolver);
+        Path home = Files.createTempDirectory(workDirectory, "home");
+        try (Provisioning provisioning = provider.newProvisioningBuilder(provisioningXml).setInstallationHome(home).build()) {
+            GalleonProvisioningConfig config = provisioning.loadProvisioningConfig(provisioningXml);
+            UniverseResolver universeResolver = UniverseResolver.builder().addArtifactResolver(resolver).build();
+            return Utils.getAllLayers(config, universeResolver, provisioning, new HashMap<>());
+        } finally {
+            IoUtils.recursiveDelete(home);
+        }
+    }
+
+    static LayerMapping buildMapping(Map<String, Layer> layers) throws Exception {
+        return Utils.buildMapping(new DefaultLayerConfigurationProvider(), null, Collections.singleton(Space.DEFAULT.getName()),
+                Arguments.BARE_METAL_EXECUTION_CONTEXT, null, layers, Collections.emptySet());
+    }
+}
@@ -29,7 +29,11 @@ public interface Constants {
     String ADD_LAYERS_FOR_JNDI_OPTION_LABEL = "<layer>";
     String APP_NAME_OPTION = "--app-name";
     String APP_NAME_OPTION_LABEL = "<application name>";
+    String BATCH_INPUT_OPTION = "--batch-input";
+    String BATCH_INPUT_OPTION_LABEL = "<deployments directory or file>";
     String BATCH_OPTION = "--batch";
+    String BATCH_OUTPUT_OPTION = "--batch-output";
+    String BATCH_OUTPUT_OPTION_LABEL = "<JSON lines file>";
     String BATCH_OPTION_SHORT = "-B";
     String BUILD_ENV_FILE_OPTION = "--build-env-file";
     String BUILD_ENV_FILE_OPTION_SHORT = "-bef";
@@ -47,6 +51,7 @@ public interface Constants {
     String COMPLETION_COMMAND = "completion";
     String CONFIG_STABILITY_OPTION = "--config-stability-level";
     String CONFIG_STABILITY_OPTION_SHORT = "-csl";
+    String DAEMON_COMMAND = "daemon";
     String DISABLE_FORK_EMBEDDED_OPTION = "--disable-fork-embedded";
     String DISABLE_FORK_EMBEDDED_OPTION_SHORT = "-df";
     String DISABLE_DEPLOYERS = "--disable-deployers";
@@ -75,10 +80,16 @@ public interface Constants {
     String INIT_SCRIPT_OPTION_LABEL = "<init script file path>";
     String INPUT_FEATURE_PACKS_FILE_OPTION = "--input-feature-packs-file";
     String INPUT_FEATURE_PACKS_FILE_OPTION_LABEL = "<provisioning file path>";
+    String METRICS_OPTION = "--metrics";
+    String METRICS_OPTION_LABEL = "<JSON file>";
     String NO_DOCKER_IMAGE_OPTION = "--no-docker-image";
     String NO_DOCKER_IMAGE_OPTION_SHORT = "-nd";
     String PACKAGE_STABILITY_OPTION = "--package-stability-level";
+    String PARALLELISM_OPTION = "--parallelism";
+    String PARALLELISM_OPTION_LABEL = "<number of threads>";
     String PACKAGE_STABILITY_OPTION_SHORT = "-psl";
+    String PROFILE_RULES_OPTION = "--profile-rules";
+    String PROFILE_RULES_OPTION_LABEL = "<report file>";
     String PROVISION_OPTION = "--provision";
     String PROVISION_OPTION_LABEL = "<SERVER|BOOTABLE_JAR|OPENSHIFT|DOCKER_IMAGE|PROVISIONING_XML>";
     String PROVISION_OPTION_SHORT = "-p";
@@ -101,6 +112,7 @@ public interface Constants {
     String STABILITY_LABEL = "<default|community|preview|experimental>";
     String STABILITY_OPTION = "--stability-level";
     String STABILITY_OPTION_SHORT = "-sl";
+    String STOP_OPTION = "--stop";
     String SYSTEM_PROPERTIES_LABEL = "\"<-DpropName[=value] [-DpropName[=value]]>\"";
     String SYSTEM_PROPERTIES_OPTION = "--properties";
     String SYSTEM_PROPERTIES_OPTION_SHORT = "-pp";
@@ -110,6 +122,7 @@ public interface Constants {
     String VERBOSE_OPTION_SHORT = "-vv";
     String VERSION_OPTION = "--version";
     String VERSION_OPTION_SHORT = "-v";
+    String WATCH_OPTION = "--watch";
     String WILDFLY_GLOW = "wildfly-glow";
     String WILDFLY_PREVIEW_OPTION = "--wildfly-preview";
     String WILDFLY_PREVIEW_OPTION_SHORT = "-wp";
@@ -20,6 +20,7 @@ package org.wildfly.glow.cli;
 import org.wildfly.glow.cli.support.ExecutionExceptionHandler;
 import java.util.Arrays;
 import org.wildfly.glow.cli.support.AbstractCommand;
+import org.wildfly.glow.cli.support.Constants;
 import org.wildfly.glow.cli.commands.MainCommand;
 import picocli.CommandLine;
 
@@ -30,6 +31,14 @@ import picocli.CommandLine;
 public class GlowCLI {
 
     public static void main(String[] args) throws Exception {
+        // A watching scan runs until stopped, it would block the daemon.
+        boolean isWatch = Arrays.stream(args).anyMatch(s -> s.equals(Constants.WATCH_OPTION) || s.startsWith(Constants.WATCH_OPTION + "="));
+        if (args.length > 0 && GlowDaemon.FORWARDED_COMMANDS.contains(args[0]) && !isWatch) {
+            Integer exitCode = GlowDaemon.forward(args);
+            if (exitCode != null) {
+                System.exit(exitCode);
+            }
+        }
         final AbstractCommand command = new MainCommand();
         try {
             CommandLine commandLine = new CommandLine(command);
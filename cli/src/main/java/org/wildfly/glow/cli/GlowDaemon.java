@@ -0,0 +1,370 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow.cli;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Set;
+import org.wildfly.glow.ScanModelCache;
+import org.wildfly.glow.Utils;
+import org.wildfly.glow.cli.commands.MainCommand;
+import org.wildfly.glow.cli.support.AbstractCommand;
+import org.wildfly.glow.cli.support.Constants;
+import org.wildfly.glow.cli.support.ExecutionExceptionHandler;
+import picocli.CommandLine;
+
+/**
+ * A long running process that executes the {@code scan}, {@code show-add-ons} and {@code show-configuration}
+ * commands of the CLI processes started in the same working directory. The JVM, the loaded classes, the metadata and
+ * the layer models built for a set of feature-packs and an execution context are kept between the commands.
+ *
+ * The daemon listens on the loopback interface, its port and a random token are written in the
+ * {@code daemon/daemon.properties} file of the glow cache directory, only readable by the user. The commands are
+ * executed one at a time, their output is sent back to the CLI. The system properties set by a command are reset
+ * once the command is done. The environment variables of the daemon are used, not the ones of the CLI.
+ */
+public final class GlowDaemon {
+
+    static final Set<String> FORWARDED_COMMANDS = Set.of(Constants.SCAN_COMMAND, Constants.SHOW_ADD_ONS_COMMAND,
+            Constants.SHOW_CONFIGURATION_COMMAND);
+
+    private static final String PORT = "port";
+    private static final String TOKEN = "token";
+    private static final String DIRECTORY = "directory";
+    private static final String STOP = "stop";
+    private static final int CONNECT_TIMEOUT = 1000;
+    // Time allowed to the CLI to send the command once connected.
+    private static final int READ_TIMEOUT = 10000;
+    // Frames sent by the daemon
+    private static final byte EXIT = 0;
+    private static final byte OUT = 1;
+    private static final byte ERR = 2;
+    private static final byte NOT_HANDLED = 3;
+
+    private static volatile ScanModelCache modelCache;
+
+    private GlowDaemon() {
+    }
+
+    /**
+     * @return The layer models kept by the daemon, null if the command is not executed by a daemon.
+     */
+    public static ScanModelCache getModelCache() {
+        return modelCache;
+    }
+
+    private static Path getInfoFile() {
+        return Utils.getCacheDirectory().resolve("daemon").resolve("daemon.properties");
+    }
+
+    private static String getWorkingDirectory() {
+        return Paths.get("").toAbsolutePath().toString();
+    }
+
+    /**
+     * Run the daemon until it is stopped.
+     *
+     * @param listening Called once the daemon accepts commands.
+     */
+    public static void run(Runnable listening) throws Exception {
+        run(getInfoFile(), listening);
+    }
+
+    static void run(Path info, Runnable listening) throws Exception {
+        if (Files.exists(info) && connect(load(info)) != null) {
+            throw new Exception("A WildFly Glow daemon is already running.");
+        }
+        String token = new BigInteger(130, new SecureRandom()).toString(32);
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            Properties properties = new Properties();
+            properties.setProperty(PORT, String.valueOf(server.getLocalPort()));
+            properties.setProperty(TOKEN, token);
+            properties.setProperty(DIRECTORY, getWorkingDirectory());
+            store(info, properties);
+            modelCache = new ScanModelCache();
+            try {
+                listening.run();
+                boolean running = true;
+                while (running) {
+                    try (Socket socket = server.accept()) {
+                        running = handle(socket, token);
+                    } catch (IOException ex) {
+                        // The CLI went away, wait for the next one.
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(info);
+                modelCache.close();
+                modelCache = null;
+            }
+        }
+    }
+
+    /**
+     * @return true if a running daemon has been stopped.
+     */
+    public static boolean stop() throws Exception {
+        return stop(getInfoFile());
+    }
+
+    static boolean stop(Path info) throws Exception {
+        if (!Files.exists(info)) {
+            return false;
+        }
+        Properties properties = load(info);
+        Integer exitCode = send(properties, new String[] {STOP}, System.out, System.err);
+        return exitCode != null;
+    }
+
+    /**
+     * Execute the command in the daemon started in the current working directory, if any.
+     *
+     * @return The exit code of the command, null if no daemon executed it.
+     */
+    static Integer forward(String[] args) {
+        return forward(getInfoFile(), args, System.out, System.err);
+    }
+
+    static Integer forward(Path info, String[] args, PrintStream out, PrintStream err) {
+        if (!Files.exists(info)) {
+            return null;
+        }
+        try {
+            Properties properties = load(info);
+            if (!getWorkingDirectory().equals(properties.getProperty(DIRECTORY))) {
+                return null;
+            }
+            return send(properties, args, out, err);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private static Socket connect(Properties properties) {
+        try {
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                        Integer.parseInt(properties.getProperty(PORT))), CONNECT_TIMEOUT);
+                return socket;
+            } catch (IOException ex) {
+                socket.close();
+                return null;
+            }
+        } catch (IOException | RuntimeException ex) {
+            return null;
+        }
+    }
+
+    private static Integer send(Properties properties, String[] args, PrintStream out, PrintStream err) throws IOException {
+        Socket socket = connect(properties);
+        if (socket == null) {
+            return null;
+        }
+        boolean received = false;
+        try (socket) {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            output.writeUTF(properties.getProperty(TOKEN));
+            output.writeUTF(getWorkingDirectory());
+            output.writeInt(args.length);
+            for (String arg : args) {
+                output.writeUTF(arg);
+            }
+            output.flush();
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            while (true) {
+                byte frame = input.readByte();
+                if (frame == NOT_HANDLED) {
+                    return null;
+                }
+                received = true;
+                if (frame == EXIT) {
+                    return input.readInt();
+                }
+                byte[] content = new byte[input.readInt()];
+                input.readFully(content);
+                PrintStream stream = frame == OUT ? out : err;
+                stream.write(content);
+                stream.flush();
+            }
+        } catch (IOException ex) {
+            if (!received) {
+                return null;
+            }
+            err.println("ERROR: Connection to the WildFly Glow daemon lost: " + ex);
+            return 1;
+        }
+    }
+
+    private static boolean handle(Socket socket, String token) throws IOException {
+        socket.setSoTimeout(READ_TIMEOUT);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        if (!token.equals(input.readUTF())) {
+            return true;
+        }
+        String directory = input.readUTF();
+        String[] args = new String[input.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = input.readUTF();
+        }
+        if (args.length == 1 && STOP.equals(args[0])) {
+            output.writeByte(EXIT);
+            output.writeInt(0);
+            output.flush();
+            return false;
+        }
+        // Relative paths are resolved against the daemon working directory.
+        if (!getWorkingDirectory().equals(directory) || args.length == 0 || !FORWARDED_COMMANDS.contains(args[0])) {
+            output.writeByte(NOT_HANDLED);
+            output.flush();
+            return true;
+        }
+        int exitCode = execute(args, output);
+        output.writeByte(EXIT);
+        output.writeInt(exitCode);
+        output.flush();
+        return true;
+    }
+
+    private static int execute(String[] args, DataOutputStream output) {
+        PrintStream out = new PrintStream(new FrameOutputStream(output, OUT), true, StandardCharsets.UTF_8);
+        PrintStream err = new PrintStream(new FrameOutputStream(output, ERR), true, StandardCharsets.UTF_8);
+        PrintStream systemOut = System.out;
+        PrintStream systemErr = System.err;
+        Properties systemProperties = (Properties) System.getProperties().clone();
+        System.setOut(out);
+        System.setErr(err);
+        try {
+            AbstractCommand command = new MainCommand();
+            CommandLine commandLine = new CommandLine(command);
+            commandLine.setOut(new PrintWriter(new FlushingWriter(out), true));
+            commandLine.setErr(new PrintWriter(new FlushingWriter(err), true));
+            boolean isVerbose = Arrays.stream(args).anyMatch(s -> s.equals("-vv") || s.equals("--verbose"));
+            commandLine.setExecutionExceptionHandler(new ExecutionExceptionHandler(isVerbose, command));
+            return commandLine.execute(args);
+        } catch (Exception ex) {
+            err.println(ex.getMessage());
+            return 1;
+        } finally {
+            out.flush();
+            err.flush();
+            System.setOut(systemOut);
+            System.setErr(systemErr);
+            System.setProperties(systemProperties);
+        }
+    }
+
+    private static Properties load(Path info) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(info)) {
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    private static void store(Path info, Properties properties) throws IOException {
+        Files.createDirectories(info.getParent());
+        Files.deleteIfExists(info);
+        // The token must only be readable by the user, the file is never readable by the others.
+        try {
+            Files.createFile(info, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException ex) {
+            Files.createFile(info);
+            info.toFile().setReadable(false, false);
+            info.toFile().setReadable(true, true);
+        }
+        try (OutputStream out = Files.newOutputStream(info)) {
+            properties.store(out, "WildFly Glow daemon");
+        }
+    }
+
+    /**
+     * Sends what is written as OUT or ERR frames.
+     */
+    private static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream output;
+        private final byte frame;
+
+        private FrameOutputStream(DataOutputStream output, byte frame) {
+            this.output = output;
+            this.frame = frame;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            synchronized (output) {
+                output.writeByte(frame);
+                output.writeInt(len);
+                output.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (output) {
+                output.flush();
+            }
+        }
+    }
+
+    /**
+     * Flushes the stream each time something is written, the CLI output is displayed as it is produced.
+     */
+    private static final class FlushingWriter extends Writer {
+
+        private final PrintStream stream;
+
+        private FlushingWriter(PrintStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            stream.print(new String(cbuf, off, len));
+            stream.flush();
+        }
+
+        @Override
+        public void flush() {
+            stream.flush();
+        }
+
+        @Override
+        public void close() {
+            stream.flush();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow.cli.commands;
+
+import java.util.Optional;
+import org.wildfly.glow.cli.GlowDaemon;
+import org.wildfly.glow.cli.support.AbstractCommand;
+import org.wildfly.glow.cli.support.Constants;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+        name = Constants.DAEMON_COMMAND,
+        sortOptions = true
+)
+public class DaemonCommand extends AbstractCommand {
+
+    @CommandLine.Option(names = Constants.STOP_OPTION)
+    Optional<Boolean> stop;
+
+    @Override
+    public Integer call() throws Exception {
+        if (stop.orElse(false)) {
+            if (GlowDaemon.stop()) {
+                print("WildFly Glow daemon stopped.");
+            } else {
+                print("No WildFly Glow daemon is running.");
+            }
+            return 0;
+        }
+        GlowDaemon.run(() -> print("@|bold WildFly Glow daemon started, use the|@ @|fg(yellow) %s %s|@ @|bold command to stop it.|@",
+                Constants.DAEMON_COMMAND, Constants.STOP_OPTION));
+        return 0;
+    }
+}
@@ -33,6 +33,7 @@ import picocli.CommandLine;
             ShowServerVersionsCommand.class,
             ShowConfigurationCommand.class,
             GoOfflineCommand.class,
+            DaemonCommand.class,
             CompletionCommand.class
         })
 public class MainCommand extends AbstractCommand {
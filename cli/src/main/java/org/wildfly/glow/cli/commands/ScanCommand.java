@@ -17,19 +17,29 @@
 package org.wildfly.glow.cli.commands;
 
 import org.wildfly.glow.cli.support.AbstractCommand;
+import org.wildfly.glow.cli.GlowDaemon;
 import org.wildfly.glow.cli.support.CLIConfigurationResolver;
 import org.wildfly.glow.cli.support.Constants;
 import org.wildfly.glow.deployment.openshift.api.OpenShiftSupport;
 import org.wildfly.glow.deployment.openshift.api.OpenShiftConfiguration;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import org.jboss.galleon.util.IoUtils;
+import org.wildfly.glow.AddOn;
 import org.wildfly.glow.Arguments;
+import org.wildfly.glow.BatchScanner;
+import org.wildfly.glow.DeploymentScanner;
+import org.wildfly.glow.DeploymentWatcher;
 import org.wildfly.glow.GlowMessageWriter;
 import org.wildfly.glow.GlowSession;
 import org.wildfly.glow.HiddenPropertiesAccessor;
+import org.wildfly.glow.Layer;
 import org.wildfly.glow.OutputContent;
 import org.wildfly.glow.OutputFormat;
 import org.wildfly.glow.ScanArguments.Builder;
+import org.wildfly.glow.ScanModelCache;
 import org.wildfly.glow.ScanResults;
 import org.wildfly.glow.error.ErrorLevel;
 import org.wildfly.glow.error.IdentifiedError;
@@ -47,6 +57,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import org.jboss.galleon.universe.FeaturePackLocation.ProducerSpec;
 import org.jboss.galleon.universe.maven.repo.MavenRepoManager;
 import org.wildfly.channel.Channel;
@@ -81,6 +92,9 @@ public class ScanCommand extends AbstractCommand {
             + Constants.ADD_ONS_OPTION + "=<list of add-ons>|@ @|bold option to the|@ @|fg(yellow) "
             + Constants.SCAN_COMMAND + "|@ @|bold command|@";
 
+    // The time without changes after which the deployments are scanned again, a build writes many files.
+    private static final long WATCH_QUIET_PERIOD = 300;
+
     @CommandLine.Option(names = {Constants.CLOUD_OPTION_SHORT, Constants.CLOUD_OPTION})
     Optional<Boolean> cloud;
 
@@ -177,13 +191,58 @@ public class ScanCommand extends AbstractCommand {
     @CommandLine.Option(names = {Constants.DISABLE_FORK_EMBEDDED_OPTION_SHORT, Constants.DISABLE_FORK_EMBEDDED_OPTION})
     Optional<Boolean> disableForkEmbedded;
 
+    @CommandLine.Option(names = Constants.PARALLELISM_OPTION, paramLabel = Constants.PARALLELISM_OPTION_LABEL)
+    Optional<Integer> parallelism;
+
+    @CommandLine.Option(names = Constants.BATCH_INPUT_OPTION, paramLabel = Constants.BATCH_INPUT_OPTION_LABEL)
+    Optional<Path> batchInput;
+
+    @CommandLine.Option(names = Constants.BATCH_OUTPUT_OPTION, paramLabel = Constants.BATCH_OUTPUT_OPTION_LABEL)
+    Optional<Path> batchOutput;
+
+    @CommandLine.Option(names = Constants.METRICS_OPTION, paramLabel = Constants.METRICS_OPTION_LABEL)
+    Optional<Path> metrics;
+
+    @CommandLine.Option(names = Constants.PROFILE_RULES_OPTION, paramLabel = Constants.PROFILE_RULES_OPTION_LABEL)
+    Optional<Path> profileRules;
+
+    @CommandLine.Option(names = Constants.WATCH_OPTION)
+    Optional<Boolean> watch;
+
     @Override
     public Integer call() throws Exception {
         Utils.setSystemProperties(systemProperties);
         Map<String, String> configMap = Utils.readConfigFile(configFile.orElse(null));
         HiddenPropertiesAccessor hiddenPropertiesAccessor = new HiddenPropertiesAccessor();
         boolean compact = Boolean.parseBoolean(hiddenPropertiesAccessor.getProperty(COMPACT_PROPERTY));
-        if (!compact) {
+        if (batchInput.isPresent()) {
+            if (deployments != null && !deployments.isEmpty()) {
+                throw new Exception(Constants.BATCH_INPUT_OPTION + " can't be set when deployments are set.");
+            }
+            if (provision.isPresent()) {
+                throw new Exception(Constants.BATCH_INPUT_OPTION + " can't be set when " + Constants.PROVISION_OPTION + " is set.");
+            }
+            if (metrics.isPresent()) {
+                throw new Exception(Constants.BATCH_INPUT_OPTION + " can't be set when " + Constants.METRICS_OPTION + " is set.");
+            }
+            if (profileRules.isPresent()) {
+                throw new Exception(Constants.BATCH_INPUT_OPTION + " can't be set when " + Constants.PROFILE_RULES_OPTION + " is set.");
+            }
+        } else if (batchOutput.isPresent()) {
+            throw new Exception(Constants.BATCH_OUTPUT_OPTION + " can only be set when " + Constants.BATCH_INPUT_OPTION + " is set.");
+        }
+        if (watch.orElse(false)) {
+            if (batchInput.isPresent()) {
+                throw new Exception(Constants.WATCH_OPTION + " can't be set when " + Constants.BATCH_INPUT_OPTION + " is set.");
+            }
+            if (provision.isPresent()) {
+                throw new Exception(Constants.WATCH_OPTION + " can't be set when " + Constants.PROVISION_OPTION + " is set.");
+            }
+            if (deployments == null || deployments.isEmpty()) {
+                throw new Exception(Constants.WATCH_OPTION + " requires deployments to watch.");
+            }
+        }
+        if (!compact && (batchInput.isEmpty() || batchOutput.isPresent())) {
             print("Wildfly Glow is scanning...");
         }
         Builder builder = Arguments.scanBuilder();
@@ -314,6 +373,8 @@ public class ScanCommand extends AbstractCommand {
             repoManager = MavenResolver.newMavenResolver(channels);
         } else {
             repoManager = MavenResolver.newMavenResolver();
+            // The models and metadata of the daemon are retrieved without channels.
+            builder.setModelCache(GlowDaemon.getModelCache());
         }
         if (provision.isPresent()) {
             if (DOCKER_IMAGE.equals(provision.get()) && !cloud.orElse(false)) {
@@ -331,6 +392,8 @@ public class ScanCommand extends AbstractCommand {
             builder.setExecutionContext(CLOUD_EXECUTION_CONTEXT);
         }
         builder.setExcludeArchivesFromScan(excludeArchivesFromScan);
+        builder.setParallelism(parallelism.orElse(Runtime.getRuntime().availableProcessors()));
+        builder.setProfileRules(profileRules.isPresent());
 
         // Set a default community stability level. Doing so, any discovered features at a lower level are advertised
         String userSetConfigStability = null;
@@ -364,6 +427,23 @@ public class ScanCommand extends AbstractCommand {
         Utils.addDisableDeployersFromConfig(configMap, disableDeployers);
         Utils.addEnableDeployersFromConfig(configMap, enableDeployers);
         builder.setIsCli(true);
+        if (batchInput.isPresent()) {
+            return batchScan(repoManager, builder);
+        }
+        ScanModelCache watchModels = null;
+        Thread cleanup = null;
+        if (watch.orElse(false)) {
+            // The layer models and the metadata of the first scan are kept for the scans of the changes, only the
+            // changed classes of the exploded deployments are analyzed again.
+            watchModels = new ScanModelCache();
+            builder.setModelCache(watchModels);
+            if (System.getProperty(DeploymentScanner.INCREMENTAL_SCAN_PROPERTY) == null) {
+                System.setProperty(DeploymentScanner.INCREMENTAL_SCAN_PROPERTY, "true");
+            }
+            // Watching is stopped with Ctrl-C.
+            cleanup = new Thread(watchModels::close);
+            Runtime.getRuntime().addShutdownHook(cleanup);
+        }
         ScanResults scanResults = GlowSession.scan(repoManager, builder.build(), GlowMessageWriter.DEFAULT);
         ConfigurationResolver configurationResolver = new CLIConfigurationResolver((provision.isPresent() && provision.get().equals(OPENSHIFT)),
                 disableDeployers, enableDeployers);
@@ -544,6 +624,121 @@ public class ScanCommand extends AbstractCommand {
                 }
             }
         }
+        if (metrics.isPresent()) {
+            scanResults.getMetrics().write(metrics.get());
+            print("@|bold Scan metrics written to %s|@", metrics.get());
+        }
+        if (profileRules.isPresent()) {
+            scanResults.getRuleProfiler().write(profileRules.get());
+            print("@|bold Rules profile written to %s|@", profileRules.get());
+        }
+        if (watch.orElse(false)) {
+            watch(repoManager, builder, scanResults, watchModels, cleanup);
+        }
         return 0;
     }
+
+    private void watch(MavenRepoManager repoManager, Builder builder, ScanResults scanResults, ScanModelCache models,
+            Thread cleanup) throws Exception {
+        Arguments arguments = builder.build();
+        ScanResults previous = scanResults;
+        try (DeploymentWatcher watcher = new DeploymentWatcher(deployments)) {
+            print();
+            print("@|bold Watching the deployments for changes, press Ctrl-C to stop.|@");
+            while (true) {
+                if (watcher.awaitChanges(WATCH_QUIET_PERIOD).isEmpty()) {
+                    printError("The deployments can't be watched anymore, their directories have been deleted.");
+                    return;
+                }
+                long start = System.currentTimeMillis();
+                ScanResults results;
+                try {
+                    results = GlowSession.scan(repoManager, arguments, GlowMessageWriter.DEFAULT);
+                } catch (Exception ex) {
+                    // The deployment can be incomplete while being built, it is scanned again at the next change.
+                    printError("Scan failed: %s", ex.getMessage() == null ? ex.toString() : ex.getMessage());
+                    continue;
+                }
+                printDifferences(previous, results, System.currentTimeMillis() - start);
+                previous.close();
+                previous = results;
+            }
+        } finally {
+            previous.close();
+            models.close();
+            try {
+                Runtime.getRuntime().removeShutdownHook(cleanup);
+            } catch (IllegalStateException ex) {
+                // Already shutting down
+            }
+        }
+    }
+
+    private void printDifferences(ScanResults previous, ScanResults results, long time) throws Exception {
+        Set<String> previousLayers = getLayerNames(previous);
+        Set<String> layers = getLayerNames(results);
+        Set<String> previousAddOns = getAddOnNames(previous);
+        Set<String> addOns = getAddOnNames(results);
+        if (previousLayers.equals(layers) && previousAddOns.equals(addOns)) {
+            print("@|bold Deployments scanned in %sms, no change.|@", time);
+            return;
+        }
+        print("@|bold Deployments scanned in %sms:|@", time);
+        printDifferences("layer", previousLayers, layers);
+        printDifferences("add-on", previousAddOns, addOns);
+        results.outputCompactInformation();
+    }
+
+    private void printDifferences(String kind, Set<String> previous, Set<String> current) {
+        for (String name : current) {
+            if (!previous.contains(name)) {
+                print("@|fg(green) + %s %s|@", kind, name);
+            }
+        }
+        for (String name : previous) {
+            if (!current.contains(name)) {
+                print("@|fg(red) - %s %s|@", kind, name);
+            }
+        }
+    }
+
+    private static Set<String> getLayerNames(ScanResults results) {
+        Set<String> names = new TreeSet<>();
+        if (results.getBaseLayer() != null) {
+            names.add(results.getBaseLayer().getName());
+        }
+        for (Layer layer : results.getDecorators()) {
+            names.add(layer.getName());
+        }
+        return names;
+    }
+
+    private static Set<String> getAddOnNames(ScanResults results) {
+        Set<String> names = new TreeSet<>();
+        for (AddOn addOn : results.getEnabledAddOns()) {
+            names.add(addOn.getName());
+        }
+        for (AddOn addOn : results.getSuggestions().getPossibleAddOns()) {
+            names.add(addOn.getName() + " (suggested)");
+        }
+        return names;
+    }
+
+    private int batchScan(MavenRepoManager repoManager, Builder builder) throws Exception {
+        List<Path> batch = BatchScanner.listDeployments(batchInput.get());
+        BatchScanner scanner = new BatchScanner(repoManager, builder, parallelism.orElse(Runtime.getRuntime().availableProcessors()));
+        BatchScanner.Summary summary;
+        if (batchOutput.isPresent()) {
+            try (Writer writer = Files.newBufferedWriter(batchOutput.get(), StandardCharsets.UTF_8)) {
+                summary = scanner.scan(batch, writer);
+            }
+            print("@|bold %s deployments scanned, %s failed. The results are written to %s|@", summary.getDeployments(),
+                    summary.getFailed(), batchOutput.get());
+        } else {
+            Writer writer = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+            summary = scanner.scan(batch, writer);
+            writer.flush();
+        }
+        return summary.getFailed() == 0 ? 0 : 1;
+    }
 }
@@ -44,10 +44,12 @@ import org.wildfly.glow.Layer;
 import org.wildfly.glow.LayerConfigurationProvider;
 import org.wildfly.glow.LayerMapping;
 import org.wildfly.glow.MetadataProvider;
+import org.wildfly.glow.ScanModelCache;
 import org.wildfly.glow.ProvisioningUtils;
 import org.wildfly.glow.Space;
 import org.wildfly.glow.WildFlyMavenMetadataProvider;
 import org.wildfly.glow.WildFlyMetadataProvider;
+import org.wildfly.glow.cli.GlowDaemon;
 import org.wildfly.glow.cli.support.CLIConfigurationResolver;
 import org.wildfly.glow.cli.support.Utils;
 import org.wildfly.glow.maven.MavenResolver;
@@ -103,11 +105,17 @@ public class ShowAddOnsCommand extends AbstractCommand {
         Path tmpMetadataDirectory = null;
         MetadataProvider metadataProvider;
         LayerConfigurationProvider configProvider = new DefaultLayerConfigurationProvider();
+        // The models and metadata of the daemon are retrieved without channels.
+        ScanModelCache modelCache = channelsFile.isPresent() ? null : GlowDaemon.getModelCache();
         try {
             String prop = System.getProperty(URL_PROPERTY);
             if (prop == null) {
-                tmpMetadataDirectory = Files.createTempDirectory("wildfly-glow-metadata");
-                metadataProvider = new WildFlyMavenMetadataProvider(repoManager, tmpMetadataDirectory);
+                if (modelCache == null) {
+                    tmpMetadataDirectory = Files.createTempDirectory("wildfly-glow-metadata");
+                    metadataProvider = new WildFlyMavenMetadataProvider(repoManager, tmpMetadataDirectory);
+                } else {
+                    metadataProvider = modelCache.getMetadataProvider(repoManager);
+                }
                 configProvider = (WildFlyMavenMetadataProvider) metadataProvider;
             } else {
                 tmpMetadataDirectory = null;
@@ -137,14 +145,14 @@ public class ShowAddOnsCommand extends AbstractCommand {
                 }
             }
             showAddOns(Space.DEFAULT, context, provisioningXml.orElse(null), wildflyServerVersion.isEmpty(), wildflyServerVersion.orElse(null),
-                    variant, channels, repoManager, metadataProvider, configProvider);
+                    variant, channels, repoManager, metadataProvider, configProvider, modelCache);
             String vers = wildflyServerVersion.isPresent() ? wildflyServerVersion.get() : metadataProvider.getLatestVersion();
             for (String spaceName : spaces) {
                 Set<String> versions = metadataProvider.getAllVersions(spaceName);
                 if (versions.contains(vers)) {
                     Space space = metadataProvider.getSpace(spaceName);
                     showAddOns(space, context, provisioningXml.orElse(null), wildflyServerVersion.isEmpty(), wildflyServerVersion.orElse(null),
-                            variant, channels, repoManager, metadataProvider, configProvider);
+                            variant, channels, repoManager, metadataProvider, configProvider, modelCache);
                 }
             }
             print("@|bold Add-ons can be set using the|@ @|fg(yellow) %s=<list of add-ons>|@ @|bold option of the|@ @|fg(yellow) %s|@ @|bold command|@", Constants.ADD_ONS_OPTION, Constants.SCAN_COMMAND);
@@ -158,7 +166,8 @@ public class ShowAddOnsCommand extends AbstractCommand {
     }
 
     public void showAddOns(Space space, String context, Path provisioningXml, boolean isLatest,
-            String serverVersion, String variant, List<Channel> channels, MavenRepoManager repoManager, MetadataProvider metadataProvider, LayerConfigurationProvider configProvider) throws Exception {
+            String serverVersion, String variant, List<Channel> channels, MavenRepoManager repoManager, MetadataProvider metadataProvider, LayerConfigurationProvider configProvider,
+            ScanModelCache modelCache) throws Exception {
         CLIConfigurationResolver resolver = new CLIConfigurationResolver();
         ProvisioningUtils.ProvisioningConsumer consumer = new ProvisioningUtils.ProvisioningConsumer() {
             @Override
@@ -216,6 +225,6 @@ public class ShowAddOnsCommand extends AbstractCommand {
 
         };
         ProvisioningUtils.traverseProvisioning(space, consumer, context, provisioningXml, isLatest, serverVersion,
-                variant, channels, repoManager, metadataProvider, configProvider);
+                variant, channels, repoManager, metadataProvider, configProvider, modelCache);
     }
 }
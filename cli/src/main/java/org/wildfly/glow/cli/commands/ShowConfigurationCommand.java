@@ -50,10 +50,12 @@ import org.wildfly.glow.Layer;
 import org.wildfly.glow.LayerConfigurationProvider;
 import org.wildfly.glow.LayerMapping;
 import org.wildfly.glow.MetadataProvider;
+import org.wildfly.glow.ScanModelCache;
 import org.wildfly.glow.Space;
 import org.wildfly.glow.Variant;
 import org.wildfly.glow.WildFlyMavenMetadataProvider;
 import org.wildfly.glow.WildFlyMetadataProvider;
+import org.wildfly.glow.cli.GlowDaemon;
 import org.wildfly.glow.cli.support.Utils;
 import org.wildfly.glow.deployment.openshift.api.Deployer;
 
@@ -110,11 +112,17 @@ public class ShowConfigurationCommand extends AbstractCommand {
         Path tmpMetadataDirectory = null;
         MetadataProvider metadataProvider;
         LayerConfigurationProvider configProvider = new DefaultLayerConfigurationProvider();
+        // The models and metadata of the daemon are retrieved without channels.
+        ScanModelCache modelCache = channelsFile.isPresent() ? null : GlowDaemon.getModelCache();
         try {
             String prop = System.getProperty(URL_PROPERTY);
             if (prop == null) {
-                tmpMetadataDirectory = Files.createTempDirectory("wildfly-glow-metadata");
-                metadataProvider = new WildFlyMavenMetadataProvider(repoManager, tmpMetadataDirectory);
+                if (modelCache == null) {
+                    tmpMetadataDirectory = Files.createTempDirectory("wildfly-glow-metadata");
+                    metadataProvider = new WildFlyMavenMetadataProvider(repoManager, tmpMetadataDirectory);
+                } else {
+                    metadataProvider = modelCache.getMetadataProvider(repoManager);
+                }
                 configProvider = (WildFlyMavenMetadataProvider) metadataProvider;
             } else {
                 tmpMetadataDirectory = null;
@@ -179,12 +187,12 @@ public class ShowConfigurationCommand extends AbstractCommand {
                     print(configStr);
                 }
             };
-            ProvisioningUtils.traverseProvisioning(Space.DEFAULT, consumer, context, provisioningXml.orElse(null), wildflyServerVersion.isEmpty(), serverVersion, finalVariant, channels, repoManager, metadataProvider, configProvider);
+            ProvisioningUtils.traverseProvisioning(Space.DEFAULT, consumer, context, provisioningXml.orElse(null), wildflyServerVersion.isEmpty(), serverVersion, finalVariant, channels, repoManager, metadataProvider, configProvider, modelCache);
             for (String spaceName : spaces) {
                 Set<String> versions = metadataProvider.getAllVersions(spaceName);
                 if (versions.contains(serverVersion)) {
                     Space space = metadataProvider.getSpace(spaceName);
-                    ProvisioningUtils.traverseProvisioning(space, consumer, context, provisioningXml.orElse(null), wildflyServerVersion.isEmpty(), serverVersion, finalVariant, channels, repoManager, metadataProvider, configProvider);
+                    ProvisioningUtils.traverseProvisioning(space, consumer, context, provisioningXml.orElse(null), wildflyServerVersion.isEmpty(), serverVersion, finalVariant, channels, repoManager, metadataProvider, configProvider, modelCache);
                 }
             }
         } finally {
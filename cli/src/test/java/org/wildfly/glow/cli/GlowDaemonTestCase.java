@@ -0,0 +1,85 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.glow.cli.support.Constants;
+
+public class GlowDaemonTestCase {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testForward() throws Exception {
+        Path info = tmp.getRoot().toPath().resolve("daemon").resolve("daemon.properties");
+        CountDownLatch listening = new CountDownLatch(1);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Thread daemon = new Thread(() -> {
+            try {
+                GlowDaemon.run(info, listening::countDown);
+            } catch (Exception ex) {
+                failure.set(ex);
+                listening.countDown();
+            }
+        });
+        daemon.start();
+        try {
+            Assert.assertTrue(listening.await(10, TimeUnit.SECONDS));
+            Assert.assertNull(failure.get());
+            Assert.assertNotNull(GlowDaemon.getModelCache());
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                Assert.assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(info)));
+            }
+
+            // A command sent without the token is ignored.
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(info)) {
+                properties.load(in);
+            }
+            properties.setProperty("token", "invalid");
+            Path tampered = tmp.newFile("tampered.properties").toPath();
+            try (OutputStream out = Files.newOutputStream(tampered)) {
+                properties.store(out, null);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            Assert.assertNull(GlowDaemon.forward(tampered, new String[] {Constants.SCAN_COMMAND, "--help"},
+                    new PrintStream(out), new PrintStream(err)));
+
+            // The commands that are not forwarded are executed by the CLI.
+            Assert.assertNull(GlowDaemon.forward(info, new String[] {Constants.GO_OFFLINE_COMMAND},
+                    new PrintStream(out), new PrintStream(err)));
+            Assert.assertEquals(0, out.size());
+
+            Assert.assertEquals(Integer.valueOf(0), GlowDaemon.forward(info,
+                    new String[] {Constants.SCAN_COMMAND, "--help"}, new PrintStream(out), new PrintStream(err)));
+            Assert.assertTrue(out.toString(StandardCharsets.UTF_8).contains(Constants.SCAN_COMMAND));
+        } finally {
+            Assert.assertTrue(GlowDaemon.stop(info));
+            daemon.join(10000);
+        }
+        Assert.assertFalse(daemon.isAlive());
+        Assert.assertFalse(Files.exists(info));
+        Assert.assertNull(GlowDaemon.getModelCache());
+        Assert.assertFalse(GlowDaemon.stop(info));
+    }
+}
@@ -19,6 +19,7 @@ package org.wildfly.glow;
 
 import org.wildfly.glow.error.Fix;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -26,6 +27,8 @@ import java.util.Set;
 import java.util.TreeSet;
 
 /**
+ * An add-on, derived from the properties of a layer. As the layers, an add-on
+ * is immutable.
  *
  * @author jdenise
  */
@@ -55,6 +58,66 @@ public class AddOn implements Comparable<AddOn> {
 
     }
 
+    /**
+     * @param layers All the layers of the model.
+     * @return The add-on defined by the layer properties, null if the layer is
+     * not an add-on.
+     */
+    static AddOn build(Layer l, Map<String, Layer> layers) {
+        String familyAndName = l.getProperties().get(LayerMetadata.ADD_ON);
+        if (familyAndName == null) {
+            return null;
+        }
+        String[] split = familyAndName.split(",");
+        String family = split[0];
+        String name = split[1];
+        // Do we have a description for it
+        String description = l.getProperties().get(LayerMetadata.ADD_ON_DESCRIPTION);
+        AddOn addon = new AddOn(name, family, description);
+        String dependencies = l.getProperties().get(LayerMetadata.ADD_ON_DEPENDS_ON);
+        if ("all-dependencies".equals(dependencies)) {
+            addon.layersThatExpectAllDependencies.add(l);
+        } else {
+            if (dependencies.startsWith("only:")) {
+                int i = dependencies.indexOf(":");
+                String v = dependencies.substring(i + 1);
+                String[] deps = v.split(",");
+                Set<Layer> set = new TreeSet<>();
+                for (String d : deps) {
+                    Layer dl = layers.get(d);
+                    if (dl != null) {
+                        set.add(dl);
+                    }
+                }
+                addon.layersThatExpectSomeDependencies.put(l, Collections.unmodifiableSet(set));
+            } else {
+                if ("none".equals(dependencies)) {
+                    // Such addons are always proposed, if addOn enabled, layer is always included.
+                    addon.layersAlwaysIncluded.add(l);
+                }
+            }
+        }
+        addon.layers.add(l);
+        // Found the issues that get fixed by enabling this layer
+        for (String k : l.getProperties().keySet()) {
+            if (k.startsWith(LayerMetadata.ADD_ON_FIX)) {
+                int i = LayerMetadata.ADD_ON_FIX.length();
+                String id = k.substring(i);
+                String value = l.getProperties().get(k);
+                String[] items = value.split(",");
+                String fixDescription = null;
+                String fixContent = null;
+                if (items.length == 2) {
+                    fixDescription = items[0];
+                    fixContent = items[1];
+                }
+                addon.fixes.put(id, new Fix(id, fixDescription, fixContent));
+                break;
+            }
+        }
+        return addon;
+    }
+
     public boolean isDefault() {
         return isDefault;
     }
@@ -93,14 +156,14 @@ public class AddOn implements Comparable<AddOn> {
      * @return the layers
      */
     public Set<Layer> getLayers() {
-        return layers;
+        return Collections.unmodifiableSet(layers);
     }
 
     /**
      * @return the fixes
      */
     public Map<String, Fix> getFixes() {
-        return fixes;
+        return Collections.unmodifiableMap(fixes);
     }
 
     @Override
@@ -133,14 +196,14 @@ public class AddOn implements Comparable<AddOn> {
      * @return the layersThatExpectAllDependencies
      */
     public Set<Layer> getLayersThatExpectAllDependencies() {
-        return layersThatExpectAllDependencies;
+        return Collections.unmodifiableSet(layersThatExpectAllDependencies);
     }
 
     /**
      * @return the layersThatExpectSomeDependencies
      */
     public Map<Layer, Set<Layer>> getLayersThatExpectSomeDependencies() {
-        return layersThatExpectSomeDependencies;
+        return Collections.unmodifiableMap(layersThatExpectSomeDependencies);
     }
 
     @Override
@@ -152,7 +215,7 @@ public class AddOn implements Comparable<AddOn> {
      * @return the layersAlwaysIncluded
      */
     public Set<Layer> getLayersAlwaysIncluded() {
-        return layersAlwaysIncluded;
+        return Collections.unmodifiableSet(layersAlwaysIncluded);
     }
 
 }
@@ -0,0 +1,240 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import org.jboss.jandex.DotName;
+
+/**
+ * Compiled form of the annotation rules ({@code org.wildfly.rule.annotations},
+ * {@code org.wildfly.rule.annotation.field.value} and
+ * {@code org.wildfly.rule.annotated.type}).
+ *
+ * Rules are resolved once per annotation {@link DotName} and kept in a table,
+ * wildcard and field value patterns are compiled when the table is built.
+ * Instances are thread safe.
+ */
+final class AnnotationRules {
+
+    /**
+     * Layers discovered by an annotation name and the rule reported in the
+     * layer matching rules.
+     */
+    static final class NameMatch {
+
+        private final Set<Layer> layers;
+        private final String rule;
+
+        private NameMatch(Set<Layer> layers, String rule) {
+            this.layers = layers;
+            this.rule = rule;
+        }
+
+        Set<Layer> getLayers() {
+            return layers;
+        }
+
+        String getRule() {
+            return rule;
+        }
+    }
+
+    /**
+     * A compiled value, a pattern or a plain value.
+     */
+    static final class ValueMatcher {
+
+        private final String value;
+        private final Pattern pattern;
+
+        private ValueMatcher(String value) {
+            this.value = value;
+            this.pattern = Utils.isPattern(value) ? Pattern.compile(value) : null;
+        }
+
+        boolean matches(String val) {
+            return pattern == null ? value.equals(val) : pattern.matcher(val).matches();
+        }
+
+        boolean isPattern() {
+            return pattern != null;
+        }
+
+        String getValue() {
+            return value;
+        }
+    }
+
+    static final class FieldValueRule {
+
+        private final ValueMatcher value;
+        private final Layer layer;
+
+        private FieldValueRule(AnnotationFieldValue fieldValue) {
+            this.value = new ValueMatcher(fieldValue.getFieldValue());
+            this.layer = fieldValue.getLayer();
+        }
+
+        ValueMatcher getValue() {
+            return value;
+        }
+
+        Layer getLayer() {
+            return layer;
+        }
+    }
+
+    static final class AnnotatedTypeRule {
+
+        private final AnnotatedType annotatedType;
+        private final Map<String, ValueMatcher> fields = new LinkedHashMap<>();
+
+        private AnnotatedTypeRule(AnnotatedType annotatedType) {
+            this.annotatedType = annotatedType;
+            for (Map.Entry<String, String> entry : annotatedType.getFields().entrySet()) {
+                fields.put(entry.getKey(), new ValueMatcher(entry.getValue()));
+            }
+        }
+
+        AnnotatedType getAnnotatedType() {
+            return annotatedType;
+        }
+
+        Map<String, ValueMatcher> getFields() {
+            return fields;
+        }
+    }
+
+    /**
+     * All the rules that apply to a given annotation.
+     */
+    static final class AnnotationRule {
+
+        private final boolean exactMatch;
+        private final List<NameMatch> nameMatches;
+        private final Map<String, List<FieldValueRule>> fieldValues;
+        private final Map<String, List<AnnotatedTypeRule>> annotatedTypes;
+
+        private AnnotationRule(boolean exactMatch, List<NameMatch> nameMatches,
+                Map<String, List<FieldValueRule>> fieldValues, Map<String, List<AnnotatedTypeRule>> annotatedTypes) {
+            this.exactMatch = exactMatch;
+            this.nameMatches = nameMatches;
+            this.fieldValues = fieldValues;
+            this.annotatedTypes = annotatedTypes;
+        }
+
+        /**
+         * @return true if the annotation name is explicitly referenced by a
+         * layer. In this case field values and annotated types rules are not
+         * evaluated.
+         */
+        boolean isExactMatch() {
+            return exactMatch;
+        }
+
+        List<NameMatch> getNameMatches() {
+            return nameMatches;
+        }
+
+        /**
+         * @return The field value rules keyed by field name, null if no field value rule.
+         */
+        Map<String, List<FieldValueRule>> getFieldValues() {
+            return fieldValues;
+        }
+
+        /**
+         * @return The annotated type rules keyed by type, null if no annotated type rule.
+         */
+        Map<String, List<AnnotatedTypeRule>> getAnnotatedTypes() {
+            return annotatedTypes;
+        }
+    }
+
+    private static final AnnotationRule NO_RULE = new AnnotationRule(false, Collections.emptyList(), null, null);
+
+    private final Map<String, Set<Layer>> annotations;
+    private final Map<Pattern, String> wildcards = new LinkedHashMap<>();
+    private final Map<String, Map<String, List<FieldValueRule>>> fieldValues = new HashMap<>();
+    private final Map<String, Map<String, List<AnnotatedTypeRule>>> annotatedTypes = new HashMap<>();
+    private final Map<DotName, AnnotationRule> table = new ConcurrentHashMap<>();
+
+    private AnnotationRules(LayerMapping mapping) {
+        this.annotations = mapping.getAnnotations();
+        for (String s : annotations.keySet()) {
+            if (Utils.isPattern(s)) {
+                wildcards.put(Pattern.compile(s), s);
+            }
+        }
+        for (Map.Entry<String, Map<String, List<AnnotationFieldValue>>> entry : mapping.getAnnotationFieldValues().entrySet()) {
+            Map<String, List<FieldValueRule>> fields = new LinkedHashMap<>();
+            for (Map.Entry<String, List<AnnotationFieldValue>> field : entry.getValue().entrySet()) {
+                List<FieldValueRule> rules = new ArrayList<>();
+                for (AnnotationFieldValue fv : field.getValue()) {
+                    rules.add(new FieldValueRule(fv));
+                }
+                fields.put(field.getKey(), rules);
+            }
+            fieldValues.put(entry.getKey(), fields);
+        }
+        for (Map.Entry<String, Map<String, List<AnnotatedType>>> entry : mapping.getAnnotatedTypes().entrySet()) {
+            Map<String, List<AnnotatedTypeRule>> types = new LinkedHashMap<>();
+            for (Map.Entry<String, List<AnnotatedType>> type : entry.getValue().entrySet()) {
+                List<AnnotatedTypeRule> rules = new ArrayList<>();
+                for (AnnotatedType at : type.getValue()) {
+                    rules.add(new AnnotatedTypeRule(at));
+                }
+                types.put(type.getKey(), rules);
+            }
+            annotatedTypes.put(entry.getKey(), types);
+        }
+    }
+
+    static AnnotationRules build(LayerMapping mapping) {
+        return new AnnotationRules(mapping);
+    }
+
+    /**
+     * @param name The annotation name.
+     * @return The rules that apply to the annotation, never null.
+     */
+    AnnotationRule get(DotName name) {
+        return table.computeIfAbsent(name, this::resolve);
+    }
+
+    private AnnotationRule resolve(DotName dotName) {
+        String name = dotName.toString();
+        Set<Layer> l = annotations.get(name);
+        if (l != null) {
+            return new AnnotationRule(true, Collections.singletonList(new NameMatch(l, name)), null, null);
+        }
+        List<NameMatch> nameMatches = new ArrayList<>();
+        String packagePrefix = dotName.packagePrefix();
+        l = packagePrefix == null ? null : annotations.get(packagePrefix);
+        if (l != null) {
+            nameMatches.add(new NameMatch(l, packagePrefix + ".*"));
+        } else {
+            for (Map.Entry<Pattern, String> entry : wildcards.entrySet()) {
+                if (entry.getKey().matcher(name).matches()) {
+                    nameMatches.add(new NameMatch(annotations.get(entry.getValue()), entry.getValue()));
+                }
+            }
+        }
+        Map<String, List<FieldValueRule>> fields = fieldValues.get(name);
+        Map<String, List<AnnotatedTypeRule>> types = annotatedTypes.get(name);
+        if (nameMatches.isEmpty() && fields == null && types == null) {
+            return NO_RULE;
+        }
+        return new AnnotationRule(false, nameMatches, fields, types);
+    }
+}
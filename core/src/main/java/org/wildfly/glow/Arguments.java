@@ -50,6 +50,9 @@ public class Arguments implements GoOfflineArguments, ScanArguments {
     private final LayerConfigurationProvider layerConfigurationProvider;
     private final boolean enforceInputFeaturePacks;
     private final boolean preferSystemProperties;
+    private final int parallelism;
+    private final boolean profileRules;
+    private final ScanModelCache modelCache;
 
     protected Arguments(
             String executionContext,
@@ -75,7 +78,10 @@ public class Arguments implements GoOfflineArguments, ScanArguments {
             boolean disableForkEmbedded,
             LayerConfigurationProvider layerConfigurationProvider,
             boolean enforceInputFeaturePacks,
-            boolean preferSystemProperties) {
+            boolean preferSystemProperties,
+            int parallelism,
+            boolean profileRules,
+            ScanModelCache modelCache) {
         this.executionProfiles = executionProfiles;
         this.userEnabledAddOns = userEnabledAddOns;
         this.binaries = binaries;
@@ -108,6 +114,12 @@ public class Arguments implements GoOfflineArguments, ScanArguments {
         this.layerConfigurationProvider = layerConfigurationProvider;
         this.enforceInputFeaturePacks = enforceInputFeaturePacks;
         this.preferSystemProperties = preferSystemProperties;
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism " + parallelism + ", must be greater than 0");
+        }
+        this.parallelism = parallelism;
+        this.profileRules = profileRules;
+        this.modelCache = modelCache;
     }
 
     /**
@@ -291,6 +303,21 @@ public class Arguments implements GoOfflineArguments, ScanArguments {
         return preferSystemProperties;
     }
 
+    @Override
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public boolean isProfileRules() {
+        return profileRules;
+    }
+
+    @Override
+    public ScanModelCache getModelCache() {
+        return modelCache;
+    }
+
     static GoOfflineArguments.Builder goOfflineBuilder() {
         return new GoOfflineArguments.Builder();
     }
@@ -51,10 +51,46 @@ public class BaseArgumentsBuilder {
     protected LayerConfigurationProvider layerConfigurationProvider;
     protected boolean enforceInputFeaturePacks;
     protected boolean preferSystemProperties;
+    protected int parallelism = 1;
+    protected boolean profileRules;
+    protected ScanModelCache modelCache;
     protected BaseArgumentsBuilder() {
 
     }
 
+    /**
+     * Copy the arguments set in this builder to another builder.
+     */
+    void copyTo(BaseArgumentsBuilder builder) {
+        builder.executionProfiles = executionProfiles;
+        builder.userEnabledAddOns = userEnabledAddOns;
+        builder.binaries = binaries;
+        builder.provisioningXML = provisioningXML;
+        builder.output = output;
+        builder.executionContext = executionContext;
+        builder.suggest = suggest;
+        builder.version = version;
+        builder.configName = configName;
+        builder.layersForJndi = layersForJndi;
+        builder.verbose = verbose;
+        builder.serverVariant = serverVariant;
+        builder.excludeJarsFromScan = excludeJarsFromScan;
+        builder.packageStability = packageStability;
+        builder.configStability = configStability;
+        builder.defaultConfigStability = defaultConfigStability;
+        builder.isCli = isCli;
+        builder.channels = channels;
+        builder.spaces = spaces;
+        builder.metadataProvider = metadataProvider;
+        builder.disableForkEmbedded = disableForkEmbedded;
+        builder.layerConfigurationProvider = layerConfigurationProvider;
+        builder.enforceInputFeaturePacks = enforceInputFeaturePacks;
+        builder.preferSystemProperties = preferSystemProperties;
+        builder.parallelism = parallelism;
+        builder.profileRules = profileRules;
+        builder.modelCache = modelCache;
+    }
+
     public Arguments build() {
         Set<Pattern> excludeJarsFromScan = this.excludeJarsFromScan.stream()
                 .map(v -> Pattern.compile(Utils.escapePattern(v)))
@@ -84,6 +120,9 @@ public class BaseArgumentsBuilder {
                 disableForkEmbedded,
                 layerConfigurationProvider,
                 enforceInputFeaturePacks,
-                preferSystemProperties);
+                preferSystemProperties,
+                parallelism,
+                profileRules,
+                modelCache);
     }
 }
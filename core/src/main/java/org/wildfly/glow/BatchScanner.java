@@ -0,0 +1,266 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import static org.wildfly.glow.GlowSession.OFFLINE_ZIP;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.jboss.galleon.universe.maven.repo.MavenRepoManager;
+import org.wildfly.glow.error.IdentifiedError;
+
+/**
+ * Scans a set of deployments independently, the same metadata and layer models are used for all the scans. The
+ * result of each scan is written as a JSON line once the scan is done, followed by a summary line (number of scanned
+ * and failed deployments, frequency of the layers and errors). Only the deployments being scanned are kept in
+ * memory, whatever the number of deployments.
+ */
+public final class BatchScanner {
+
+    private static final Set<String> DEPLOYMENT_SUFFIXES = Set.of(".ear", ".war", ".jar", ".rar", ".sar");
+
+    private static final GlowMessageWriter QUIET = new GlowMessageWriter() {
+        @Override
+        public void info(Object s) {
+        }
+
+        @Override
+        public void warn(Object s) {
+        }
+
+        @Override
+        public void error(Object s) {
+        }
+
+        @Override
+        public void trace(Object s) {
+        }
+    };
+
+    private final MavenRepoManager resolver;
+    private final ScanArguments.Builder builder;
+    private final int parallelism;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private IOException writeError;
+
+    /**
+     * @param builder The arguments shared by all the scans. The binaries, parallelism and model cache are set for each
+     * scan in a copy of the builder, the builder is not modified. The rules can't be profiled, the profile of a batch
+     * would mix the rules of all the deployments.
+     * @param parallelism The number of deployments scanned concurrently.
+     */
+    public BatchScanner(MavenRepoManager resolver, ScanArguments.Builder builder, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism " + parallelism + ", must be greater than 0");
+        }
+        this.resolver = resolver;
+        this.builder = builder;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param input A directory containing the deployments (archives or exploded archives), or a file listing a
+     * deployment path per line. Empty lines and lines starting with {@code #} are ignored, relative paths are resolved
+     * against the directory of the file.
+     * @return The deployments to scan.
+     */
+    public static List<Path> listDeployments(Path input) throws IOException {
+        List<Path> deployments = new ArrayList<>();
+        if (!Files.exists(input)) {
+            throw new IOException(input + " doesn't exist");
+        }
+        if (Files.isDirectory(input)) {
+            try (Stream<Path> stream = Files.list(input)) {
+                stream.filter(BatchScanner::isDeployment).sorted().forEach(deployments::add);
+            }
+        } else {
+            Path parent = input.toAbsolutePath().getParent();
+            for (String line : Files.readAllLines(input)) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    deployments.add(parent.resolve(line));
+                }
+            }
+        }
+        return deployments;
+    }
+
+    private static boolean isDeployment(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ENGLISH);
+        if (name.startsWith(".")) {
+            return false;
+        }
+        int index = name.lastIndexOf('.');
+        return index > 0 && DEPLOYMENT_SUFFIXES.contains(name.substring(index));
+    }
+
+    /**
+     * Scan the deployments and write the results to the output, one JSON document per line.
+     */
+    public Summary scan(List<Path> deployments, Writer output) throws Exception {
+        if (builder.build().isProfileRules()) {
+            throw new IllegalArgumentException("The rules can't be profiled when scanning a batch of deployments");
+        }
+        Summary summary = new Summary();
+        writeError = null;
+        // The layer models are built by the first scan of a set of feature-packs, the metadata are retrieved once.
+        ScanModelCache modelCache = new ScanModelCache();
+        ScanArguments.Builder scanBuilder = builder.copy().setModelCache(modelCache);
+        // The offline content is extracted in the working directory by each scan, scans can't run concurrently.
+        int threads = Files.exists(OFFLINE_ZIP) ? 1 : parallelism;
+        scanBuilder.setParallelism(threads > 1 ? 1 : parallelism);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Semaphore inFlight = new Semaphore(threads);
+        try {
+            for (Path deployment : deployments) {
+                ScanArguments arguments = scanBuilder.setBinaries(Collections.singletonList(deployment)).build();
+                inFlight.acquire();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            write(output, summary.add(scan(deployment, arguments)));
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RuntimeException ex) {
+                    inFlight.release();
+                    throw ex;
+                }
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            modelCache.close();
+        }
+        if (writeError != null) {
+            throw writeError;
+        }
+        ObjectNode line = mapper.createObjectNode();
+        line.set("summary", summary.toJson(mapper));
+        write(output, line);
+        return summary;
+    }
+
+    private ObjectNode scan(Path deployment, ScanArguments arguments) {
+        ObjectNode result = mapper.createObjectNode();
+        result.put("deployment", deployment.toString());
+        long start = System.currentTimeMillis();
+        try (ScanResults results = GlowSession.scan(resolver, arguments, QUIET)) {
+            ArrayNode layers = result.putArray("layers");
+            if (results.getBaseLayer() != null) {
+                layers.add(results.getBaseLayer().getName());
+            }
+            for (Layer layer : results.getDecorators()) {
+                layers.add(layer.getName());
+            }
+            ArrayNode errors = result.putArray("errors");
+            for (IdentifiedError error : results.getErrorSession().getErrors()) {
+                if (!error.isFixed()) {
+                    ObjectNode node = errors.addObject();
+                    node.put("id", error.getId());
+                    node.put("level", error.getErrorLevel().name());
+                    node.put("description", error.getDescription());
+                }
+            }
+            result.put("status", "ok");
+        } catch (Exception ex) {
+            result.put("status", "failed");
+            result.put("failure", ex.getMessage() == null ? ex.toString() : ex.getMessage());
+        }
+        result.put("time", System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private void write(Writer output, ObjectNode line) {
+        try {
+            String content = mapper.writeValueAsString(line);
+            synchronized (output) {
+                output.write(content);
+                output.write(System.lineSeparator());
+                output.flush();
+            }
+        } catch (IOException ex) {
+            synchronized (this) {
+                // Reported once all the scans are done.
+                if (writeError == null) {
+                    writeError = ex;
+                }
+            }
+        }
+    }
+
+    /**
+     * The aggregated results of the scans.
+     */
+    public static final class Summary {
+
+        private int deployments;
+        private int failed;
+        private final Map<String, Integer> layers = new TreeMap<>();
+        private final Map<String, Integer> errors = new TreeMap<>();
+
+        private synchronized ObjectNode add(ObjectNode result) {
+            deployments += 1;
+            if (!"ok".equals(result.get("status").asText())) {
+                failed += 1;
+                return result;
+            }
+            result.get("layers").forEach(layer -> layers.merge(layer.asText(), 1, Integer::sum));
+            result.get("errors").forEach(error -> errors.merge(error.get("id").asText(), 1, Integer::sum));
+            return result;
+        }
+
+        private synchronized ObjectNode toJson(ObjectMapper mapper) {
+            ObjectNode node = mapper.createObjectNode();
+            node.put("deployments", deployments);
+            node.put("failed", failed);
+            ObjectNode layersNode = node.putObject("layers");
+            layers.forEach(layersNode::put);
+            ObjectNode errorsNode = node.putObject("errors");
+            errors.forEach(errorsNode::put);
+            return node;
+        }
+
+        public synchronized int getDeployments() {
+            return deployments;
+        }
+
+        public synchronized int getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return The number of deployments that require each layer.
+         */
+        public synchronized Map<String, Integer> getLayers() {
+            return new TreeMap<>(layers);
+        }
+
+        /**
+         * @return The number of deployments reporting each error.
+         */
+        public synchronized Map<String, Integer> getErrors() {
+            return new TreeMap<>(errors);
+        }
+    }
+}
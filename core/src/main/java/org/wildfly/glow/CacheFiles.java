@@ -0,0 +1,150 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The file format shared by the on disk caches. An entry starts with a magic number and the format version of the
+ * cache, an entry with another format version is ignored. Entries are written to a temporary file that is then moved
+ * in place, a concurrent reader never sees a partially written entry.
+ */
+final class CacheFiles {
+
+    private static final int MAGIC = 0x474C4F57;
+
+    /**
+     * The content of an entry, after the header.
+     */
+    interface Content {
+
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private CacheFiles() {
+    }
+
+    static void writeHeader(DataOutputStream out, int formatVersion) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(formatVersion);
+    }
+
+    /**
+     * @return true if the entry has been written with this format version.
+     */
+    static boolean readHeader(DataInputStream in, int formatVersion) throws IOException {
+        return in.readInt() == MAGIC && in.readInt() == formatVersion;
+    }
+
+    /**
+     * Write an entry of the cache directory.
+     *
+     * @return false if the entry can't be written.
+     */
+    static boolean store(Path directory, String fileName, int formatVersion, Content content) {
+        try {
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, fileName, ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    writeHeader(out, formatVersion);
+                    content.write(out);
+                }
+                Path file = directory.resolve(fileName);
+                try {
+                    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            // The cache is an optimization, failing to write an entry is not an error.
+            return false;
+        }
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Delete the least recently used entries of a cache directory until its size is below the max size. The last
+     * modified time of an entry is its last access time.
+     */
+    static void evict(Path directory, String suffix, long maxSize) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> entries;
+        try (Stream<Path> stream = Files.list(directory)) {
+            entries = stream.filter(p -> p.getFileName().toString().endsWith(suffix)).collect(Collectors.toList());
+        } catch (IOException ex) {
+            return;
+        }
+        Map<Path, Long> sizes = new HashMap<>();
+        Map<Path, Long> accessTimes = new HashMap<>();
+        long total = 0;
+        for (Path entry : entries) {
+            try {
+                long size = Files.size(entry);
+                sizes.put(entry, size);
+                accessTimes.put(entry, Files.getLastModifiedTime(entry).toMillis());
+                total += size;
+            } catch (IOException ex) {
+                // Concurrently evicted
+            }
+        }
+        if (total <= maxSize) {
+            return;
+        }
+        List<Path> lru = new ArrayList<>(sizes.keySet());
+        lru.sort(Comparator.comparing(accessTimes::get));
+        for (Path entry : lru) {
+            if (total <= maxSize) {
+                break;
+            }
+            try {
+                Files.delete(entry);
+            } catch (NoSuchFileException ex) {
+                // Concurrently evicted
+            } catch (IOException ex) {
+                continue;
+            }
+            total -= sizes.get(entry);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import static org.objectweb.asm.Opcodes.ASM9;
+
+/**
+ * The facts extracted from a class file that are used by the layer rules and
+ * the error identification. The class file is parsed once, the constant pool
+ * is read directly from the {@link ClassReader} and a single visit collects
+ * the field and method descriptors, signatures, local variables and the
+ * {@code Context.lookup} call sites.
+ */
+final class ClassFacts {
+
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+
+    private final String className;
+    private final Set<String> referencedTypes;
+    private final Set<String> contextLookupTypes;
+    private final List<String> contextLookups;
+
+    ClassFacts(String className, Set<String> referencedTypes, Set<String> contextLookupTypes, List<String> contextLookups) {
+        this.className = className;
+        this.referencedTypes = referencedTypes;
+        this.contextLookupTypes = contextLookupTypes;
+        this.contextLookups = contextLookups;
+    }
+
+    /**
+     * @return The class name, '.' separated.
+     */
+    String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return The types referenced by the class, in discovery order.
+     */
+    Set<String> getReferencedTypes() {
+        return referencedTypes;
+    }
+
+    /**
+     * @return The Context types on which lookup is called.
+     */
+    Set<String> getContextLookupTypes() {
+        return contextLookupTypes;
+    }
+
+    /**
+     * @return The methods (class.method()) calling {@code javax.naming.Context} or
+     * {@code javax.naming.InitialContext} lookup, one entry per call site.
+     */
+    List<String> getContextLookups() {
+        return contextLookups;
+    }
+
+    /**
+     * @param file The class file, used to report a parsing error.
+     * @return The facts of the class. A class file that can't be parsed (eg: a
+     * class version not supported by ASM) is reported and has no referenced
+     * types.
+     */
+    static ClassFacts parse(Path file, byte[] content) {
+        try {
+            return parse(content);
+        } catch (RuntimeException e) {
+            String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            System.err.println("ERROR: Could not analyze " + file.getFileName() + ": " + message);
+            String className = readClassName(content);
+            if (className == null) {
+                String fileName = file.getFileName().toString();
+                className = fileName.endsWith(".class") ? fileName.substring(0, fileName.length() - 6) : fileName;
+            }
+            return new ClassFacts(className, Collections.emptySet(), Collections.emptySet(), Collections.emptyList());
+        }
+    }
+
+    static ClassFacts parse(byte[] content) {
+        ClassReader cr = new ClassReader(content);
+        char[] buffer = new char[cr.getMaxStringLength()];
+        Set<String> types = new LinkedHashSet<>();
+        for (int i = 1; i < cr.getItemCount(); i++) {
+            int offset = cr.getItem(i);
+            if (offset == 0) {
+                // Second slot of long and double entries
+                continue;
+            }
+            int tag = cr.readByte(offset - 1);
+            if (tag == CONSTANT_CLASS) {
+                types.add(cr.readUTF8(offset, buffer).replace('/', '.'));
+            } else if (tag == CONSTANT_FIELDREF) {
+                int nameAndType = cr.getItem(cr.readUnsignedShort(offset + 2));
+                types.add(formatClassName(cr.readUTF8(nameAndType + 2, buffer)));
+            }
+        }
+        FactsClassVisitor visitor = new FactsClassVisitor(types);
+        cr.accept(visitor, 0);
+        return new ClassFacts(cr.getClassName().replace('/', '.'), types, visitor.contextLookupTypes, visitor.contextLookups);
+    }
+
+    /**
+     * @return The class name read from the constant pool, whatever the class
+     * version, null if the constant pool contains unknown entries.
+     */
+    private static String readClassName(byte[] content) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(content))) {
+            if (in.readInt() != 0xCAFEBABE) {
+                return null;
+            }
+            // Minor and major versions
+            in.readInt();
+            int count = in.readUnsignedShort();
+            String[] utf8 = new String[count];
+            int[] classes = new int[count];
+            for (int i = 1; i < count; i++) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case 1:
+                        utf8[i] = in.readUTF();
+                        break;
+                    case CONSTANT_CLASS:
+                        classes[i] = in.readUnsignedShort();
+                        break;
+                    case 8: case 16: case 19: case 20:
+                        in.readUnsignedShort();
+                        break;
+                    case 15:
+                        in.readUnsignedByte();
+                        in.readUnsignedShort();
+                        break;
+                    case 3: case 4: case CONSTANT_FIELDREF: case 10: case 11: case 12: case 17: case 18:
+                        in.readInt();
+                        break;
+                    case 5: case 6:
+                        in.readLong();
+                        // Takes two slots
+                        i++;
+                        break;
+                    default:
+                        return null;
+                }
+            }
+            // Access flags
+            in.readUnsignedShort();
+            String name = utf8[classes[in.readUnsignedShort()]];
+            return name == null ? null : name.replace('/', '.');
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String trimArrayDimensionsFromDescriptor(String descriptor) {
+        //'[' at the start of the descriptor means it is an array. Trim those
+        for (int j = 0; j < descriptor.length(); j++) {
+            if (descriptor.charAt(j) != '[') {
+                if (j > 0) {
+                    descriptor = descriptor.substring(j);
+                }
+                break;
+            }
+        }
+
+        return descriptor;
+    }
+
+    static String formatClassName(String className) {
+        className = trimArrayDimensionsFromDescriptor(className);
+        if (className.startsWith("L")) {
+            // class descriptor L<class>;
+            className = className.substring(1, className.length() - 1);
+        }
+        className = className.replace('/', '.');
+        return className;
+    }
+
+    static Set<String> parseMethodDescriptor(String descriptor) {
+        Set<String> types = new LinkedHashSet<>();
+        StringBuilder builder = null;
+        for (char c : descriptor.toCharArray()) {
+            if (c == 'L') {
+                builder = new StringBuilder();
+                builder.append(c);
+            } else {
+                if (c == ';') {
+                    builder.append(c);
+                    types.add(formatClassName(builder.toString()));
+                    builder = null;
+                } else {
+                    if (builder != null) {
+                        builder.append(c);
+                    }
+                }
+            }
+        }
+        return types;
+    }
+
+    private static Set<String> extractTypeVariablesFromMethodSignature(String signature) {
+        if (signature == null) {
+            return Collections.emptySet();
+        }
+
+        String[] parts = signature.split("\\(|\\)", 0);
+        List<String> list = Arrays.stream(parts)
+                .map(v -> v.trim())
+                .filter(v -> v.length() > 0)
+                .map(v -> trimArrayDimensionsFromDescriptor(v))
+                .filter(v -> v.startsWith("L"))
+                .collect(Collectors.toList());
+
+        Set<String> types = new LinkedHashSet<>();
+        for (String current : list) {
+            types.addAll(extractClassesSignatureForMethod(current));
+        }
+        return types;
+    }
+
+    private static Set<String> extractClassesSignatureForField(String signature) {
+        if (signature == null) {
+            return Collections.emptySet();
+        }
+        String[] parts = signature.split("<|>|,");
+        return Arrays.stream(parts)
+                .map(v -> v.trim())
+                .filter(v -> v.length() > 0)
+                .map(v -> formatClassName(v))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private static Set<String> extractClassesSignatureForMethod(String signature) {
+        String[] parts = signature.split("<|>|,|;");
+        Set<String> types = new LinkedHashSet<>();
+        for (String part : parts) {
+            part = part.trim();
+            if (part.length() > 0) {
+                part = trimArrayDimensionsFromDescriptor(part);
+                if (part.startsWith("L")) {
+                    // The regexp got rid of this and it is expected for formatClassName()
+                    part = part + ";";
+                    types.add(formatClassName(part));
+                }
+            }
+        }
+        return types;
+    }
+
+    private static class FactsClassVisitor extends ClassVisitor {
+
+        private final Set<String> types;
+        private final List<String> contextLookups = new ArrayList<>();
+        private final Set<String> contextLookupTypes = new LinkedHashSet<>();
+        private String clazz;
+
+        FactsClassVisitor(Set<String> types) {
+            super(ASM9);
+            this.types = types;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            clazz = name;
+            super.visit(version, access, name, signature, superName, interfaces);
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            types.add(formatClassName(descriptor));
+            types.addAll(extractClassesSignatureForField(signature));
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            types.addAll(parseMethodDescriptor(descriptor));
+            types.addAll(extractTypeVariablesFromMethodSignature(signature));
+            return new FactsMethodVisitor(this, name);
+        }
+    }
+
+    private static class FactsMethodVisitor extends MethodVisitor {
+
+        private final FactsClassVisitor classVisitor;
+        private final String method;
+
+        FactsMethodVisitor(FactsClassVisitor classVisitor, String method) {
+            super(ASM9);
+            this.classVisitor = classVisitor;
+            this.method = method;
+        }
+
+        @Override
+        public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+            classVisitor.types.add(formatClassName(descriptor));
+            if (signature != null) {
+                classVisitor.types.addAll(extractClassesSignatureForMethod(signature));
+            }
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            if (!"lookup".equals(name)) {
+                return;
+            }
+            if ("javax/naming/Context".equals(owner) || "javax/naming/InitialContext".equals(owner)) {
+                classVisitor.contextLookupTypes.add(owner.replace('/', '.'));
+                classVisitor.contextLookups.add(classVisitor.clazz.replace('/', '.') + "." + method + "()");
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiled form of the {@code org.wildfly.rule.class} rules. Exact class names,
+ * package names and wildcard rules are merged in a single character trie that
+ * is walked once per looked-up class name.
+ *
+ * Precedence is the one of the original rules: exact class name, then package
+ * name, then wildcard rules. When multiple wildcard rules match, the one with
+ * the longest literal prefix wins.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+final class ClassNameMatcher {
+
+    /**
+     * A match, the layers and the rule (as it is reported in the layer matching rules) that matched.
+     */
+    static final class Match {
+
+        private final Set<Layer> layers;
+        private final String rule;
+
+        private Match(Set<Layer> layers, String rule) {
+            this.layers = layers;
+            this.rule = rule;
+        }
+
+        Set<Layer> getLayers() {
+            return layers;
+        }
+
+        String getRule() {
+            return rule;
+        }
+    }
+
+    private static final class WildcardRule {
+
+        private final String key;
+        private final Set<Layer> layers;
+        // The glob segments that follow the literal prefix. The prefix is consumed by the trie.
+        private final String[] segments;
+
+        private WildcardRule(String key, Set<Layer> layers, String[] segments) {
+            this.key = key;
+            this.layers = layers;
+            this.segments = segments;
+        }
+
+        private boolean matches(String name, int offset) {
+            int pos = offset;
+            int last = segments.length - 1;
+            for (int i = 0; i < last; i++) {
+                String segment = segments[i];
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                int index = name.indexOf(segment, pos);
+                if (index == -1) {
+                    return false;
+                }
+                pos = index + segment.length();
+            }
+            String end = segments[last];
+            return name.length() - end.length() >= pos && name.endsWith(end);
+        }
+    }
+
+    private static final class Node {
+
+        private final Map<Character, Node> children = new HashMap<>();
+        private Set<Layer> layers;
+        private String key;
+        private List<WildcardRule> wildcards;
+    }
+
+    private final Node root = new Node();
+
+    private ClassNameMatcher() {
+    }
+
+    /**
+     * Build a matcher from the constant pool class rules of a {@link LayerMapping}.
+     * Keys are expected in the form produced by {@link Utils#escapePattern(String)}.
+     */
+    static ClassNameMatcher build(Map<String, Set<Layer>> rules) {
+        ClassNameMatcher matcher = new ClassNameMatcher();
+        for (Map.Entry<String, Set<Layer>> entry : rules.entrySet()) {
+            String key = entry.getKey();
+            Set<Layer> layers = Collections.unmodifiableSet(entry.getValue());
+            if (Utils.isPattern(key)) {
+                String glob = unescapePattern(key);
+                int index = glob.indexOf('*');
+                Node node = matcher.insert(glob.substring(0, index));
+                // Segments after the first '*', the last one is the expected suffix.
+                String[] segments = glob.substring(index + 1).split("\\*", -1);
+                if (node.wildcards == null) {
+                    node.wildcards = new ArrayList<>();
+                }
+                node.wildcards.add(new WildcardRule(key, layers, segments));
+            } else {
+                Node node = matcher.insert(key);
+                node.layers = layers;
+                node.key = key;
+            }
+        }
+        return matcher;
+    }
+
+    private Node insert(String literal) {
+        Node node = root;
+        for (int i = 0; i < literal.length(); i++) {
+            node = node.children.computeIfAbsent(literal.charAt(i), value -> new Node());
+        }
+        return node;
+    }
+
+    /**
+     * @param className The fully qualified class name.
+     * @return The match or null if no rule applies to the class.
+     */
+    Match match(String className) {
+        return match(className, null);
+    }
+
+    /**
+     * @param className The fully qualified class name.
+     * @param profiler Records the evaluations of the wildcard rules and the hits of the class and package names,
+     * null to not profile.
+     * @return The match or null if no rule applies to the class.
+     */
+    Match match(String className, RuleProfiler profiler) {
+        int lastDot = className.lastIndexOf('.');
+        Node node = root;
+        Node packageNode = null;
+        WildcardRule wildcard = checkWildcards(node, className, 0, null, profiler);
+        for (int i = 0; i < className.length(); i++) {
+            if (i == lastDot) {
+                packageNode = node;
+            }
+            node = node.children.get(className.charAt(i));
+            if (node == null) {
+                break;
+            }
+            wildcard = checkWildcards(node, className, i + 1, wildcard, profiler);
+        }
+        if (node != null && node.layers != null) {
+            if (profiler != null) {
+                profiler.record(LayerMetadata.CLASS, className, node.layers, true, 0);
+            }
+            return new Match(node.layers, className);
+        }
+        if (packageNode != null && packageNode.layers != null) {
+            if (profiler != null) {
+                profiler.record(LayerMetadata.CLASS, packageNode.key + ".*", packageNode.layers, true, 0);
+            }
+            return new Match(packageNode.layers, packageNode.key + ".*");
+        }
+        if (wildcard != null) {
+            return new Match(wildcard.layers, wildcard.key);
+        }
+        return null;
+    }
+
+    private static WildcardRule checkWildcards(Node node, String className, int offset, WildcardRule current, RuleProfiler profiler) {
+        if (node.wildcards != null) {
+            for (WildcardRule rule : node.wildcards) {
+                if (profiler == null) {
+                    if (rule.matches(className, offset)) {
+                        return rule;
+                    }
+                } else {
+                    long start = System.nanoTime();
+                    boolean matches = rule.matches(className, offset);
+                    profiler.record(LayerMetadata.CLASS, rule.key, rule.layers, matches, System.nanoTime() - start);
+                    if (matches) {
+                        return rule;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    // Reverse of Utils.escapePattern, '\.' becomes '.' and '.*' becomes '*'
+    private static String unescapePattern(String s) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length() && s.charAt(i + 1) == '.') {
+                builder.append('.');
+                i += 1;
+            } else if (c == '.' && i + 1 < s.length() && s.charAt(i + 1) == '*') {
+                builder.append('*');
+                i += 1;
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -51,6 +51,24 @@ public class DeploymentFileRuleInspector {
         return ParsedRule.extract(archiveFileRegistry, rootPath, prop);
     }
 
+    /**
+     * @return The files and directories of the deployment keyed by their path relative to the root, '/' separated.
+     */
+    Map<String, Path> getFiles() {
+        Map<String, Path> files = new HashMap<>();
+        String root = toUnixFilePath(rootPath.toString());
+        if (!root.endsWith("/")) {
+            root += "/";
+        }
+        for (Map.Entry<String, Path> entry : archiveFileRegistry.allFilePaths.entrySet()) {
+            String path = entry.getKey();
+            if (path.startsWith(root)) {
+                files.put(path.substring(root.length()), entry.getValue());
+            }
+        }
+        return files;
+    }
+
     // This is the separator chosen in WildFly Glow rules
     private static String toUnixFilePath(String path) {
         // Windows path handling
@@ -199,29 +217,33 @@ public class DeploymentFileRuleInspector {
         }
 
         private static ParsedRule extract(ArchiveFileRegistry registry, Path rootPath, String prop) {
-            final List<PatternOrValue> fileParts;
-            List<PatternOrValue> valueParts;
+            String[] parts = split(prop);
+            final List<PatternOrValue> fileParts = patternOrValueListFromArray(parts[0].split(","), p -> PatternOrValue.createForFile(rootPath, p));
+            List<PatternOrValue> valueParts = patternOrValueListFromArray(Arrays.copyOfRange(parts, 1, parts.length), v -> PatternOrValue.createForValue(v));
+            List<Path> matchedPaths = registry.getArchivePaths(fileParts);
+            return new ParsedRule(fileParts, valueParts, matchedPaths);
+        }
+
+        /**
+         * Split a rule value.
+         *
+         * @return The files part (',' separated files) followed by the values.
+         */
+        static String[] split(String prop) {
             if (prop.startsWith("[")) {
                 int index = prop.indexOf("]");
                 if (index == -1) {
                     throw new IllegalStateException("Expected a closing ']' in " + prop);
                 }
                 String filesPart = prop.substring(1, index);
-                fileParts = patternOrValueListFromArray(filesPart.split(","), p -> PatternOrValue.createForFile(rootPath, p));
                 index = prop.indexOf(',', index + 1);
-                if (index == -1) {
-                    valueParts = Collections.emptyList();
-                } else {
-                    String values = prop.substring(index + 1);
-                    valueParts = patternOrValueListFromArray(values.split(","), v -> PatternOrValue.createForValue(v));
-                }
-            } else {
-                String[] split = prop.split(",");
-                fileParts = patternOrValueListFromArray(new String[]{split[0]}, p -> PatternOrValue.createForFile(rootPath, p));
-                valueParts = patternOrValueListFromArray(Arrays.copyOfRange(split, 1, split.length), v -> PatternOrValue.createForValue(v));
+                String[] values = index == -1 ? new String[0] : prop.substring(index + 1).split(",");
+                String[] parts = new String[values.length + 1];
+                parts[0] = filesPart;
+                System.arraycopy(values, 0, parts, 1, values.length);
+                return parts;
             }
-            List<Path> matchedPaths = registry.getArchivePaths(fileParts);
-            return new ParsedRule(fileParts, valueParts, matchedPaths);
+            return prop.split(",");
         }
 
         private static List<PatternOrValue> patternOrValueListFromArray(String[] arr, Function<String, PatternOrValue> factory) {
@@ -16,45 +16,33 @@
  */
 package org.wildfly.glow;
 
-import aQute.bnd.classfile.Attribute;
-import aQute.bnd.classfile.ClassFile;
-import aQute.bnd.classfile.CodeAttribute;
-import aQute.bnd.classfile.ConstantPool;
-import aQute.bnd.classfile.FieldInfo;
-import aQute.bnd.classfile.LocalVariableTableAttribute;
-import aQute.bnd.classfile.LocalVariableTypeTableAttribute;
-import aQute.bnd.classfile.SignatureAttribute;
-import aQute.lib.io.ByteBufferDataInput;
 import org.jboss.galleon.util.IoUtils;
 import org.jboss.galleon.util.ZipUtils;
 import org.jboss.jandex.AnnotationInstance;
 import org.jboss.jandex.AnnotationTarget;
 import org.jboss.jandex.AnnotationValue;
 import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.CompositeIndex;
 import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexView;
 import org.jboss.jandex.Indexer;
-import org.jboss.jandex.JarIndexer;
 import org.jboss.jandex.MethodInfo;
-import org.objectweb.asm.ClassReader;
-import org.objectweb.asm.ClassVisitor;
-import org.objectweb.asm.MethodVisitor;
-import org.wildfly.glow.DeploymentFileRuleInspector.ParsedRule;
 import org.wildfly.glow.DeploymentFileRuleInspector.PatternOrValue;
 import org.wildfly.glow.error.ErrorIdentificationSession;
 
-import java.io.DataInput;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -65,33 +53,90 @@ import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.function.Consumer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
-import static org.objectweb.asm.Opcodes.ASM9;
 import org.wildfly.glow.error.ErrorLevel;
 import org.wildfly.glow.error.IdentifiedError;
 
 public class DeploymentScanner implements AutoCloseable {
 
+    /**
+     * Nested archives up to this size (in bytes) are scanned in memory, bigger ones are extracted to a temporary file.
+     */
+    public static final String NESTED_ARCHIVE_MAX_IN_MEMORY_SIZE_PROPERTY = "org.wildfly.glow.nested.archive.max.in.memory.size";
+    /**
+     * Set to true, the unchanged class files of the directories scanned again are not analyzed again.
+     */
+    public static final String INCREMENTAL_SCAN_PROPERTY = DirectoryFactsCache.INCREMENTAL_SCAN_PROPERTY;
+    private static final long DEFAULT_NESTED_ARCHIVE_MAX_IN_MEMORY_SIZE = 64 * 1024 * 1024;
+    // Before JDK 12 the zip file system can't be opened on a nested zip entry.
+    private static final boolean NESTED_ZIP_FILE_SYSTEM = Runtime.version().feature() >= 12;
+    private static final int MIN_CLASSES_PER_TASK = 64;
+
     private final Path binary;
-    private final Path tempDirectory;
+    private Path tempDirectory;
+    private final long nestedArchiveMaxInMemorySize;
+    private final boolean extracted;
     private boolean verbose;
     private final Set<Pattern> excludeArchivesFromScan;
     private ArchiveType archiveType;
     private DeploymentScanner parent;
     private final boolean isArchive;
+    private final int parallelism;
+    private final ExecutorService executor;
+    private final ScanFactsCache cache;
+    private final DirectoryFactsCache directoryCache;
+    private final ScanMetrics metrics;
+    private final RuleProfiler profiler;
 
     public DeploymentScanner(Path binary, boolean verbose, Set<Pattern> excludeArchivesFromScan) throws IOException {
-        this(null, binary, verbose, excludeArchivesFromScan);
+        this(binary, verbose, excludeArchivesFromScan, 1);
+    }
+
+    /**
+     * @param parallelism The number of threads used to analyze the class files, 1 to scan
+     * sequentially. The scan result doesn't depend on the parallelism.
+     */
+    public DeploymentScanner(Path binary, boolean verbose, Set<Pattern> excludeArchivesFromScan, int parallelism) throws IOException {
+        this(binary, verbose, excludeArchivesFromScan, parallelism, new ScanMetrics(), null);
     }
 
-    private DeploymentScanner(DeploymentScanner parent, Path binary, boolean verbose, Set<Pattern> excludeArchivesFromScan) throws IOException {
+    /**
+     * @param metrics Updated with the classes, archives, rules and cache hits of the scan.
+     * @param profiler Records the evaluations of the rules, null to not profile the rules.
+     */
+    DeploymentScanner(Path binary, boolean verbose, Set<Pattern> excludeArchivesFromScan, int parallelism, ScanMetrics metrics,
+            RuleProfiler profiler) throws IOException {
+        this(null, binary, verbose, excludeArchivesFromScan, parallelism, metrics, profiler);
+    }
+
+    private DeploymentScanner(DeploymentScanner parent, Path binary, boolean verbose, Set<Pattern> excludeArchivesFromScan, int parallelism,
+            ScanMetrics metrics, RuleProfiler profiler) throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism " + parallelism);
+        }
         this.parent = parent;
-        this.tempDirectory = parent == null ? Files.createTempDirectory("glow") : parent.tempDirectory;
         this.verbose = verbose;
         this.excludeArchivesFromScan = excludeArchivesFromScan;
+        this.parallelism = parallelism;
+        this.metrics = metrics;
+        this.profiler = profiler;
+        if (parent == null) {
+            this.executor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism, DeploymentScanner::newWorkerThread) : null;
+            String maxSize = new HiddenPropertiesAccessor().getProperty(NESTED_ARCHIVE_MAX_IN_MEMORY_SIZE_PROPERTY);
+            this.nestedArchiveMaxInMemorySize = maxSize == null ? DEFAULT_NESTED_ARCHIVE_MAX_IN_MEMORY_SIZE : Long.parseLong(maxSize);
+            this.cache = ScanFactsCache.newInstance();
+            this.directoryCache = DirectoryFactsCache.newInstance();
+        } else {
+            this.executor = parent.executor;
+            this.nestedArchiveMaxInMemorySize = parent.nestedArchiveMaxInMemorySize;
+            this.cache = parent.cache;
+            this.directoryCache = parent.directoryCache;
+        }
 
         if (!Files.exists(binary)) {
             throw new IllegalArgumentException(binary.normalize().toAbsolutePath() + " is not an archive");
@@ -100,56 +145,120 @@ public class DeploymentScanner implements AutoCloseable {
         FileNameParts fileNameParts = FileNameParts.parse(binary);
         this.archiveType = fileNameParts.archiveType;
 
-        if (parent == null) {
-            this.binary = binary;
+        if (parent != null && isArchive && (!NESTED_ZIP_FILE_SYSTEM || Files.size(binary) > nestedArchiveMaxInMemorySize)) {
+            // We need to copy the nested archive out of the containing archive
+            // The binary argument comes from the Jar filesystem, while the tempDirectory is in the default filesystem
+            this.binary = Files.createTempFile(getTempDirectory(), fileNameParts.coreName, fileNameParts.archiveType.suffix);
+            Files.delete(this.binary);
+            Files.copy(binary, this.binary);
+            this.extracted = true;
         } else {
-            if (isArchive) {
-                // We need to copy the nested archive out of the containing archive
-                // The binary argument comes from the Jar filesystem, while the tempDirectory is in the default filesystem
-                this.binary = Files.createTempFile(tempDirectory, fileNameParts.coreName, fileNameParts.archiveType.suffix);
-                Files.delete(this.binary);
-                Files.copy(binary, this.binary);
-            } else {
-                this.binary = binary;
-            }
+            // A nested archive is opened in place, the zip file system reads its content in memory.
+            this.binary = binary;
+            this.extracted = false;
         }
     }
 
+    private Path getTempDirectory() throws IOException {
+        if (parent != null) {
+            return parent.getTempDirectory();
+        }
+        if (tempDirectory == null) {
+            tempDirectory = Files.createTempDirectory("glow");
+        }
+        return tempDirectory;
+    }
+
     @Override
     public void close() {
-        if (parent != null && binary != null) {
+        if (extracted) {
             try {
-                if (isArchive) {
-                    Files.delete(binary);
-                }
+                Files.delete(binary);
             } catch (IOException ignore) {
             }
         }
         if(parent == null) {
-            IoUtils.recursiveDelete(tempDirectory);
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            if (cache != null) {
+                cache.evict();
+            }
+            if (directoryCache != null) {
+                directoryCache.evict();
+            }
+            if (tempDirectory != null) {
+                IoUtils.recursiveDelete(tempDirectory);
+            }
+        }
+    }
+
+    private FileSystem openArchive() throws IOException {
+        if (binary.getFileSystem() == FileSystems.getDefault()) {
+            return ZipUtils.newFileSystem(binary);
         }
+        return FileSystems.newFileSystem(binary, (ClassLoader) null);
+    }
+
+    private static Thread newWorkerThread(Runnable r) {
+        Thread thread = new Thread(r, "glow-deployment-scanner");
+        thread.setDaemon(true);
+        return thread;
     }
 
-    public void scan(LayerMapping mapping, Set<Layer> layers, Map<String, Layer> all, ErrorIdentificationSession errorSession) throws Exception {
-        Set<Layer> discoveredLayers = new LinkedHashSet<>();
-        DeploymentScanContext ctx = new DeploymentScanContext(mapping, discoveredLayers, all, errorSession);
+    public void scan(LayerMapping mapping, Set<Layer> layers, Map<String, Layer> all, ScanEvidence evidence, ErrorIdentificationSession errorSession) throws Exception {
+        apply(collect(mapping, all), layers, evidence, errorSession);
+    }
+
+    /**
+     * Scan the deployment. The layers, the evidence and the error session are not modified, what has been discovered
+     * is recorded in the returned context. Multiple deployments can be collected concurrently.
+     */
+    DeploymentScanContext collect(LayerMapping mapping, Map<String, Layer> all) throws Exception {
+        DeploymentScanContext ctx = new DeploymentScanContext(mapping, new LinkedHashSet<>(), all, new ScanEvidence(mapping), new ErrorIdentificationSession());
         scan(ctx);
-        for (Layer l : discoveredLayers) {
-            if (!l.isBanned()) {
+        return ctx;
+    }
+
+    /**
+     * Apply what has been discovered during the scan to the layers, the evidence and the error session.
+     */
+    void apply(DeploymentScanContext ctx, Set<Layer> layers, ScanEvidence evidence, ErrorIdentificationSession errorSession) {
+        evidence.merge(ctx.evidence);
+        errorSession.merge(ctx.errorSession);
+        for (Layer l : ctx.layers) {
+            if (!evidence.isBanned(l)) {
                 layers.add(l);
             }
         }
 
-        errorSession.collectEndOfScanErrors(verbose, ctx.resourceInjectionJndiInfos, ctx.contextLookupInfos, ctx.dataSourceDefinitionInfos, ctx.allClasses);
+        errorSession.collectEndOfScanErrors(verbose, ctx.resourceInjectionJndiInfos, ctx.contextLookupInfos, ctx.dataSourceDefinitionInfos, ctx.allClasses, evidence);
     }
 
     private void scan(DeploymentScanContext ctx) throws Exception {
-        scanAnnotations(ctx);
-        FileSystem fs = isArchive ? ZipUtils.newFileSystem(binary) : binary.getFileSystem();
+        FileSystem fs = isArchive ? openArchive() : binary.getFileSystem();
+        if (isArchive) {
+            metrics.increment(ScanMetrics.Counter.ARCHIVES_OPENED);
+        }
         try {
-        Path rootPath = isArchive ? fs.getPath("/") : binary;
-        scanTypesAndChildren(rootPath, ctx);
-        ctx.layers.addAll(inspectDeployment(rootPath, ctx));
+            Path rootPath = isArchive ? fs.getPath("/") : binary;
+            List<Path> classes = new ArrayList<>();
+            List<Path> entries = new ArrayList<>();
+            collectTypesAndChildren(rootPath, classes, entries);
+            // Each class file is read and parsed once. The Jandex index is fed with the class content
+            // and the facts used by the class rules are extracted at the same time.
+            ClassAnalysis analysis = analyzeClasses(rootPath, classes, archiveType != ArchiveType.EAR);
+            scanAnnotations(analysis.getIndex(), ctx);
+            // Classes and nested archives are handled in the order they have been discovered
+            for (Path entry : entries) {
+                ClassFacts facts = analysis.getFacts().get(rootPath.relativize(entry).toString());
+                if (facts == null) {
+                    scanWithNestedScanner(entry, ctx);
+                } else {
+                    scanClass(facts, ctx);
+                }
+            }
+            ctx.layers.addAll(inspectDeployment(rootPath, ctx));
         } finally {
             if (isArchive) {
                 fs.close();
@@ -157,99 +266,78 @@ public class DeploymentScanner implements AutoCloseable {
         }
     }
 
-    private void scanAnnotations(DeploymentScanContext ctx) throws IOException {
-        Indexer indexer = new Indexer();
-        Index index = isArchive ? JarIndexer.createJarIndex(binary.toFile(),
-                indexer, false, true, false).getIndex()
-                : DirectoryIndexer.indexDirectory(binary.toFile(), indexer);
-        for (ClassInfo ci : index.getKnownClasses()) {
-            //System.out.println(ci.name());
+    private void scanAnnotations(IndexView index, DeploymentScanContext ctx) throws IOException {
+        AnnotationRules rules = ctx.mapping.getAnnotationRules();
+        // Classes are sorted so the discovery order doesn't depend on how the index has been built.
+        List<ClassInfo> knownClasses = new ArrayList<>(index.getKnownClasses());
+        knownClasses.sort(Comparator.comparing(ClassInfo::name));
+        for (ClassInfo ci : knownClasses) {
+            metrics.add(ScanMetrics.Counter.RULE_EVALUATIONS, ci.annotations().size());
             for (AnnotationInstance ai : ci.annotations()) {
                 handleResourceInjectionAnnotations(ai, ctx);
-
-                //System.out.println("   " + ai.name().packagePrefix());
-                Set<Layer> l = ctx.mapping.getAnnotations().get(ai.name().toString());
-                if (l != null) {
-                    ctx.layers.addAll(l);
-                    LayerMapping.addRule(LayerMapping.RULE.ANNOTATION,l, ai.name().toString());
-                    //System.out.println("Find an annotation " + ai.name().toString() + " layer being " + l);
-                } else {
-                    l = ctx.mapping.getAnnotations().get(ai.name().packagePrefix());
-                    if (l != null) {
-                        ctx.layers.addAll(l);
-                        //System.out.println("Find an annotation " + ai.name().packagePrefix() + " layer being " + l);
-                        LayerMapping.addRule(LayerMapping.RULE.ANNOTATION, l, ai.name().packagePrefix() + ".*");
-                    } else {
-                        // Pattern?
-                        for (String s : ctx.mapping.getAnnotations().keySet()) {
-                            if (Utils.isPattern(s)) {
-                                Pattern p = Pattern.compile(s);
-                                if (p.matcher(ai.name().toString()).matches()) {
-                                    Set<Layer> layers = ctx.mapping.getAnnotations().get(s);
-                                    if  (layers != null) {
-                                        LayerMapping.addRule(LayerMapping.RULE.ANNOTATION, layers, s);
-                                        ctx.layers.addAll(layers);
-                                    }
-                                }
-                            }
-                        }
+                AnnotationRules.AnnotationRule rule = rules.get(ai.name());
+                for (AnnotationRules.NameMatch nameMatch : rule.getNameMatches()) {
+                    if (profiler != null) {
+                        profiler.record(LayerMetadata.ANNOTATIONS, nameMatch.getRule(), nameMatch.getLayers(), true, 0);
                     }
-                    Map<String, List<AnnotationFieldValue>> fields = ctx.mapping.getAnnotationFieldValues().get(ai.name().toString());
-                    if (fields != null) {
-                        Layer foundLayer = null;
-                        for(Entry<String, List<AnnotationFieldValue>> f : fields.entrySet()) {
-                            String val = getAnnotationValue(ai, f.getKey());
-                            if (val != null) {
-                                List<AnnotationFieldValue> lstFields = f.getValue();
-                                for (AnnotationFieldValue fv : lstFields) {
-                                    if (Utils.isPattern(fv.getFieldValue())) {
-                                        Pattern p = Pattern.compile(fv.getFieldValue());
-                                        if (p.matcher(val).matches()) {
-                                            foundLayer = fv.getLayer();
-                                            LayerMapping.addRule(LayerMapping.RULE.ANNOTATION_VALUE, foundLayer, ai.name().toString() + "_" + f.getKey() + "=" + fv.getFieldValue());
-                                            ctx.layers.add(fv.getLayer());
-                                        }
-                                    } else {
-                                        if (val.equals(fv.getFieldValue())) {
-                                            foundLayer = fv.getLayer();
-                                            LayerMapping.addRule(LayerMapping.RULE.ANNOTATION_VALUE, foundLayer, ai.name().toString() + "_" + f.getKey() + "=" + fv.getFieldValue());
-                                            ctx.layers.add(fv.getLayer());
-                                        }
-                                    }
+                    ctx.layers.addAll(nameMatch.getLayers());
+                    ctx.evidence.addRule(LayerMapping.RULE.ANNOTATION, nameMatch.getLayers(), nameMatch.getRule());
+                }
+                if (rule.isExactMatch()) {
+                    continue;
+                }
+                Map<String, List<AnnotationRules.FieldValueRule>> fields = rule.getFieldValues();
+                if (fields != null) {
+                    Layer foundLayer = null;
+                    for (Entry<String, List<AnnotationRules.FieldValueRule>> f : fields.entrySet()) {
+                        String val = getAnnotationValue(ai, f.getKey());
+                        if (val != null) {
+                            for (AnnotationRules.FieldValueRule fv : f.getValue()) {
+                                long start = profiler == null ? 0 : System.nanoTime();
+                                boolean matches = fv.getValue().matches(val);
+                                if (profiler != null) {
+                                    profiler.record(LayerMetadata.ANNOTATION_FIELD_VALUE, ai.name().toString() + "_" + f.getKey() + "=" + fv.getValue().getValue(),
+                                            fv.getLayer(), matches, System.nanoTime() - start);
+                                }
+                                if (matches) {
+                                    foundLayer = fv.getLayer();
+                                    ctx.evidence.addRule(LayerMapping.RULE.ANNOTATION_VALUE, foundLayer, ai.name().toString() + "_" + f.getKey() + "=" + fv.getValue().getValue());
+                                    ctx.layers.add(fv.getLayer());
                                 }
                             }
                         }
-                        // DataSourceDefinition are only added based on layers discovered in the above nested loop.
-                        handleDataSourceDefinitionAnnotations(ai, ctx, foundLayer);
                     }
-                    if (ai.target().kind() == AnnotationTarget.Kind.FIELD) {
-                        Map<String, List<AnnotatedType>> annotatedTypes = ctx.mapping.getAnnotatedTypes().get(ai.name().toString());
-                        if (annotatedTypes != null) {
-                            String type = ai.target().asField().type().toString();
-                            List<AnnotatedType> annotations = annotatedTypes.get(type);
-                            if (annotations != null) {
-                                for (AnnotatedType at : annotations) {
-                                    if (at.getFields().isEmpty()) {
-                                        LayerMapping.addRule(LayerMapping.RULE.ANNOTATED_TYPE, at.getLayer(), "@" + ai.name().toString() + "\n" + at.getType());
-                                        ctx.layers.add(at.getLayer());
-                                    } else {
-                                        for (Entry<String, String> entry : at.getFields().entrySet()) {
-                                            String val = getAnnotationValue(ai, entry.getKey());
-                                            if (val != null) {
-                                                if (Utils.isPattern(entry.getValue())) {
-                                                    Pattern p = Pattern.compile(entry.getValue());
-                                                    if (p.matcher(val).matches()) {
-                                                        LayerMapping.addRule(LayerMapping.RULE.ANNOTATED_TYPE, at.getLayer(), "@" + ai.name().toString() + "_" + entry.getKey() + "=" + entry.getValue());
-                                                        ctx.layers.add(at.getLayer());
-                                                    }
-                                                } else {
-                                                    if (val.equals(entry.getValue())) {
-                                                        LayerMapping.addRule(LayerMapping.RULE.ANNOTATED_TYPE, at.getLayer(), "@" + ai.name().toString() + entry.getKey() + "=" + entry.getValue() + "\n" + at.getType());
-                                                        ctx.layers.add(at.getLayer());
-                                                    }
-                                                }
-                                            }
+                    // DataSourceDefinition are only added based on layers discovered in the above nested loop.
+                    handleDataSourceDefinitionAnnotations(ai, ctx, foundLayer);
+                }
+                if (rule.getAnnotatedTypes() != null && ai.target().kind() == AnnotationTarget.Kind.FIELD) {
+                    String type = ai.target().asField().type().toString();
+                    List<AnnotationRules.AnnotatedTypeRule> annotations = rule.getAnnotatedTypes().get(type);
+                    if (annotations != null) {
+                        for (AnnotationRules.AnnotatedTypeRule atRule : annotations) {
+                            AnnotatedType at = atRule.getAnnotatedType();
+                            if (atRule.getFields().isEmpty()) {
+                                if (profiler != null) {
+                                    profiler.record(LayerMetadata.ANNOTATED_TYPE, "@" + ai.name().toString() + " " + at.getType(), at.getLayer(), true, 0);
+                                }
+                                ctx.evidence.addRule(LayerMapping.RULE.ANNOTATED_TYPE, at.getLayer(), "@" + ai.name().toString() + "\n" + at.getType());
+                                ctx.layers.add(at.getLayer());
+                            } else {
+                                for (Entry<String, AnnotationRules.ValueMatcher> entry : atRule.getFields().entrySet()) {
+                                    String val = getAnnotationValue(ai, entry.getKey());
+                                    long start = profiler == null ? 0 : System.nanoTime();
+                                    boolean matches = val != null && entry.getValue().matches(val);
+                                    if (profiler != null) {
+                                        profiler.record(LayerMetadata.ANNOTATED_TYPE, "@" + ai.name().toString() + "_" + entry.getKey() + "=" + entry.getValue().getValue() + " " + at.getType(),
+                                                at.getLayer(), matches, System.nanoTime() - start);
+                                    }
+                                    if (matches) {
+                                        if (entry.getValue().isPattern()) {
+                                            ctx.evidence.addRule(LayerMapping.RULE.ANNOTATED_TYPE, at.getLayer(), "@" + ai.name().toString() + "_" + entry.getKey() + "=" + entry.getValue().getValue());
+                                        } else {
+                                            ctx.evidence.addRule(LayerMapping.RULE.ANNOTATED_TYPE, at.getLayer(), "@" + ai.name().toString() + entry.getKey() + "=" + entry.getValue().getValue() + "\n" + at.getType());
                                         }
+                                        ctx.layers.add(at.getLayer());
                                     }
                                 }
                             }
@@ -258,14 +346,6 @@ public class DeploymentScanner implements AutoCloseable {
                 }
             }
         }
-        int i = binary.toFile().getName().lastIndexOf(".");
-        String ext = binary.toFile().getName().substring(i + 1);
-        String name = binary.toFile().getName().substring(0, i) + "-jandex";
-        Path parent = binary.getParent();
-        Path jd = parent == null ? Paths.get(name + "." + ext) : parent.resolve(name + "." + ext);
-        if (Files.exists(jd)) {
-            Files.delete(jd);
-        }
     }
 
     private void handleResourceInjectionAnnotations(AnnotationInstance annotationInstance, DeploymentScanContext ctx) {
@@ -359,7 +439,7 @@ public class DeploymentScanner implements AutoCloseable {
         return value.asString();
     }
 
-    private void scanTypesAndChildren(Path archiveContentRoot, DeploymentScanContext ctx) throws Exception {
+    private void collectTypesAndChildren(Path archiveContentRoot, List<Path> classes, List<Path> entries) throws Exception {
         Files.walkFileTree(archiveContentRoot, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
                 new NestedWarOrExplodedArchiveFileVisitor(archiveContentRoot, isArchive) {
             @Override
@@ -367,13 +447,14 @@ public class DeploymentScanner implements AutoCloseable {
                     throws IOException {
                 String fileName = file.getFileName().toString();
                 if (fileName.endsWith(".class")) {
+                    classes.add(file);
                     if (archiveType != ArchiveType.EAR) {
-                        scanClass(file, ctx);
+                        entries.add(file);
                     }
                 } else if (ArchiveType.isArchiveName(file)) {
                     Path relativeFile = archiveContentRoot.relativize(file);
                     if (archiveType.isValidArchiveLocation(relativeFile)) {
-                        scanWithNestedScanner(file, ctx);
+                        entries.add(file);
                     }
                 }
                 return FileVisitResult.CONTINUE;
@@ -387,246 +468,233 @@ public class DeploymentScanner implements AutoCloseable {
                 }
                 Path relativeFile = archiveContentRoot.relativize(dir);
                 if (archiveType.isValidArchiveLocation(relativeFile)) {
-                    scanWithNestedScanner(dir, ctx);
+                    entries.add(dir);
                 }
                 return result;
             }
         });
     }
 
-    private void scanWithNestedScanner(Path file, DeploymentScanContext ctx) throws IOException {
-        // Check it is not an excluded archive
-        for (Pattern exclude : excludeArchivesFromScan) {
-            if (exclude.matcher(file.getFileName().toString()).matches()) {
-                return;
-            }
-        }
-
-        try (DeploymentScanner nestedScanner = new DeploymentScanner(DeploymentScanner.this, file, verbose, excludeArchivesFromScan)) {
-            try {
-                nestedScanner.scan(ctx);
-            } catch (RuntimeException | IOException e) {
-                throw e;
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        }
-    }
-
-    private void scanClass(Path file, DeploymentScanContext ctx) throws IOException {
-        byte[] content = Files.readAllBytes(file);
-        DataInput in = ByteBufferDataInput.wrap(content);
-        ClassFile clazz = ClassFile.parseClassFile(in);
-        ctx.allClasses.add(clazz.this_class.replaceAll("/", "."));
-        for (int i = 0; i < clazz.constant_pool.size(); i++) {
-            Object obj = clazz.constant_pool.entry(i);
-            if (obj instanceof ConstantPool.ClassInfo) {
-                ConstantPool.ClassInfo ci = (ConstantPool.ClassInfo) obj;
-                String className = (String) clazz.constant_pool.entry(ci.class_index);
-                //System.out.println(className);
-                className = className.replaceAll("/", ".");
-                lookup(className, ctx);
-            } else {
-                if (obj instanceof ConstantPool.FieldrefInfo) {
-                    ConstantPool.FieldrefInfo info = (ConstantPool.FieldrefInfo) obj;
-                    ConstantPool.NameAndTypeInfo ntinfo = (ConstantPool.NameAndTypeInfo) clazz.constant_pool.entry(info.name_and_type_index);
-                    String className = formatClassName((String) clazz.constant_pool.entry(ntinfo.descriptor_index));
-                    //System.out.println("CLASSNAME " + className);
-                    lookup(className, ctx);
-                }
-            }
+    private ClassAnalysis analyzeClasses(Path rootPath, List<Path> classes, boolean withFacts) throws IOException {
+        // Exploded deployments are scanned again and again during development, only their changed classes are analyzed.
+        if (directoryCache != null && !isArchive && withFacts) {
+            return analyzeDirectoryClasses(rootPath, classes);
         }
-        for (int i = 0; i < clazz.fields.length; i++) {
-            FieldInfo fi = clazz.fields[i];
-            String descriptor = formatClassName(fi.descriptor);
-            lookup(descriptor, ctx);
-            for (String type : extractClassesFromFieldSignatureAttribute(fi)) {
-                lookup(type, ctx);
+        // Nested libraries are often shared by deployments, their analysis is cached by content.
+        String key = null;
+        if (cache != null && parent != null && isArchive && withFacts) {
+            key = cache.key(binary);
+            ClassAnalysis analysis = cache.load(key);
+            if (analysis != null) {
+                metrics.increment(ScanMetrics.Counter.CACHE_HITS);
+                return analysis;
             }
+            metrics.increment(ScanMetrics.Counter.CACHE_MISSES);
         }
-        for (int i = 0; i < clazz.methods.length; i++) {
-            aQute.bnd.classfile.MethodInfo mi = clazz.methods[i];
-            //System.out.println("Method descriptor " + mi.descriptor);
-            for (String type : parseMethodDescriptor(mi.descriptor)) {
-                lookup(type, ctx);
-            }
-            for (String type : extractTypeVariablesFromMethodSignatureAttribute(mi)) {
-                lookup(type, ctx);
-            }
-            for (String type : parseLocalVariableAndLocalVariableTypeTables(mi)) {
-                lookup(type, ctx);
-            }
-            for (String type : parseLocalVariableTypeTable(mi)) {
-                lookup(type, ctx);
-            }
+        ClassAnalysis analysis = analyzeClassFiles(rootPath, classes, withFacts);
+        if (key != null) {
+            cache.store(key, analysis);
         }
-        lookForContextLookups(content, ctx);
+        return analysis;
     }
 
-    private String trimArrayDimensionsFromDescriptor(String descriptor) {
-        //'[' at the start of the descriptor means it is an array. Trim those
-        for (int j = 0; j < descriptor.length(); j++) {
-            if (descriptor.charAt(j) != '[') {
-                if (j > 0) {
-                    descriptor = descriptor.substring(j);
-                }
-                break;
-            }
+    private ClassAnalysis analyzeClassFiles(Path rootPath, List<Path> classes, boolean withFacts) throws IOException {
+        List<ClassAnalysis> analyses = analyzeInChunks(classes.size(),
+                (from, to) -> analyzeClasses(rootPath, classes, from, to, withFacts, metrics));
+        if (analyses.size() == 1) {
+            return analyses.get(0);
         }
-
-        return descriptor;
-    }
-
-    private String formatClassName(String className) {
-        className = trimArrayDimensionsFromDescriptor(className);
-        if (className.startsWith("L")) {
-            // class descriptor L<class>;
-            className = className.substring(1, className.length() - 1);
+        List<Index> indexes = new ArrayList<>();
+        Map<String, ClassFacts> facts = new HashMap<>();
+        for (ClassAnalysis analysis : analyses) {
+            indexes.addAll(analysis.getIndexes());
+            facts.putAll(analysis.getFacts());
         }
-        className = className.replaceAll("/", ".");
-        return className;
+        return new ClassAnalysis(indexes, facts);
     }
 
-    Set<String> parseMethodDescriptor(String descriptor) {
-        Set<String> types = new HashSet<>();
-        StringBuilder builder = null;
-        for (char c : descriptor.toCharArray()) {
-            if (c == 'L') {
-                builder = new StringBuilder();
-                builder.append(c);
+    private ClassAnalysis analyzeDirectoryClasses(Path rootPath, List<Path> classes) throws IOException {
+        long timestamp = System.currentTimeMillis();
+        DirectoryFactsCache.Entry previous = directoryCache.load(binary);
+        Map<String, DirectoryFactsCache.ClassFile> current = new HashMap<>();
+        List<Path> modified = new ArrayList<>();
+        for (Path file : classes) {
+            DirectoryFactsCache.ClassFile classFile = null;
+            if (previous != null) {
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                classFile = previous.getUnchanged(rootPath.relativize(file).toString(), attrs.size(), attrs.lastModifiedTime().toMillis());
+            }
+            if (classFile == null) {
+                modified.add(file);
             } else {
-                if (c == ';') {
-                    builder.append(c);
-                    types.add(formatClassName(builder.toString()));
-                    builder = null;
-                } else {
-                    if (builder != null) {
-                        builder.append(c);
-                    }
-                }
+                current.put(rootPath.relativize(file).toString(), classFile);
+            }
+        }
+        metrics.add(ScanMetrics.Counter.CACHE_HITS, current.size());
+        for (Map<String, DirectoryFactsCache.ClassFile> analyzed : analyzeInChunks(modified.size(),
+                (from, to) -> analyzeModifiedClasses(rootPath, modified, from, to, previous, metrics))) {
+            current.putAll(analyzed);
+        }
+        if (previous == null || !modified.isEmpty() || previous.getClasses().size() != current.size()) {
+            directoryCache.store(binary, new DirectoryFactsCache.Entry(timestamp, current));
+        }
+        List<Index> indexes = new ArrayList<>();
+        Map<String, ClassFacts> facts = new HashMap<>();
+        for (Map.Entry<String, DirectoryFactsCache.ClassFile> entry : current.entrySet()) {
+            indexes.add(entry.getValue().getIndex());
+            facts.put(entry.getKey(), entry.getValue().getFacts());
+        }
+        return new ClassAnalysis(indexes, facts);
+    }
+
+    /**
+     * Analyze the classes added or modified since the previous scan of a directory. A class whose content is unchanged
+     * keeps its previous analysis.
+     */
+    private static Map<String, DirectoryFactsCache.ClassFile> analyzeModifiedClasses(Path rootPath, List<Path> classes, int from, int to,
+            DirectoryFactsCache.Entry previous, ScanMetrics metrics) throws IOException {
+        Map<String, DirectoryFactsCache.ClassFile> analyzed = new HashMap<>();
+        int parsed = 0;
+        long bytes = 0;
+        for (int i = from; i < to; i++) {
+            Path file = classes.get(i);
+            String path = rootPath.relativize(file).toString();
+            // Read before the content, a file modified while being read is analyzed again at the next scan.
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            byte[] content = Files.readAllBytes(file);
+            bytes += content.length;
+            byte[] hash = DirectoryFactsCache.hash(content);
+            DirectoryFactsCache.ClassFile classFile = previous == null ? null : previous.getClasses().get(path);
+            if (classFile != null && classFile.hasContent(hash)) {
+                analyzed.put(path, classFile.touch(attrs.size(), attrs.lastModifiedTime().toMillis()));
+                continue;
+            }
+            Indexer indexer = new Indexer();
+            indexClass(file, content, indexer);
+            analyzed.put(path, new DirectoryFactsCache.ClassFile(attrs.size(), attrs.lastModifiedTime().toMillis(), hash,
+                    indexer.complete(), ClassFacts.parse(file, content)));
+            parsed += 1;
+        }
+        metrics.add(ScanMetrics.Counter.CLASSES_PARSED, parsed);
+        metrics.add(ScanMetrics.Counter.BYTES_READ, bytes);
+        metrics.add(ScanMetrics.Counter.CACHE_HITS, to - from - parsed);
+        metrics.add(ScanMetrics.Counter.CACHE_MISSES, parsed);
+        return analyzed;
+    }
+
+    @FunctionalInterface
+    private interface ChunkAnalyzer<T> {
+
+        T analyze(int from, int to) throws IOException;
+    }
+
+    /**
+     * @return The analysis of contiguous chunks of {@code size} classes, in order. The chunks are analyzed
+     * concurrently when the scanner is parallel.
+     */
+    private <T> List<T> analyzeInChunks(int size, ChunkAnalyzer<T> analyzer) throws IOException {
+        if (executor == null || size < 2 * MIN_CLASSES_PER_TASK) {
+            return Collections.singletonList(analyzer.analyze(0, size));
+        }
+        // Each task owns its Indexer.
+        int numTasks = Math.min(parallelism * 4, size / MIN_CLASSES_PER_TASK);
+        int chunkSize = (size + numTasks - 1) / numTasks;
+        List<Future<T>> futures = new ArrayList<>();
+        for (int start = 0; start < size; start += chunkSize) {
+            int from = start;
+            int to = Math.min(start + chunkSize, size);
+            futures.add(executor.submit(() -> analyzer.analyze(from, to)));
+        }
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> future : futures) {
+                results.add(getResult(future));
+            }
+        } finally {
+            for (Future<T> future : futures) {
+                future.cancel(true);
             }
         }
-        return types;
+        return results;
     }
 
-    private Set<String> extractTypeVariablesFromMethodSignatureAttribute(aQute.bnd.classfile.MethodInfo mi) {
-        String signature = getSignatureAttributeSignature(mi.attributes);
-        if (signature == null) {
-            return Collections.emptySet();
-        }
-
-        String[] parts = signature.split("\\(|\\)", 0);
-        List<String> list = Arrays.stream(parts)
-                .map(v -> v.trim())
-                .filter(v -> v.length() > 0)
-                .map(v -> trimArrayDimensionsFromDescriptor(v))
-                .filter(v -> v.startsWith("L"))
-                .collect(Collectors.toList());
-
-        Set<String> types = new HashSet<>();
-        for (String current : list) {
-            types.addAll(extractClassesSignatureForMethod(current));
+    private static ClassAnalysis analyzeClasses(Path rootPath, List<Path> classes, int from, int to, boolean withFacts,
+            ScanMetrics metrics) throws IOException {
+        Indexer indexer = new Indexer();
+        Map<String, ClassFacts> facts = new HashMap<>();
+        long bytes = 0;
+        for (int i = from; i < to; i++) {
+            Path file = classes.get(i);
+            byte[] content = Files.readAllBytes(file);
+            bytes += content.length;
+            indexClass(file, content, indexer);
+            if (withFacts) {
+                facts.put(rootPath.relativize(file).toString(), ClassFacts.parse(file, content));
+            }
         }
-        return types;
+        metrics.add(ScanMetrics.Counter.CLASSES_PARSED, to - from);
+        metrics.add(ScanMetrics.Counter.BYTES_READ, bytes);
+        return new ClassAnalysis(Collections.singletonList(indexer.complete()), facts);
     }
 
-    private String getSignatureAttributeSignature(Attribute[] attributes) {
-        for (Attribute attribute : attributes) {
-            if (attribute instanceof SignatureAttribute) {
-                return ((SignatureAttribute) attribute).signature;
+    private static <T> T getResult(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
+            throw new RuntimeException(cause);
         }
-        return null;
     }
 
-    private Set<String> extractClassesFromFieldSignatureAttribute(FieldInfo fieldInfo) {
-        String signature = getSignatureAttributeSignature(fieldInfo.attributes);
-        if (signature == null) {
-            return Collections.emptySet();
+    private static void indexClass(Path file, byte[] content, Indexer indexer) {
+        try {
+            indexer.index(new ByteArrayInputStream(content));
+        } catch (Exception e) {
+            String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            System.err.println("ERROR: Could not index " + file.getFileName() + ": " + message);
         }
-        return extractClassesSignatureForField(signature);
-    }
-
-    private Set<String> extractClassesSignatureForField(String signature) {
-        String[] parts = signature.split("<|>|,");
-        Set<String> set =
-                Arrays.stream(parts)
-                        .map(v -> v.trim())
-                        .filter(v -> v.length() > 0)
-                        .map(v -> formatClassName(v))
-                        .collect(Collectors.toSet());
-        return set;
     }
 
-    private Set<String> extractClassesSignatureForMethod(String signature) {
-        String[] parts = signature.split("<|>|,|;");
-        Set<String> types = new HashSet<>();
-        for (String part : parts) {
-            part = part.trim();
-            if (part.length() > 0) {
-                part = trimArrayDimensionsFromDescriptor(part);
-                if (part.startsWith("L")) {
-                    // The regexp got rid of this and it is expected for formatClassName()
-                    part = part + ";";
-                    types.add(formatClassName(part));
-                }
+    private void scanWithNestedScanner(Path file, DeploymentScanContext ctx) throws IOException {
+        // Check it is not an excluded archive
+        for (Pattern exclude : excludeArchivesFromScan) {
+            if (exclude.matcher(file.getFileName().toString()).matches()) {
+                return;
             }
         }
-        return types;
-    }
-
 
-    private Set<String> parseLocalVariableAndLocalVariableTypeTables(aQute.bnd.classfile.MethodInfo mi) {
-        Set<String> types = new HashSet<>();
-        for (Attribute attr : mi.attributes) {
-            if (attr instanceof CodeAttribute) {
-                CodeAttribute codeAttribute = (CodeAttribute) attr;
-
-                for (Attribute attribute : codeAttribute.attributes) {
-                    if (attribute instanceof LocalVariableTableAttribute) {
-                        LocalVariableTableAttribute localVariableTableAttribute = (LocalVariableTableAttribute) attribute;
-                        for (LocalVariableTableAttribute.LocalVariable lv : localVariableTableAttribute.local_variable_table) {
-                            String desc = lv.descriptor;
-                            types.add(formatClassName(desc));
-                        }
-                    } else if (attribute instanceof LocalVariableTypeTableAttribute) {
-                        LocalVariableTypeTableAttribute localVariableTypeTableAttribute = (LocalVariableTypeTableAttribute) attribute;
-                        for (LocalVariableTypeTableAttribute.LocalVariableType lv : localVariableTypeTableAttribute.local_variable_type_table) {
-                            String desc = lv.signature;
-                            types.addAll(extractClassesSignatureForMethod(desc));
-                        }
-                    }
-                }
+        try (DeploymentScanner nestedScanner = new DeploymentScanner(DeploymentScanner.this, file, verbose, excludeArchivesFromScan, parallelism, metrics, profiler)) {
+            try {
+                nestedScanner.scan(ctx);
+            } catch (RuntimeException | IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
             }
         }
-        return types;
     }
 
-    private Set<String> parseLocalVariableTypeTable(aQute.bnd.classfile.MethodInfo mi) {
-        Set<String> types = new HashSet<>();
-        for (Attribute attr : mi.attributes) {
-            if (attr instanceof CodeAttribute) {
-                CodeAttribute codeAttribute = (CodeAttribute) attr;
-
-                for (Attribute attribute : codeAttribute.attributes) {
-                    if (attribute instanceof LocalVariableTableAttribute) {
-                        LocalVariableTableAttribute localVariableTableAttribute = (LocalVariableTableAttribute) attribute;
-                        for (LocalVariableTableAttribute.LocalVariable lv : localVariableTableAttribute.local_variable_table) {
-                            String desc = lv.descriptor;
-                            types.add(formatClassName(desc));
-                        }
-                    }
-                }
-            }
+    private void scanClass(ClassFacts facts, DeploymentScanContext ctx) {
+        ctx.allClasses.add(facts.getClassName());
+        for (String type : facts.getReferencedTypes()) {
+            lookup(type, ctx);
+        }
+        // Makes sure the naming layer gets added
+        for (String type : facts.getContextLookupTypes()) {
+            lookup(type, ctx);
+        }
+        for (String method : facts.getContextLookups()) {
+            ctx.contextLookupInfos.add(new ContextLookupInfo(method));
         }
-        return types;
-    }
-
-
-    private void lookForContextLookups(byte[] classBytes, DeploymentScanContext ctx) {
-        ClassReader cr = new ClassReader(classBytes);
-        ClassVisitor classVisitor = new ContextLookupClassVisitor(ctx);
-        cr.accept(classVisitor, 0);
     }
 
     private Layer lookupJndi(String jndiName, DeploymentScanContext ctx) {
@@ -637,7 +705,7 @@ public class DeploymentScanner implements AutoCloseable {
                 layer = l;
                 // System.out.print("Layer " + l.getName() + " is included by JNDI name " + jndiName);
                 ctx.layers.add(l);
-                LayerMapping.addRule(LayerMapping.RULE.BRING_DATASOURCE, l, jndiName);
+                ctx.evidence.addRule(LayerMapping.RULE.BRING_DATASOURCE, l, jndiName);
             }
             // TODO, add the rule to layers that bring a jndi resource (eg: mail).
         }
@@ -645,136 +713,115 @@ public class DeploymentScanner implements AutoCloseable {
     }
 
     private Set<Layer> lookup(String className, DeploymentScanContext ctx) {
-        Map<String, Set<Layer>> map = ctx.mapping.getConstantPoolClassInfos();
-
-        Set<Layer> l = map.get(className);
-        if (l == null) {
-            int index = className.lastIndexOf(".");
-            if (index != -1) {
-                String pkgPrefix = className.substring(0, index);
-                l = map.get(pkgPrefix);
-                if (l != null) {
-                    LayerMapping.addRule(LayerMapping.RULE.JAVA_TYPE,l, pkgPrefix + ".*");
-                }
-            }
-            if (l == null) {
-                // Pattern?
-                for (String s : map.keySet()) {
-                    if (Utils.isPattern(s)) {
-                        Pattern p = Pattern.compile(s);
-                        if (p.matcher(className).matches()) {
-                            l = map.get(s);
-                        }
-                        if (l != null) {
-                            LayerMapping.addRule(LayerMapping.RULE.JAVA_TYPE,l, s);
-                            break;
-                        }
-                    }
-                }
-            }
-        } else {
-            LayerMapping.addRule(LayerMapping.RULE.JAVA_TYPE, l, className);
-        }
-        if (l != null) {
-            ctx.layers.addAll(l);
+        metrics.increment(ScanMetrics.Counter.RULE_EVALUATIONS);
+        ClassNameMatcher.Match match = ctx.mapping.getClassNameMatcher().match(className, profiler);
+        if (match == null) {
+            return null;
         }
+        Set<Layer> l = match.getLayers();
+        ctx.evidence.addRule(LayerMapping.RULE.JAVA_TYPE, l, match.getRule());
+        ctx.layers.addAll(l);
         return l;
     }
 
     Set<Layer> inspectDeployment(Path rootPath,
             DeploymentScanContext ctx) throws Exception {
 
-        DeploymentFileRuleInspector inspector = new DeploymentFileRuleInspector(rootPath, isArchive);
-
         Set<Layer> set = new TreeSet<>();
-
-        for (String layer : ctx.allLayers.keySet()) {
-            Layer l = ctx.allLayers.get(layer);
-            for (String k : l.getProperties().keySet()) {
-                List<Boolean> matchingRule = new ArrayList<>();
-                matchingRule.add(Boolean.FALSE);
-                final boolean isCondition = LayerMapping.isCondition(k);
-                final Consumer<Layer> consumer = isCondition ? (ll) -> {
-                    matchingRule.set(0, Boolean.TRUE);
-                } : (ll) -> {
-                    set.add(ll);
-                    matchingRule.set(0, Boolean.TRUE);
-                };
-                final String originalKey = k;
-                k = LayerMapping.cleanupKey(k);
-                final String val = l.getProperties().get(originalKey);
-                if (k.startsWith(LayerMetadata.XML_PATH)) {
-                    ParsedRule rule = inspector.extractParsedRule(val);
-                    rule.iterateMatchedPaths((path, values) -> {
-                        try {
-                            Utils.applyXPath(path, values.get(0).getValue(), values.size() == 1 ? null : values.get(1).getValue(), consumer, l);
-                        } catch(Exception ex) {
-                            String id = "invalidXML" + path;
-                            boolean allreadySet = false;
-                            for (IdentifiedError err : ctx.errorSession.getErrors()) {
-                                if (id.equals(err.getId())) {
-                                    allreadySet = true;
+        FileRules fileRules = ctx.mapping.getFileRules();
+        if (!fileRules.isEmpty()) {
+            Map<String, Path> files = new DeploymentFileRuleInspector(rootPath, isArchive).getFiles();
+            Map<FileRules.FileRule, List<Path>> matches = fileRules.match(files, profiler);
+            metrics.add(ScanMetrics.Counter.RULE_EVALUATIONS, fileRules.getNotExpectedFileRules().size());
+            for (FileRules.FileRule rule : fileRules.getNotExpectedFileRules()) {
+                if (profiler != null) {
+                    profiler.record(rule.getKey(), rule.getValue(), rule.getLayer(), !matches.containsKey(rule), 0);
+                }
+                if (!matches.containsKey(rule)) {
+                    ctx.evidence.addRule(LayerMapping.RULE.NOT_EXPECTED_FILE, rule.getLayer(), rule.getValue());
+                    ruleMatched(ctx, set, rule);
+                }
+            }
+            XmlPathEvaluator xmlPaths = new XmlPathEvaluator();
+            // Each properties file is loaded once, whatever the number of rules that target it.
+            Map<Path, Properties> loadedProperties = new HashMap<>();
+            for (Entry<FileRules.FileRule, List<Path>> entry : matches.entrySet()) {
+                FileRules.FileRule rule = entry.getKey();
+                Layer l = rule.getLayer();
+                for (Path path : entry.getValue()) {
+                    if (rule.getKind() == FileRules.Kind.NOT_EXPECTED_FILE || !Files.exists(path)) {
+                        continue;
+                    }
+                    metrics.increment(ScanMetrics.Counter.RULE_EVALUATIONS);
+                    switch (rule.getKind()) {
+                        case XML_PATH: {
+                            // Evaluated once all the rules have been registered, each file is parsed once.
+                            List<PatternOrValue> values = rule.getValueParts();
+                            String expression = values.get(0).getValue();
+                            boolean[] matched = new boolean[1];
+                            xmlPaths.add(path, expression, values.size() == 1 ? null : values.get(1).getValue(), (content) -> {
+                                matched[0] = true;
+                                ctx.evidence.addRule(LayerMapping.RULE.XML_PATH, l, path.toString() + "==>" + expression + (content == null ? "" : "==" + content));
+                                ruleMatched(ctx, set, rule);
+                            }, profiler == null ? null : (time) -> profiler.record(rule.getKey(), rule.getValue(), l, matched[0], time));
+                            break;
+                        }
+                        case PROPERTIES_FILE: {
+                            long start = profiler == null ? 0 : System.nanoTime();
+                            boolean matched = false;
+                            Properties props = loadedProperties.get(path);
+                            if (props == null) {
+                                props = new Properties();
+                                try (InputStream reader = Files.newInputStream(path)) {
+                                    props.load(reader);
                                 }
+                                loadedProperties.put(path, props);
                             }
-                            if (!allreadySet) {
-                                ctx.errorSession.addError(new IdentifiedError(id, "Exception parsing " + path + ": " + ex, ErrorLevel.WARN));
-                            }
-                        }
-                    });
-                } else if (k.startsWith(LayerMetadata.PROPERTIES_FILE_MATCH)) {
-                    ParsedRule parsedRule = inspector.extractParsedRule(val);
-                    parsedRule.iterateMatchedPaths((path, values) -> {
-                        Properties props = new Properties();
-                        try (InputStream reader = Files.newInputStream(path)) {
-                            props.load(reader);
                             for (String prop : props.stringPropertyNames()) {
-                                if (parsedRule.getValueParts().size() >= 1) {
-                                    PatternOrValue key = parsedRule.getValueParts().get(0);
+                                if (rule.getValueParts().size() >= 1) {
+                                    PatternOrValue key = rule.getValueParts().get(0);
                                     // Check matches key
                                     boolean match = key.equalsOrMatches(prop);
                                     PatternOrValue value = null;
-                                    if (match && parsedRule.getValueParts().size() == 2) {
-                                        value = parsedRule.getValueParts().get(1);
+                                    if (match && rule.getValueParts().size() == 2) {
+                                        value = rule.getValueParts().get(1);
                                         if (value != null) {
                                             match = value.equalsOrMatches(props.getProperty(prop));
                                         }
                                     }
                                     if (match) {
-                                        consumer.accept(l);
-                                        LayerMapping.addRule(LayerMapping.RULE.PROPERTIES_FILE, l,
+                                        ctx.evidence.addRule(LayerMapping.RULE.PROPERTIES_FILE, l,
                                                 path.toString() + "==>" + prop + (value != null ? "==" + props.getProperty(prop) : ""));
+                                        ruleMatched(ctx, set, rule);
+                                        matched = true;
                                     }
                                 }
                             }
+                            if (profiler != null) {
+                                profiler.record(rule.getKey(), rule.getValue(), l, matched, System.nanoTime() - start);
+                            }
+                            break;
+                        }
+                        case EXPECTED_FILE: {
+                            ctx.evidence.addRule(LayerMapping.RULE.EXPECTED_FILE, l, path.toString());
+                            ruleMatched(ctx, set, rule);
+                            break;
                         }
-                    });
-                } else if (k.startsWith(LayerMetadata.EXPECTED_FILE)) {
-                    ParsedRule parsedRule = inspector.extractParsedRule(val);
-                    parsedRule.iterateMatchedPaths((path, values) -> {
-                        consumer.accept(l);
-                        LayerMapping.addRule(LayerMapping.RULE.EXPECTED_FILE, l, path.toString());
-                    });
-                } else if (k.startsWith(LayerMetadata.NOT_EXPECTED_FILE)) {
-                    ParsedRule parsedRule = inspector.extractParsedRule(val);
-                    List<Path> paths = parsedRule.getMatchedPaths();
-                    if (paths.size() == 0) {
-                        LayerMapping.addRule(LayerMapping.RULE.NOT_EXPECTED_FILE, l, val);
-                        consumer.accept(l);
                     }
                 }
-                if (isCondition && matchingRule.get(0)) {
-                    String condition = ctx.mapping.getNoConfigurationConditions().get(l);
-                    if (originalKey.equals(condition)) {
-                        //System.out.println("Remove all configurations from this layer");
-                        l.getConfiguration().clear();
-                    }
-                    String hiddenCondition = ctx.mapping.getHiddenConditions().get(l);
-                    if (originalKey.equals(hiddenCondition)) {
-                        //System.out.println("condition " + originalKey + " makes layer " + l.getName() + " banned.");
-                        l.setBanned(true);
+            }
+            xmlPaths.evaluate((path, ex) -> {
+                String id = "invalidXML" + path;
+                boolean allreadySet = false;
+                for (IdentifiedError err : ctx.errorSession.getErrors()) {
+                    if (id.equals(err.getId())) {
+                        allreadySet = true;
                     }
                 }
-            }
+                if (!allreadySet) {
+                    ctx.errorSession.addError(new IdentifiedError(id, "Exception parsing " + path + ": " + ex, ErrorLevel.WARN));
+                }
+            });
         }
 
         ctx.errorSession.collectErrors(rootPath);
@@ -782,6 +829,25 @@ public class DeploymentScanner implements AutoCloseable {
         return set;
     }
 
+    private static void ruleMatched(DeploymentScanContext ctx, Set<Layer> set, FileRules.FileRule rule) {
+        if (rule.isCondition()) {
+            applyCondition(ctx, rule.getLayer(), rule.getKey());
+        } else {
+            set.add(rule.getLayer());
+        }
+    }
+
+    private static void applyCondition(DeploymentScanContext ctx, Layer l, String condition) {
+        if (condition.equals(ctx.mapping.getNoConfigurationConditions().get(l))) {
+            //System.out.println("Remove all configurations from this layer");
+            ctx.evidence.removeConfiguration(l);
+        }
+        if (condition.equals(ctx.mapping.getHiddenConditions().get(l))) {
+            //System.out.println("condition " + condition + " makes layer " + l.getName() + " banned.");
+            ctx.evidence.ban(l);
+        }
+    }
+
     private String pathRelativeToRoot(String path) {
         if (path.startsWith("/")) {
             return path.substring(1);
@@ -907,82 +973,51 @@ public class DeploymentScanner implements AutoCloseable {
         }
     }
 
+    /**
+     * The result of the class files analysis of an archive, the Jandex indexes and the class facts keyed by
+     * class file path relative to the archive root.
+     */
+    static final class ClassAnalysis {
+
+        private final List<Index> indexes;
+        private final Map<String, ClassFacts> facts;
+
+        ClassAnalysis(List<Index> indexes, Map<String, ClassFacts> facts) {
+            this.indexes = indexes;
+            this.facts = facts;
+        }
+
+        List<Index> getIndexes() {
+            return indexes;
+        }
+
+        Map<String, ClassFacts> getFacts() {
+            return facts;
+        }
+
+        IndexView getIndex() {
+            return indexes.size() == 1 ? indexes.get(0) : CompositeIndex.create(new ArrayList<>(indexes));
+        }
+    }
+
     static class DeploymentScanContext {
 
         private final LayerMapping mapping;
         private final Set<Layer> layers;
         private final Map<String, Layer> allLayers;
+        private final ScanEvidence evidence;
         private final ErrorIdentificationSession errorSession;
         private final Set<String> allClasses = new HashSet<>();
         private final Map<String, ResourceInjectionJndiInfo> resourceInjectionJndiInfos = new HashMap<>();
         private final Map<String, DataSourceDefinitionInfo> dataSourceDefinitionInfos = new HashMap<>();
         public Set<ContextLookupInfo> contextLookupInfos = new HashSet<>();
 
-        private DeploymentScanContext(LayerMapping mapping, Set<Layer> layers, Map<String, Layer> allLayers, ErrorIdentificationSession errorSession) {
+        private DeploymentScanContext(LayerMapping mapping, Set<Layer> layers, Map<String, Layer> allLayers, ScanEvidence evidence, ErrorIdentificationSession errorSession) {
             this.mapping = mapping;
             this.layers = layers;
             this.allLayers = allLayers;
+            this.evidence = evidence;
             this.errorSession = errorSession;
         }
     }
-
-    private class ContextLookupClassVisitor extends ClassVisitor {
-
-        private DeploymentScanContext ctx;
-        private String clazz;
-
-        public ContextLookupClassVisitor(DeploymentScanContext ctx) {
-            super(ASM9);
-            this.ctx = ctx;
-        }
-
-        @Override
-        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
-            clazz = name;
-            super.visit(version, access, name, signature, superName, interfaces);
-        }
-
-        @Override
-        public void visitEnd() {
-            clazz = null;
-            super.visitEnd();
-        }
-
-        @Override
-        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
-            MethodVisitor visitor = new ContextLookupMethodVisitor(clazz, name, ctx);
-            return visitor;
-        }
-    }
-
-    private class ContextLookupMethodVisitor extends MethodVisitor {
-
-        private DeploymentScanContext ctx;
-        private String clazz;
-        private String method;
-
-        public ContextLookupMethodVisitor(String clazz, String method, DeploymentScanContext ctx) {
-            super(ASM9);
-            this.clazz = clazz;
-            this.method = method;
-            this.ctx = ctx;
-        }
-
-        @Override
-        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
-            if (!"lookup".equals(name)) {
-                return;
-            }
-            if ("javax/naming/Context".equals(owner) || "javax/naming/InitialContext".equals(owner)) {
-                // Makes sure the naming layer gets added
-                String lookupClass = owner.replace('/', '.');
-                lookup(lookupClass, ctx);
-                String method = clazz.replace('/', '.') + "." + this.method + "()";
-
-                ctx.contextLookupInfos.add(new ContextLookupInfo(method));
-            }
-        }
-    }
-
-
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches deployments for changes. The exploded deployments are watched recursively, the directories created after
+ * the watcher are watched too. Each deployment is also watched through its parent directory, so that an archive
+ * written again or an exploded deployment deleted and re-created is noticed, the other files of the parent directory
+ * are ignored.
+ *
+ * A build writes many files, the changes are reported once no change happened during a quiet period.
+ */
+public final class DeploymentWatcher implements AutoCloseable {
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    // The deployment names watched in a parent directory, the directories of the exploded deployments have no entry.
+    private final Map<Path, Set<Path>> names = new HashMap<>();
+
+    public DeploymentWatcher(List<Path> deployments) throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        try {
+            for (Path deployment : deployments) {
+                Path path = deployment.toAbsolutePath().normalize();
+                if (Files.isDirectory(path)) {
+                    registerAll(path);
+                }
+                Path parent = path.getParent();
+                Set<Path> watched = names.get(parent);
+                if (watched == null) {
+                    if (directories.containsValue(parent)) {
+                        // Already watched as part of an exploded deployment.
+                        continue;
+                    }
+                    watched = new HashSet<>();
+                    names.put(parent, watched);
+                    register(parent);
+                }
+                watched.add(path.getFileName());
+            }
+        } catch (IOException | RuntimeException ex) {
+            watchService.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Wait for changes in the deployments.
+     *
+     * @param quietPeriod The time, in milliseconds, without changes after which the changes are reported.
+     * @return The changed files, or the changed directories when the file system lost events. Empty if no directory
+     * is watched anymore, the deployments and their parent directories have been deleted.
+     */
+    public Set<Path> awaitChanges(long quietPeriod) throws IOException, InterruptedException {
+        Set<Path> changes = new HashSet<>();
+        while (changes.isEmpty()) {
+            if (directories.isEmpty()) {
+                return changes;
+            }
+            processEvents(watchService.take(), changes);
+        }
+        WatchKey key;
+        while ((key = watchService.poll(quietPeriod, TimeUnit.MILLISECONDS)) != null) {
+            processEvents(key, changes);
+        }
+        return changes;
+    }
+
+    private void processEvents(WatchKey key, Set<Path> changes) throws IOException {
+        Path directory = directories.get(key);
+        if (directory == null) {
+            key.cancel();
+            return;
+        }
+        Set<Path> watchedNames = names.get(directory);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                changes.add(directory);
+                continue;
+            }
+            Path name = (Path) event.context();
+            if (watchedNames != null && !watchedNames.contains(name)) {
+                continue;
+            }
+            Path child = directory.resolve(name);
+            changes.add(child);
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(child)) {
+                try {
+                    registerAll(child);
+                } catch (NoSuchFileException ex) {
+                    // Already deleted
+                }
+            }
+        }
+        if (!key.reset()) {
+            // The directory has been deleted, it is registered again if re-created.
+            directories.remove(key);
+        }
+    }
+
+    private void registerAll(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                // All the changes are reported, not only the ones of the deployments of the directory.
+                names.remove(dir);
+                register(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void register(Path directory) throws IOException {
+        directories.put(directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), directory);
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
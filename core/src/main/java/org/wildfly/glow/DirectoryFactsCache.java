@@ -0,0 +1,229 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexWriter;
+
+/**
+ * On disk cache of the class files analysis of exploded deployments, so that a directory scanned again only has its
+ * changed class files parsed. An entry is stored per directory, keyed by the SHA-256 of its absolute path. It contains,
+ * for each class file, its fingerprint (size, last modified time and SHA-256 of the content), its Jandex index and its
+ * {@link ClassFacts}.
+ *
+ * A class file with the same size and last modified time as in the entry is not read. Otherwise its content is hashed
+ * and it is parsed only if the content changed. Added class files are parsed and removed ones are dropped from the
+ * entry. As for {@link ScanFactsCache}, the layer rules are not involved, they are evaluated against the cached facts
+ * at each scan.
+ *
+ * The cache is bounded in size, the least recently used entries are evicted. The cache is disabled by default, it is
+ * enabled with the {@code org.wildfly.glow.scan.incremental} property set to {@code true}.
+ */
+final class DirectoryFactsCache {
+
+    static final String INCREMENTAL_SCAN_PROPERTY = "org.wildfly.glow.scan.incremental";
+    static final String INCREMENTAL_SCAN_MAX_SIZE_PROPERTY = "org.wildfly.glow.scan.incremental.max.size";
+    // To be incremented each time the content of the analysis or the way it is computed changes.
+    private static final int FORMAT_VERSION = 1;
+    private static final long DEFAULT_MAX_SIZE = 256 * 1024 * 1024;
+    // A file modified during the previous scan can have been modified again without a change of its last modified
+    // time, the file systems time resolution can be as coarse as 2 seconds.
+    private static final long TIME_RESOLUTION = 2000;
+
+    /**
+     * The analysis of a class file and its fingerprint.
+     */
+    static final class ClassFile {
+
+        private final long size;
+        private final long lastModified;
+        private final byte[] hash;
+        private final Index index;
+        private final ClassFacts facts;
+
+        ClassFile(long size, long lastModified, byte[] hash, Index index, ClassFacts facts) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.index = index;
+            this.facts = facts;
+        }
+
+        Index getIndex() {
+            return index;
+        }
+
+        ClassFacts getFacts() {
+            return facts;
+        }
+
+        boolean hasContent(byte[] hash) {
+            return Arrays.equals(this.hash, hash);
+        }
+
+        /**
+         * @return This analysis with a new fingerprint for a file whose content is unchanged.
+         */
+        ClassFile touch(long size, long lastModified) {
+            return new ClassFile(size, lastModified, hash, index, facts);
+        }
+    }
+
+    /**
+     * The class files of a directory, keyed by path relative to the directory.
+     */
+    static final class Entry {
+
+        private final long timestamp;
+        private final Map<String, ClassFile> classes;
+
+        /**
+         * @param timestamp The time at which the directory started to be analyzed, the class files modified after
+         * are analyzed again at the next scan.
+         */
+        Entry(long timestamp, Map<String, ClassFile> classes) {
+            this.timestamp = timestamp;
+            this.classes = classes;
+        }
+
+        long getTimestamp() {
+            return timestamp;
+        }
+
+        Map<String, ClassFile> getClasses() {
+            return classes;
+        }
+
+        /**
+         * @return The class file analysis if the file has not changed since the analysis, null otherwise.
+         */
+        ClassFile getUnchanged(String path, long size, long lastModified) {
+            ClassFile classFile = classes.get(path);
+            if (classFile == null || classFile.size != size || classFile.lastModified != lastModified
+                    || lastModified >= timestamp - TIME_RESOLUTION) {
+                return null;
+            }
+            return classFile;
+        }
+    }
+
+    private final Path directory;
+    private final long maxSize;
+    private final AtomicBoolean updated = new AtomicBoolean();
+
+    DirectoryFactsCache(Path directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return The cache located in the glow cache directory, null if the cache is not enabled.
+     */
+    static DirectoryFactsCache newInstance() {
+        HiddenPropertiesAccessor accessor = new HiddenPropertiesAccessor();
+        if (!"true".equals(accessor.getProperty(INCREMENTAL_SCAN_PROPERTY))) {
+            return null;
+        }
+        String maxSize = accessor.getProperty(INCREMENTAL_SCAN_MAX_SIZE_PROPERTY);
+        return new DirectoryFactsCache(Utils.getCacheDirectory().resolve("directory-facts"),
+                maxSize == null ? DEFAULT_MAX_SIZE : Long.parseLong(maxSize));
+    }
+
+    static byte[] hash(byte[] content) {
+        return CacheFiles.newDigest().digest(content);
+    }
+
+    private static String key(Path deployment) {
+        String path = deployment.toAbsolutePath().normalize().toString();
+        return CacheFiles.toHex(hash(path.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @return The class files analysis of the previous scan of the directory, null if not found or if the entry can't
+     * be read.
+     */
+    Entry load(Path deployment) {
+        Path file = directory.resolve(key(deployment) + ScanFactsCache.SUFFIX);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (!CacheFiles.readHeader(in, FORMAT_VERSION)) {
+                return null;
+            }
+            if (!deployment.toAbsolutePath().normalize().toString().equals(in.readUTF())) {
+                return null;
+            }
+            long timestamp = in.readLong();
+            int numClasses = in.readInt();
+            Map<String, ClassFile> classes = new HashMap<>();
+            for (int i = 0; i < numClasses; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                byte[] hash = new byte[in.readInt()];
+                in.readFully(hash);
+                byte[] content = new byte[in.readInt()];
+                in.readFully(content);
+                Index index = new IndexReader(new ByteArrayInputStream(content)).read();
+                classes.put(path, new ClassFile(size, lastModified, hash, index, ScanFactsCache.readFacts(in)));
+            }
+            // Used as the last access time for the eviction.
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return new Entry(timestamp, Collections.unmodifiableMap(classes));
+        } catch (IOException | RuntimeException ex) {
+            // Corrupted or concurrently evicted entry, the directory is analyzed again.
+            return null;
+        }
+    }
+
+    void store(Path deployment, Entry entry) {
+        boolean stored = CacheFiles.store(directory, key(deployment) + ScanFactsCache.SUFFIX, FORMAT_VERSION, out -> {
+            out.writeUTF(deployment.toAbsolutePath().normalize().toString());
+            out.writeLong(entry.getTimestamp());
+            out.writeInt(entry.getClasses().size());
+            for (Map.Entry<String, ClassFile> classEntry : entry.getClasses().entrySet()) {
+                ClassFile classFile = classEntry.getValue();
+                out.writeUTF(classEntry.getKey());
+                out.writeLong(classFile.size);
+                out.writeLong(classFile.lastModified);
+                out.writeInt(classFile.hash.length);
+                out.write(classFile.hash);
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                new IndexWriter(content).write(classFile.index);
+                out.writeInt(content.size());
+                content.writeTo(out);
+                ScanFactsCache.writeFacts(out, classFile.facts);
+            }
+        });
+        if (stored) {
+            updated.set(true);
+        }
+    }
+
+    /**
+     * Delete the least recently used entries until the cache size is below the max size.
+     */
+    void evict() {
+        if (updated.getAndSet(false)) {
+            CacheFiles.evict(directory, ScanFactsCache.SUFFIX, maxSize);
+        }
+    }
+}
@@ -30,12 +30,16 @@ import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
 /**
+ * Retrieves the known feature-packs and their metadata. The metadata documents (versions, variants and spaces) are
+ * fetched and parsed once, then reused. The {@code org.wildfly.glow.metadata.cache.ttl} property sets the number of
+ * seconds after which a document is fetched again, by default the documents are never fetched again.
  *
  * @author jdenise
  */
@@ -47,11 +51,28 @@ public class FeaturePacks {
     private static final String PROVISIONING_FILE_RADICAL = "/provisioning-";
 
     public static final String URL_PROPERTY = "wildfly-glow-galleon-feature-packs-url";
+    public static final String METADATA_CACHE_TTL_PROPERTY = "org.wildfly.glow.metadata.cache.ttl";
 
     private final URI rootURI;
+    private final long timeToLive;
+    private final Map<String, CachedDocument> documents = new HashMap<>();
 
     public FeaturePacks(URI rootURI) {
+        this(rootURI, getDefaultTimeToLive());
+    }
+
+    /**
+     * @param rootURI The metadata root.
+     * @param timeToLive The number of milliseconds a fetched document is reused, negative to reuse it forever.
+     */
+    public FeaturePacks(URI rootURI, long timeToLive) {
         this.rootURI = rootURI;
+        this.timeToLive = timeToLive;
+    }
+
+    private static long getDefaultTimeToLive() {
+        String ttl = new HiddenPropertiesAccessor().getProperty(METADATA_CACHE_TTL_PROPERTY);
+        return ttl == null ? -1 : Long.parseLong(ttl) * 1000;
     }
 
     public Path getFeaturePacks(String version, String context, String variant) throws Exception {
@@ -61,8 +82,7 @@ public class FeaturePacks {
     public Path getFeaturePacks(Space space, String version, String context, String variant) throws Exception {
         try {
             String rootURL = getFeaturePacksURL(space);
-            Yaml yaml = new Yaml();
-            Map<String, String> map = yaml.load(new URI(getFeaturePacksURL() + VERSIONS).toURL().openStream());
+            Map<String, String> map = loadYaml(getFeaturePacksURL() + VERSIONS);
             if (version == null) {
                 version = map.get("latest");
             } else {
@@ -114,8 +134,7 @@ public class FeaturePacks {
         Space space = getSpace(spaceName);
         String rootURL = getFeaturePacksURL(space);
         Set<String> set = new TreeSet<>();
-        Yaml yaml = new Yaml();
-        Map<String, String> map = yaml.load(new URI(rootURL + VERSIONS).toURL().openStream());
+        Map<String, String> map = loadYaml(rootURL + VERSIONS);
         for (String v : Arrays.asList(map.get("versions").split(","))) {
             set.add(v.trim());
         }
@@ -125,8 +144,7 @@ public class FeaturePacks {
     public List<Space> getAllSpaces() throws Exception {
         String rootURL = getFeaturePacksURL();
         List<Space> lst = new ArrayList<>();
-        Yaml yaml = new Yaml();
-        Map<String, List<Map<String, String>>> map = yaml.load(new URI(rootURL + SPACES).toURL().openStream());
+        Map<String, List<Map<String, String>>> map = loadYaml(rootURL + SPACES);
         List<Map<String, String>> spaces = map.get("spaces");
         for(Map<String, String> space : spaces) {
             lst.add(new Space(space.get("name"), space.get("description")));
@@ -137,8 +155,7 @@ public class FeaturePacks {
     public List<Variant> getAllVariants(String wildflyVersion) throws Exception {
         String rootURL = getFeaturePacksURL();
         List<Variant> lst = new ArrayList<>();
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode variantNode = mapper.readTree(new URI(rootURL + "/" + wildflyVersion + "/" + VARIANTS).toURL());
+        JsonNode variantNode = loadJson(rootURL + "/" + wildflyVersion + "/" + VARIANTS);
         ArrayNode nodes = (ArrayNode) variantNode.get("variants");
         for (JsonNode node : nodes) {
             String name = node.get("name").asText();
@@ -156,8 +173,7 @@ public class FeaturePacks {
             return null;
         }
         String rootURL = getFeaturePacksURL();
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode variantNode = mapper.readTree(new URI(rootURL + "/" + wildflyVersion + "/" + VARIANTS).toURL());
+        JsonNode variantNode = loadJson(rootURL + "/" + wildflyVersion + "/" + VARIANTS);
         ArrayNode nodes = (ArrayNode) variantNode.get("variants");
         String ret = null;
         for (JsonNode node : nodes) {
@@ -184,8 +200,7 @@ public class FeaturePacks {
         }
         String rootURL = getFeaturePacksURL();
         List<Space> lst = new ArrayList<>();
-        Yaml yaml = new Yaml();
-        Map<String, List<Map<String, String>>> map = yaml.load(new URI(rootURL + SPACES).toURL().openStream());
+        Map<String, List<Map<String, String>>> map = loadYaml(rootURL + SPACES);
         List<Map<String, String>> spaces = map.get("spaces");
         for(Map<String, String> space : spaces) {
             if(space.get("name").equals(spaceName)) {
@@ -202,8 +217,46 @@ public class FeaturePacks {
 
     public String getLatestVersion() throws Exception {
         String rootURL = getFeaturePacksURL();
-        Yaml yaml = new Yaml();
-        Map<String, String> map = yaml.load(new URI(rootURL + VERSIONS).toURL().openStream());
+        Map<String, String> map = loadYaml(rootURL + VERSIONS);
         return map.get("latest");
     }
+
+    private <T> T loadYaml(String url) throws Exception {
+        return getDocument(url, (u) -> {
+            try (InputStream in = u.openStream()) {
+                return new Yaml().load(in);
+            }
+        });
+    }
+
+    private JsonNode loadJson(String url) throws Exception {
+        return getDocument(url, (u) -> new ObjectMapper().readTree(u));
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> T getDocument(String url, DocumentLoader loader) throws Exception {
+        CachedDocument document = documents.get(url);
+        long now = System.currentTimeMillis();
+        if (document == null || (timeToLive >= 0 && now - document.loadTime > timeToLive)) {
+            document = new CachedDocument(loader.load(new URI(url).toURL()), now);
+            documents.put(url, document);
+        }
+        return (T) document.content;
+    }
+
+    private interface DocumentLoader {
+
+        Object load(URL url) throws Exception;
+    }
+
+    private static final class CachedDocument {
+
+        private final Object content;
+        private final long loadTime;
+
+        private CachedDocument(Object content, long loadTime) {
+            this.content = content;
+            this.loadTime = loadTime;
+        }
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * On disk cache of the stability of the features provisioned by the layers. For each layer, the features and feature
+ * parameters that have a stability are recorded, whatever the stability level of the scan, the level is applied to
+ * the cached stabilities. Entries are keyed by the active feature-packs, with the same key as the
+ * {@link LayerModelCache}, and contain all the layers inventoried so far for these feature-packs.
+ *
+ * Entries written with another format version are ignored. The cache can be disabled with the
+ * {@code org.wildfly.glow.stability.cache} property set to {@code false}.
+ */
+final class FeatureStabilityCache {
+
+    static final String STABILITY_CACHE_PROPERTY = "org.wildfly.glow.stability.cache";
+    // To be incremented each time the content of the inventory or the way it is computed changes.
+    private static final int FORMAT_VERSION = 1;
+    private static final String SUFFIX = ".stability";
+
+    private final Path directory;
+
+    FeatureStabilityCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return The cache located in the glow cache directory, null if the cache is disabled.
+     */
+    static FeatureStabilityCache newInstance() {
+        if ("false".equals(new HiddenPropertiesAccessor().getProperty(STABILITY_CACHE_PROPERTY))) {
+            return null;
+        }
+        return new FeatureStabilityCache(Utils.getCacheDirectory().resolve("feature-stabilities"));
+    }
+
+    /**
+     * @return The stabilities of the features and feature parameters, keyed by layer name. Empty if not found or if
+     * the entry can't be read.
+     */
+    Map<String, Map<String, String>> load(String key) {
+        Map<String, Map<String, String>> inventory = new HashMap<>();
+        Path file = directory.resolve(key + SUFFIX);
+        if (!Files.exists(file)) {
+            return inventory;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (!CacheFiles.readHeader(in, FORMAT_VERSION)) {
+                return inventory;
+            }
+            int numLayers = in.readInt();
+            for (int i = 0; i < numLayers; i++) {
+                String layer = in.readUTF();
+                int numFeatures = in.readInt();
+                Map<String, String> stabilities = new LinkedHashMap<>();
+                for (int j = 0; j < numFeatures; j++) {
+                    stabilities.put(in.readUTF(), in.readUTF());
+                }
+                inventory.put(layer, stabilities);
+            }
+            return inventory;
+        } catch (IOException | RuntimeException ex) {
+            // Corrupted entry, the layers are inventoried again.
+            return new HashMap<>();
+        }
+    }
+
+    void store(String key, Map<String, Map<String, String>> inventory) {
+        CacheFiles.store(directory, key + SUFFIX, FORMAT_VERSION, out -> {
+            out.writeInt(inventory.size());
+            for (Map.Entry<String, Map<String, String>> entry : inventory.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (Map.Entry<String, String> stability : entry.getValue().entrySet()) {
+                    out.writeUTF(stability.getKey());
+                    out.writeUTF(stability.getValue());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.wildfly.glow.DeploymentFileRuleInspector.PatternOrValue;
+
+/**
+ * The expected-file, not-expected-file, properties-file-match and xml-path rules of the layers, parsed once and
+ * indexed by file path. The files of each scanned archive are matched against the index, only the rules that target
+ * a file of the archive (and the not-expected-file rules) are then evaluated.
+ *
+ * The file paths of the rules are relative to the root of the archive.
+ */
+final class FileRules {
+
+    enum Kind {
+        EXPECTED_FILE,
+        NOT_EXPECTED_FILE,
+        PROPERTIES_FILE,
+        XML_PATH
+    }
+
+    static final class FileRule {
+
+        private final Kind kind;
+        private final Layer layer;
+        private final String key;
+        private final String value;
+        private final List<PatternOrValue> valueParts;
+
+        private FileRule(Kind kind, Layer layer, String key, String value, List<PatternOrValue> valueParts) {
+            this.kind = kind;
+            this.layer = layer;
+            this.key = key;
+            this.value = value;
+            this.valueParts = valueParts;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        Layer getLayer() {
+            return layer;
+        }
+
+        /**
+         * @return The property name, including the condition prefix if any.
+         */
+        String getKey() {
+            return key;
+        }
+
+        /**
+         * @return The property value.
+         */
+        String getValue() {
+            return value;
+        }
+
+        List<PatternOrValue> getValueParts() {
+            return valueParts;
+        }
+
+        boolean isCondition() {
+            return LayerMapping.isCondition(key);
+        }
+    }
+
+    private final Map<String, List<FileRule>> rulesByFile = new HashMap<>();
+    private final Map<String, Pattern> patterns = new HashMap<>();
+    private final Map<String, List<FileRule>> rulesByPattern = new LinkedHashMap<>();
+    // The file patterns as written in the rules, keyed by regular expression.
+    private final Map<String, String> globs = new HashMap<>();
+    private final List<FileRule> notExpectedFileRules = new ArrayList<>();
+
+    private FileRules() {
+    }
+
+    /**
+     * @param fileRules The file rules properties of each layer.
+     */
+    static FileRules build(Map<Layer, Map<String, String>> fileRules) {
+        FileRules rules = new FileRules();
+        for (Map.Entry<Layer, Map<String, String>> entry : fileRules.entrySet()) {
+            for (Map.Entry<String, String> property : entry.getValue().entrySet()) {
+                rules.add(entry.getKey(), property.getKey(), property.getValue());
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * @return The kind of file rule of a property, null if the property is not a file rule.
+     */
+    static Kind getKind(String key) {
+        key = LayerMapping.cleanupKey(key);
+        if (key.startsWith(LayerMetadata.XML_PATH)) {
+            return Kind.XML_PATH;
+        }
+        if (key.startsWith(LayerMetadata.PROPERTIES_FILE_MATCH)) {
+            return Kind.PROPERTIES_FILE;
+        }
+        if (key.startsWith(LayerMetadata.EXPECTED_FILE)) {
+            return Kind.EXPECTED_FILE;
+        }
+        if (key.startsWith(LayerMetadata.NOT_EXPECTED_FILE)) {
+            return Kind.NOT_EXPECTED_FILE;
+        }
+        return null;
+    }
+
+    private void add(Layer layer, String key, String value) {
+        Kind kind = getKind(key);
+        String[] parts = DeploymentFileRuleInspector.ParsedRule.split(value);
+        List<PatternOrValue> valueParts = new ArrayList<>();
+        for (int i = 1; i < parts.length; i++) {
+            valueParts.add(PatternOrValue.createForValue(parts[i]));
+        }
+        FileRule rule = new FileRule(kind, layer, key, value, Collections.unmodifiableList(valueParts));
+        for (String file : parts[0].split(",")) {
+            if (Utils.isPattern(file)) {
+                String regex = Utils.escapePattern(file);
+                if (regex.startsWith("/")) {
+                    regex = regex.substring(1);
+                }
+                patterns.computeIfAbsent(regex, (r) -> Pattern.compile(r));
+                globs.putIfAbsent(regex, file);
+                rulesByPattern.computeIfAbsent(regex, (r) -> new ArrayList<>()).add(rule);
+            } else {
+                rulesByFile.computeIfAbsent(relativePath(file), (p) -> new ArrayList<>()).add(rule);
+            }
+        }
+        if (kind == Kind.NOT_EXPECTED_FILE) {
+            notExpectedFileRules.add(rule);
+        }
+    }
+
+    private static String relativePath(String path) {
+        path = path.replaceAll("//+", "/");
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return path;
+    }
+
+    /**
+     * @return true if there is no rule.
+     */
+    boolean isEmpty() {
+        return rulesByFile.isEmpty() && rulesByPattern.isEmpty();
+    }
+
+    /**
+     * @return The rules that are matching when none of their files are found.
+     */
+    List<FileRule> getNotExpectedFileRules() {
+        return notExpectedFileRules;
+    }
+
+    /**
+     * Match the files of an archive.
+     *
+     * @param files The archive files (and directories) keyed by their path relative to the archive root, '/'
+     * separated.
+     * @return The rules that target at least one of the files, with the matching files.
+     */
+    Map<FileRule, List<Path>> match(Map<String, Path> files) {
+        return match(files, null);
+    }
+
+    /**
+     * @param profiler Records the evaluations of the file patterns and the hits of the file paths, null to not
+     * profile. The file of the rules is recorded as the rule value.
+     */
+    Map<FileRule, List<Path>> match(Map<String, Path> files, RuleProfiler profiler) {
+        Map<FileRule, List<Path>> matches = new LinkedHashMap<>();
+        for (Map.Entry<String, Path> file : files.entrySet()) {
+            List<FileRule> rules = rulesByFile.get(file.getKey());
+            if (rules != null) {
+                for (FileRule rule : rules) {
+                    matches.computeIfAbsent(rule, (r) -> new ArrayList<>()).add(file.getValue());
+                    if (profiler != null) {
+                        profiler.record(rule.getKey(), "/" + file.getKey(), rule.getLayer(), true, 0);
+                    }
+                }
+            }
+            for (Map.Entry<String, List<FileRule>> entry : rulesByPattern.entrySet()) {
+                long start = profiler == null ? 0 : System.nanoTime();
+                boolean fileMatches = patterns.get(entry.getKey()).matcher(file.getKey()).matches();
+                if (profiler != null) {
+                    // The pattern is shared by the rules.
+                    long time = (System.nanoTime() - start) / entry.getValue().size();
+                    for (FileRule rule : entry.getValue()) {
+                        profiler.record(rule.getKey(), globs.get(entry.getKey()), rule.getLayer(), fileMatches, time);
+                    }
+                }
+                if (fileMatches) {
+                    for (FileRule rule : entry.getValue()) {
+                        matches.computeIfAbsent(rule, (r) -> new ArrayList<>()).add(file.getValue());
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+}
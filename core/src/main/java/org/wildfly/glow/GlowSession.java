@@ -35,6 +35,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -47,6 +48,12 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.jboss.galleon.MessageWriter;
 import org.jboss.galleon.universe.FeaturePackLocation.ProducerSpec;
 import static org.wildfly.glow.OutputFormat.BOOTABLE_JAR;
@@ -85,6 +92,11 @@ public class GlowSession {
     public static final Path OFFLINE_FEATURE_PACK_DEPENDENCIES_DIR = OFFLINE_CONTENT.resolve("feature-pack-dependencies");
     public static final String STANDALONE_PROFILE = "standalone";
     private static final String GALLEON_DISABLE_CAPABILITIES_CHECK_PROPERTY = "org.jboss.galleon.internal.ignore.capability.providers";
+    // Galleon only reads the property from the system properties, it is set while a scan retrieves the features of its
+    // layers and cleared once no concurrent scan does.
+    private static final Object CAPABILITIES_CHECK_LOCK = new Object();
+    private static int capabilitiesCheckDisabled;
+    private static String capabilitiesCheckProperty;
     private final MavenRepoManager resolver;
     private final Arguments arguments;
     private final GlowMessageWriter writer;
@@ -94,11 +106,14 @@ public class GlowSession {
     private final LayerConfigurationProvider layerConfigurationprovider;
     private final boolean bootableJar;
     private final Set<FeaturePackLocation> requiredFeaturePacks = new HashSet<>();
+    private final ScanMetrics metrics = new ScanMetrics();
+    private final RuleProfiler profiler;
 
     private GlowSession(MavenRepoManager resolver, Arguments arguments, GlowMessageWriter writer, boolean bootableJar) throws Exception {
         this.arguments = arguments;
         this.writer = writer;
         this.bootableJar = bootableJar;
+        this.profiler = arguments.isProfileRules() ? new RuleProfiler() : null;
         MavenRepoManager repoManager = resolver;
         if (!Files.exists(OFFLINE_ZIP)) {
             if (arguments.getChannels() != null) {
@@ -110,8 +125,14 @@ public class GlowSession {
         if (arguments.getMetadataProvider() == null) {
             String prop = System.getProperty(URL_PROPERTY);
             if (prop == null) {
-                tmpMetadataDirectory = Files.createTempDirectory("wildfly-glow-metadata");
-                this.metadataProvider = new WildFlyMavenMetadataProvider(resolver, tmpMetadataDirectory);
+                if (arguments.getModelCache() == null) {
+                    tmpMetadataDirectory = Files.createTempDirectory("wildfly-glow-metadata");
+                    this.metadataProvider = new WildFlyMavenMetadataProvider(resolver, tmpMetadataDirectory);
+                } else {
+                    // Shared with the other scans, the layer configurations are the same for the cached models.
+                    tmpMetadataDirectory = null;
+                    this.metadataProvider = arguments.getModelCache().getMetadataProvider(resolver);
+                }
                 if (configProvider == null) {
                     configProvider = (WildFlyMavenMetadataProvider) metadataProvider;
                 }
@@ -190,18 +211,22 @@ public class GlowSession {
     private GalleonProvisioningConfig mergeSpaces(GalleonBuilder provider, GalleonProvisioningConfig defaultConfig) throws Exception {
         if (!arguments.getSpaces().isEmpty()) {
             GalleonProvisioningConfig.Builder mergedConfigBuilder = GalleonProvisioningConfig.builder(defaultConfig);
+            List<Callable<Path>> retrievals = new ArrayList<>();
             for (String spaceName : arguments.getSpaces()) {
                 Space space = metadataProvider.getSpace(spaceName);
                 Set<String> versions = metadataProvider.getAllVersions(spaceName);
                 String vers = arguments.getVersion() == null ? metadataProvider.getLatestVersion() : arguments.getVersion();
                 if (versions.contains(vers)) {
-                    Path spaceProvisioningXML = metadataProvider.getFeaturePacks(space,
-                            arguments.getVersion(), arguments.getExecutionContext(), arguments.getServerVariant());
-                    try (Provisioning spaceProvisioning = provider.newProvisioningBuilder(spaceProvisioningXML).build()) {
-                        GalleonProvisioningConfig spaceConfig = spaceProvisioning.loadProvisioningConfig(spaceProvisioningXML);
-                        for (GalleonFeaturePackConfig fpSpaceConfig : spaceConfig.getFeaturePackDeps()) {
-                            mergedConfigBuilder.addFeaturePackDep(fpSpaceConfig);
-                        }
+                    retrievals.add(() -> metadataProvider.getFeaturePacks(space,
+                            arguments.getVersion(), arguments.getExecutionContext(), arguments.getServerVariant()));
+                }
+            }
+            // The space provisioning files are retrieved concurrently and merged in the order of the spaces.
+            for (Path spaceProvisioningXML : invokeAll(retrievals, arguments.getParallelism())) {
+                try (Provisioning spaceProvisioning = provider.newProvisioningBuilder(spaceProvisioningXML).build()) {
+                    GalleonProvisioningConfig spaceConfig = spaceProvisioning.loadProvisioningConfig(spaceProvisioningXML);
+                    for (GalleonFeaturePackConfig fpSpaceConfig : spaceConfig.getFeaturePackDeps()) {
+                        mergedConfigBuilder.addFeaturePackDep(fpSpaceConfig);
                     }
                 }
             }
@@ -215,7 +240,22 @@ public class GlowSession {
         return bootableJar || (out != null && (out.equals(OutputFormat.BOOTABLE_JAR) || out.equals(OutputFormat.DOCKER_IMAGE_BOOTABLE_JAR)));
     }
 
+    private ScanModelCache.Model buildModel(GalleonProvisioningConfig config, UniverseResolver universeResolver,
+            Provisioning provisioning, String version, Set<String> spaces) throws Exception {
+        long phaseStart = System.nanoTime();
+        Map<FeaturePackLocation.FPID, Set<FeaturePackLocation.ProducerSpec>> fpDependencies = new HashMap<>();
+        Map<String, Layer> all
+                = Utils.getAllLayers(config, universeResolver, provisioning, fpDependencies, metrics);
+        metrics.record(ScanMetrics.Phase.LAYERS, phaseStart);
+        phaseStart = System.nanoTime();
+        LayerMapping mapping = Utils.buildMapping(layerConfigurationprovider, version, spaces, arguments.getExecutionContext(),
+                arguments.getServerVariant(), all, arguments.getExecutionProfiles(), isBootableJar());
+        metrics.record(ScanMetrics.Phase.MAPPING, phaseStart);
+        return new ScanModelCache.Model(all, fpDependencies, mapping);
+    }
+
     public ScanResults scan() throws Exception {
+        long scanStart = System.nanoTime();
         if (arguments.getExecutionContext() != null) {
            if (!Arguments.EXECUTION_CONTEXTS.contains(arguments.getExecutionContext())) {
                throw new Exception("Invalid execution context " + arguments.getExecutionContext() +
@@ -237,6 +277,7 @@ public class GlowSession {
         GalleonBuilder provider = new GalleonBuilder();
         provider.addArtifactResolver(resolver);
         Provisioning provisioning = null;
+        long phaseStart = System.nanoTime();
         GalleonProvisioningConfig config = Utils.buildOfflineProvisioningConfig(provider, writer);
         Path fakeHome = Files.createTempDirectory("wildfly-glow");
         try {
@@ -272,14 +313,20 @@ public class GlowSession {
                     }
                 }
             }
+            metrics.record(ScanMetrics.Phase.METADATA, phaseStart);
 
             // Handle cases were no version is provided
             Map<ProducerSpec, FPID> fpVersions = new HashMap<>();
             Map<ProducerSpec, FPID> originalVersions = new HashMap<>();
             // Resolve feature-packs
+            phaseStart = System.nanoTime();
             GalleonProvisioningConfig.Builder outputConfigBuilder = GalleonProvisioningConfig.builder();
-            for (GalleonFeaturePackConfig dep : config.getFeaturePackDeps()) {
+            List<GalleonFeaturePackConfig> deps = new ArrayList<>(config.getFeaturePackDeps());
+            List<FeaturePackLocation.FPID> fpids = new ArrayList<>();
+            List<Callable<MavenArtifact>> resolutions = new ArrayList<>();
+            for (GalleonFeaturePackConfig dep : deps) {
                 FeaturePackLocation.FPID fpid = Utils.toMavenCoordinates(dep.getLocation().getFPID(), universeResolver);
+                fpids.add(fpid);
                 String[] coordinates = fpid.toString().split(":");
                 String groupId = coordinates[0];
                 String artifactId = coordinates[1];
@@ -292,7 +339,17 @@ public class GlowSession {
                 }
                 artifact.setVersion(version);
                 artifact.setExtension("zip");
-                resolver.resolve(artifact);
+                resolutions.add(() -> {
+                    resolver.resolve(artifact);
+                    return artifact;
+                });
+            }
+            // The feature-packs are resolved concurrently, the configuration keeps the order of the feature-packs.
+            List<MavenArtifact> artifacts = invokeAll(resolutions, arguments.getParallelism());
+            for (int i = 0; i < deps.size(); i++) {
+                GalleonFeaturePackConfig dep = deps.get(i);
+                FeaturePackLocation.FPID fpid = fpids.get(i);
+                MavenArtifact artifact = artifacts.get(i);
                 FeaturePackLocation loc = dep.getLocation().replaceBuild(artifact.getVersion());
                 GalleonFeaturePackConfig c = GalleonFeaturePackConfig.builder(loc).
                         setInheritConfigs(dep.getInheritConfigs() == null ? Boolean.FALSE : dep.getInheritConfigs()).
@@ -304,18 +361,35 @@ public class GlowSession {
                 originalVersions.put(fpid.getProducer(), fpid);
             }
             config = outputConfigBuilder.build();
+            metrics.record(ScanMetrics.Phase.FEATURE_PACKS, phaseStart);
             // BUILD MODEL
-            Map<FeaturePackLocation.FPID, Set<FeaturePackLocation.ProducerSpec>> fpDependencies = new HashMap<>();
-            Map<String, Layer> all
-                    = Utils.getAllLayers(config, universeResolver, provisioning, fpDependencies);
             Set<String> spaces = new TreeSet<>();
             spaces.add(Space.DEFAULT.getName());
             if(arguments.getSpaces() != null && !arguments.getSpaces().isEmpty()) {
                 spaces.addAll(arguments.getSpaces());
             }
-            LayerMapping mapping = Utils.buildMapping(layerConfigurationprovider,
-                    arguments.getVersion() == null ? metadataProvider.getLatestVersion() : arguments.getVersion(), spaces, arguments.getExecutionContext(), arguments.getServerVariant(),
-                    all, arguments.getExecutionProfiles(), isBootableJar());
+            String serverVersion = arguments.getVersion() == null ? metadataProvider.getLatestVersion() : arguments.getVersion();
+            GalleonProvisioningConfig modelConfig = config;
+            Provisioning modelProvisioning = provisioning;
+            Callable<ScanModelCache.Model> modelBuilder = () -> buildModel(modelConfig, universeResolver, modelProvisioning, serverVersion, spaces);
+            ScanModelCache.Model model;
+            if (arguments.getModelCache() == null) {
+                model = modelBuilder.call();
+            } else {
+                AtomicBoolean built = new AtomicBoolean();
+                model = arguments.getModelCache().get(ScanModelCache.key(config, serverVersion, spaces, arguments.getExecutionContext(),
+                        arguments.getServerVariant(), arguments.getExecutionProfiles(), isBootableJar(), layerConfigurationprovider), () -> {
+                            built.set(true);
+                            return modelBuilder.call();
+                        });
+                if (!built.get()) {
+                    metrics.increment(ScanMetrics.Counter.CACHE_HITS);
+                }
+            }
+            Map<FeaturePackLocation.FPID, Set<FeaturePackLocation.ProducerSpec>> fpDependencies = model.getFpDependencies();
+            Map<String, Layer> all = model.getLayers();
+            LayerMapping mapping = model.getMapping();
+            ScanEvidence evidence = new ScanEvidence(mapping);
             if (mapping.getDefaultBaseLayer() == null) {
                 throw new IllegalArgumentException("No base layer found, server version is not supported. "
                         + "You must upgrade to a more recent server version.");
@@ -337,21 +411,19 @@ public class GlowSession {
             // END VALIDATE USER INPUTS
 
             // DISCOVERY
+            phaseStart = System.nanoTime();
             if (arguments.getBinaries() != null && !arguments.getBinaries().isEmpty()) {
                 Path windup = WindupSupport.getWindupMapping();
                 if (windup == null) {
-                    for (Path d : arguments.getBinaries()) {
-                        //System.out.println("SCAN " + d);
-                        try (DeploymentScanner deploymentScanner = new DeploymentScanner(d, arguments.isVerbose(), arguments.getExcludeArchivesFromScan())) {
-                            deploymentScanner.scan(mapping, layers, all, errorSession);
-                        }
-                    }
+                    scanDeployments(arguments, mapping, layers, all, evidence, errorSession, metrics, profiler);
                 } else {
                     for (Path d : arguments.getBinaries()) {
                         layers.addAll(WindupSupport.getLayers(all, windup, d));
                     }
                 }
             }
+            metrics.record(ScanMetrics.Phase.DEPLOYMENTS, phaseStart);
+            phaseStart = System.nanoTime();
 
             if (!arguments.getManualLayers().isEmpty()) {
                 for (String manualLayer : arguments.getManualLayers()) {
@@ -363,7 +435,7 @@ public class GlowSession {
                         throw new IllegalArgumentException("Layer '" + foundLayer + "' manually added has already been discovered in the deployment. It must be removed.");
                     }
                     layers.add(foundLayer);
-                    LayerMapping.addRule(LayerMapping.RULE.EXPLICIT, foundLayer, null);
+                    evidence.addRule(LayerMapping.RULE.EXPLICIT, foundLayer, null);
                 }
             }
 
@@ -377,20 +449,21 @@ public class GlowSession {
                         throw new IllegalArgumentException("Layer '" + layer + "' added due to JNDI lookup has already been discovered in the deployment. It must be removed.");
                     }
                     layers.add(foundLayer);
-                    LayerMapping.addRule(LayerMapping.RULE.EXPLICIT, foundLayer, null);
+                    evidence.addRule(LayerMapping.RULE.EXPLICIT, foundLayer, null);
                 }
             }
 
-            Map<Layer, Set<Layer>> ret = findBaseLayer(mapping, all);
+            LayerGraph graph = new LayerGraph(all);
+            Map<Layer, BitSet> ret = findBaseLayer(mapping, all, graph);
             Layer baseLayer = ret.keySet().iterator().next();
-            LayerMapping.addRule(LayerMapping.RULE.BASE_LAYER, baseLayer, null);
+            evidence.addRule(LayerMapping.RULE.BASE_LAYER, baseLayer, null);
             // We create a set of all fine grain layers from the basic layers
             // Needed to identify layers that could be required to be excluded due to profile.
-            Set<Layer> allBaseLayers = new TreeSet<>();
-            allBaseLayers.addAll(layers);
-            allBaseLayers.addAll(Utils.getTransitiveDependencies(all, baseLayer, new HashSet<>()));
+            // The discovery is done on the layer ids.
+            BitSet baseLayerIds = graph.toBitSet(layers);
+            baseLayerIds.or(graph.getTransitiveDependencies(baseLayer));
             for (Layer s : layers) {
-                allBaseLayers.addAll(Utils.getTransitiveDependencies(all, s, new HashSet<>()));
+                baseLayerIds.or(graph.getTransitiveDependencies(s));
             }
 
             // Force layers inclusion when add-on explicitly enabled.
@@ -398,13 +471,13 @@ public class GlowSession {
                 boolean enabled = arguments.getUserEnabledAddOns().contains(addOn.getName());
                 if (enabled) {
                     for (Layer l : addOn.getLayers()) {
-                        if (!l.isBanned()) {
+                        if (!evidence.isBanned(l)) {
                             layers.add(l);
-                            LayerMapping.addRule(LayerMapping.RULE.ADD_ON, l, null);
-                            allBaseLayers.add(l);
+                            evidence.addRule(LayerMapping.RULE.ADD_ON, l, null);
+                            baseLayerIds.set(graph.getId(l));
                             Set<Layer> dependencies = all.get(l.getName()).getDependencies();
                             layers.addAll(dependencies);
-                            allBaseLayers.addAll(dependencies);
+                            baseLayerIds.or(graph.getDependencies(l));
                         }
                     }
                 }
@@ -414,12 +487,12 @@ public class GlowSession {
                 AddOn addOn = mapping.getAddOns().get(addOnName);
                 boolean enabled = arguments.getUserEnabledAddOns().contains(addOn.getName());
                 for (Layer layer : addOn.getLayersThatExpectAllDependencies()) {
-                    if (!allBaseLayers.contains(layer) && !layer.isBanned()) {
-                        if (allBaseLayers.containsAll(layer.getDependencies())) {
+                    if (!baseLayerIds.get(graph.getId(layer)) && !evidence.isBanned(layer)) {
+                        if (LayerGraph.containsAll(baseLayerIds, graph.getDependencies(layer))) {
                             if (enabled) {
                                 layers.add(layer);
-                                allBaseLayers.add(layer);
-                                LayerMapping.addRule(LayerMapping.RULE.ADD_ON_REQUIRED_DEPENDENCIES_FOUND, layer, null);
+                                baseLayerIds.set(graph.getId(layer));
+                                evidence.addRule(LayerMapping.RULE.ADD_ON_REQUIRED_DEPENDENCIES_FOUND, layer, null);
                             } else {
                                 possibleAddOns.add(addOn);
                             }
@@ -427,13 +500,13 @@ public class GlowSession {
                     }
                 }
                 for (Layer layer : addOn.getLayersThatExpectSomeDependencies().keySet()) {
-                    if (!allBaseLayers.contains(layer) && !layer.isBanned()) {
+                    if (!baseLayerIds.get(graph.getId(layer)) && !evidence.isBanned(layer)) {
                         Set<Layer> expectDeps = addOn.getLayersThatExpectSomeDependencies().get(layer);
-                        if (expectDeps != null && allBaseLayers.containsAll(expectDeps)) {
+                        if (expectDeps != null && LayerGraph.containsAll(baseLayerIds, graph.toBitSet(expectDeps))) {
                             if (enabled) {
                                 layers.add(layer);
-                                allBaseLayers.add(layer);
-                                LayerMapping.addRule(LayerMapping.RULE.ADD_ON_REQUIRED_DEPENDENCIES_FOUND, layer, null);
+                                baseLayerIds.set(graph.getId(layer));
+                                evidence.addRule(LayerMapping.RULE.ADD_ON_REQUIRED_DEPENDENCIES_FOUND, layer, null);
                             } else {
                                 possibleAddOns.add(addOn);
                             }
@@ -441,10 +514,10 @@ public class GlowSession {
                     }
                 }
                 for (Layer layer : addOn.getLayersAlwaysIncluded()) {
-                    if (enabled && !layer.isBanned()) {
+                    if (enabled && !evidence.isBanned(layer)) {
                         layers.add(layer);
-                        allBaseLayers.add(layer);
-                        LayerMapping.addRule(LayerMapping.RULE.ADD_ON_ALWAYS_INCLUDED, layer, null);
+                        baseLayerIds.set(graph.getId(layer));
+                        evidence.addRule(LayerMapping.RULE.ADD_ON_ALWAYS_INCLUDED, layer, null);
                     } else {
                         possibleAddOns.add(addOn);
                     }
@@ -453,31 +526,33 @@ public class GlowSession {
 
             // Add Layers that are included if all there dependencies have been included
             for (Layer layer : mapping.getLayersIncludedIfAllDeps()) {
-                if (!allBaseLayers.contains(layer) && !layer.isBanned()) {
-                    if (allBaseLayers.containsAll(layer.getDependencies())) {
+                if (!baseLayerIds.get(graph.getId(layer)) && !evidence.isBanned(layer)) {
+                    if (LayerGraph.containsAll(baseLayerIds, graph.getDependencies(layer))) {
                         layers.add(layer);
-                        allBaseLayers.add(layer);
-                        LayerMapping.addRule(LayerMapping.RULE.ADD_ON_REQUIRED_DEPENDENCIES_FOUND, layer, null);
+                        baseLayerIds.set(graph.getId(layer));
+                        evidence.addRule(LayerMapping.RULE.ADD_ON_REQUIRED_DEPENDENCIES_FOUND, layer, null);
                     }
                 }
             }
             // Add Layers that are included if some of there dependencies have been included
             for (Layer layer : mapping.getLayersIncludedIfSomeDeps().keySet()) {
-                if (!allBaseLayers.contains(layer) && !layer.isBanned()) {
-                    if (allBaseLayers.containsAll(mapping.getLayersIncludedIfSomeDeps().get(layer))) {
+                if (!baseLayerIds.get(graph.getId(layer)) && !evidence.isBanned(layer)) {
+                    BitSet expectDeps = graph.toBitSetByName(mapping.getLayersIncludedIfSomeDeps().get(layer));
+                    if (expectDeps != null && LayerGraph.containsAll(baseLayerIds, expectDeps)) {
                         layers.add(layer);
-                        allBaseLayers.add(layer);
-                        LayerMapping.addRule(LayerMapping.RULE.ADD_ON_REQUIRED_DEPENDENCIES_FOUND, layer, null);
+                        baseLayerIds.set(graph.getId(layer));
+                        evidence.addRule(LayerMapping.RULE.ADD_ON_REQUIRED_DEPENDENCIES_FOUND, layer, null);
                     }
                 }
             }
             // Add layers that are included at the FP level (model.xml).
             for (Layer layer : all.values()) {
-                if (layer.isIsAutomaticInjection() && !layer.isBanned()) {
-                    allBaseLayers.add(layer);
-                    LayerMapping.addRule(LayerMapping.RULE.ALWAYS_INCLUDED, layer, null);
+                if (layer.isIsAutomaticInjection() && !evidence.isBanned(layer)) {
+                    baseLayerIds.set(graph.getId(layer));
+                    evidence.addRule(LayerMapping.RULE.ALWAYS_INCLUDED, layer, null);
                 }
             }
+            Set<Layer> allBaseLayers = graph.toLayers(baseLayerIds);
             // END DISCOVERY
 
             // PROFILES
@@ -500,16 +575,16 @@ public class GlowSession {
                 Layer toInclude = mapping.getActiveProfilesLayers().get(l.getName());
                 if (toInclude != null) {
                     profileLayers.add(toInclude);
-                    LayerMapping.addRule(LayerMapping.RULE.PROFILE_INCLUDED, toInclude, null);
+                    evidence.addRule(LayerMapping.RULE.PROFILE_INCLUDED, toInclude, null);
                     excludedLayers.add(l);
-                    LayerMapping.addRule(LayerMapping.RULE.PROFILE_EXCLUDED, l, null);
+                    evidence.addRule(LayerMapping.RULE.PROFILE_EXCLUDED, l, null);
                 }
             }
             // Order is important. Decorators must be added first.
             // Then layers bound to a profile
             Set<Layer> decorators = new LinkedHashSet<>();
             for (Layer s : layers) {
-                if (!ret.get(baseLayer).contains(s)) {
+                if (!ret.get(baseLayer).get(graph.getId(s))) {
                     decorators.add(s);
                 }
             }
@@ -541,7 +616,7 @@ public class GlowSession {
             }
             // Fix addOns
             Map<AddOn, String> disabledAddOns = new TreeMap<>();
-            fixAddOns(errorSession, layers, mapping, allEnabledAddOns, possibleAddOns, disabledAddOns, arguments);
+            fixAddOns(errorSession, evidence, layers, mapping, allEnabledAddOns, possibleAddOns, disabledAddOns, arguments);
             // END ADD-ON
 
             // DECORATORS CLEANUP
@@ -555,8 +630,7 @@ public class GlowSession {
                     if (l.equals(s)) {
                         continue;
                     }
-                    Set<Layer> deps = Utils.getTransitiveDependencies(all, s, new HashSet<>());
-                    if (deps.contains(l)) {
+                    if (graph.getTransitiveDependencies(s).get(graph.getId(l))) {
                         it.remove();
                         break;
                     }
@@ -574,13 +648,13 @@ public class GlowSession {
             Map<Layer, Set<Env>> buildTimeRequiredConfigurations = new TreeMap<>();
             for (Layer l : allBaseLayers) {
                 if (!excludedLayers.contains(l)) {
-                    if (!l.getConfiguration().isEmpty()) {
+                    if (!evidence.getConfiguration(l).isEmpty()) {
                         if (layers.contains(l)) {
                             Set<Env> requiredSet = new TreeSet<>();
                             Set<Env> notRequiredSet = new TreeSet<>();
                             Set<Env> buildTimeSet = new TreeSet<>();
                             Set<Env> buildTimeRequiredSet = new TreeSet<>();
-                            for (String c : l.getConfiguration()) {
+                            for (String c : evidence.getConfiguration(l)) {
                                 URI uri = new URI(c);
                                 Set<Env> envs = EnvHandler.retrieveEnv(uri);
                                 for (Env e : envs) {
@@ -617,7 +691,7 @@ public class GlowSession {
                             }
                         } else {
                             Set<Env> envs = new TreeSet<>();
-                            for (String c : l.getConfiguration()) {
+                            for (String c : evidence.getConfiguration(l)) {
                                 envs.addAll(EnvHandler.retrieveEnv(new URI(c)));
                             }
                             suggestedConfigurations.put(l, envs);
@@ -639,7 +713,7 @@ public class GlowSession {
             }
             // END cleanup
 
-            Map<Layer, Set<Env>> stronglySuggestConfigFixes = errorSession.refreshErrors(allBaseLayers, mapping, allEnabledAddOns);
+            Map<Layer, Set<Env>> stronglySuggestConfigFixes = errorSession.refreshErrors(allBaseLayers, mapping, allEnabledAddOns, evidence);
             for(Layer l : stronglySuggestConfigFixes.keySet()) {
                 Set<Env> envs = stronglySuggestedConfigurations.get(l);
                 if(envs == null) {
@@ -653,49 +727,41 @@ public class GlowSession {
                     universeResolver, allBaseLayers, baseLayer, decorators, excludedLayers,
                     fpDependencies, arguments.getConfigName(), arguments.getConfigStability(),
                     arguments.getPackageStability(), originalVersions, arguments.isDisableForkEmbedded(), requiredFeaturePacks);
+            metrics.record(ScanMetrics.Phase.DISCOVERY, phaseStart);
 
             // Handle stability
+            phaseStart = System.nanoTime();
             String configStability = arguments.getConfigStability() == null ? arguments.getDefaultConfigStability() : arguments.getConfigStability();
             if (configStability != null) {
                 List<Layer> checkLayers = new ArrayList<>();
                 checkLayers.add(baseLayer);
                 checkLayers.addAll(decorators);
+                // The stabilities of the features of each layer, only the layers not already inventoried for the
+                // active feature-packs are provisioned.
+                FeatureStabilityCache stabilityCache = FeatureStabilityCache.newInstance();
+                String stabilityKey = stabilityCache == null ? null : LayerModelCache.key(activeConfig);
+                Map<String, Map<String, String>> inventory = stabilityKey == null ? new HashMap<>() : stabilityCache.load(stabilityKey);
+                boolean inventoryUpdated = false;
                 // Retrieve the features of each layer
+                disableCapabilitiesCheck();
                 try {
-                    System.setProperty(GALLEON_DISABLE_CAPABILITIES_CHECK_PROPERTY, "true");
                     for (Layer layer : checkLayers) {
                         try {
-                            GalleonConfigurationWithLayers configLayers = GalleonConfigurationWithLayersBuilder.builder("standalone", "standalone.xml").includeLayer(layer.getName()).build();
-                            GalleonProvisioningConfig.Builder config2Builder = GalleonProvisioningConfig.builder().addConfig(configLayers).addOption(Constants.CONFIG_STABILITY_LEVEL, Constants.STABILITY_EXPERIMENTAL);
-                            for (GalleonFeaturePackConfig fp : activeConfig.getFeaturePackDeps()) {
-                                config2Builder.addFeaturePackDep(GalleonFeaturePackConfig.
-                                        builder(fp.getLocation(), false).setInheritConfigs(false).build());
+                            Map<String, String> stabilities = inventory.get(layer.getName());
+                            if (stabilities == null) {
+                                stabilities = getFeatureStabilities(provisioning, activeConfig, layer);
+                                inventory.put(layer.getName(), stabilities);
+                                inventoryUpdated = true;
+                                if (stabilityKey != null) {
+                                    metrics.increment(ScanMetrics.Counter.CACHE_MISSES);
+                                }
+                            } else {
+                                metrics.increment(ScanMetrics.Counter.CACHE_HITS);
                             }
-                            GalleonProvisioningConfig config2 = config2Builder.build();
-
-                            try (GalleonProvisioningRuntime rt = provisioning.getProvisioningRuntime(config2)) {
-                                List<GalleonFeatureSpec> lst = rt.getAllFeatures();
-                                for (GalleonFeatureSpec spec : lst) {
-                                    String stab = spec.getStability();
-                                    if (stab != null && !StabilitySupport.enables(configStability, stab)) {
-                                        Set<String> set = excludedFeatures.get(layer);
-                                        if (set == null) {
-                                            set = new HashSet<>();
-                                            excludedFeatures.put(layer, set);
-                                        }
-                                        set.add(spec.getName() + "[stability=" + spec.getStability() + "]");
-                                    }
-                                    for (GalleonFeatureParamSpec pspec : spec.getParams()) {
-                                        String pstab = pspec.getStability();
-                                        if (pstab != null && !StabilitySupport.enables(configStability, pstab)) {
-                                            Set<String> set = excludedFeatures.get(layer);
-                                            if (set == null) {
-                                                set = new HashSet<>();
-                                                excludedFeatures.put(layer, set);
-                                            }
-                                            set.add(spec.getName() + "." + pspec.getName() + "[stability=" + pspec.getStability() + "]");
-                                        }
-                                    }
+                            for (Entry<String, String> entry : stabilities.entrySet()) {
+                                if (!StabilitySupport.enables(configStability, entry.getValue())) {
+                                    excludedFeatures.computeIfAbsent(layer, (value) -> new HashSet<>()).
+                                            add(entry.getKey() + "[stability=" + entry.getValue() + "]");
                                 }
                             }
                         } catch (Exception ex) {
@@ -706,7 +772,10 @@ public class GlowSession {
                         }
                     }
                 } finally {
-                    System.clearProperty(GALLEON_DISABLE_CAPABILITIES_CHECK_PROPERTY);
+                    enableCapabilitiesCheck();
+                }
+                if (inventoryUpdated && stabilityKey != null) {
+                    stabilityCache.store(stabilityKey, inventory);
                 }
             }
             if(arguments.getPackageStability() != null) {
@@ -727,6 +796,7 @@ public class GlowSession {
                     }
                 }
             }
+            metrics.record(ScanMetrics.Phase.STABILITY, phaseStart);
             Suggestions suggestions = new Suggestions(suggestedConfigurations,
                     stronglySuggestedConfigurations, buildTimeConfigurations, buildTimeRequiredConfigurations, possibleAddOns, possibleProfiles);
             ScanResults scanResults = new ScanResults(
@@ -741,13 +811,17 @@ public class GlowSession {
                     allEnabledAddOns,
                     disabledAddOns,
                     suggestions,
+                    evidence,
                     errorSession,
                     excludedPackages,
                     excludedFeatures,
                     fpVersions,
                     channels,
-                    tmpMetadataDirectory
+                    tmpMetadataDirectory,
+                    metrics,
+                    profiler
             );
+            metrics.record(ScanMetrics.Phase.SCAN, scanStart);
 
             return scanResults;
         } catch (Exception ex) {
@@ -780,6 +854,15 @@ public class GlowSession {
     }
 
     OutputContent outputConfig(ScanResults scanResults, Path target, String dockerImageName) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return generateOutput(scanResults, target, dockerImageName);
+        } finally {
+            metrics.record(ScanMetrics.Phase.PROVISIONING, start);
+        }
+    }
+
+    private OutputContent generateOutput(ScanResults scanResults, Path target, String dockerImageName) throws Exception {
         Provisioning provisioning = scanResults.getProvisioning();
         if (arguments.getOutput() == null) {
             throw new IllegalStateException("No output format set");
@@ -972,7 +1055,116 @@ public class GlowSession {
         return ret;
     }
 
+    /**
+     * Disable the Galleon capabilities check until the last concurrent scan
+     * enables it again, the previous value of the property is then restored.
+     */
+    private static void disableCapabilitiesCheck() {
+        synchronized (CAPABILITIES_CHECK_LOCK) {
+            if (capabilitiesCheckDisabled == 0) {
+                capabilitiesCheckProperty = System.setProperty(GALLEON_DISABLE_CAPABILITIES_CHECK_PROPERTY, "true");
+            }
+            capabilitiesCheckDisabled += 1;
+        }
+    }
+
+    private static void enableCapabilitiesCheck() {
+        synchronized (CAPABILITIES_CHECK_LOCK) {
+            capabilitiesCheckDisabled -= 1;
+            if (capabilitiesCheckDisabled == 0) {
+                if (capabilitiesCheckProperty == null) {
+                    System.clearProperty(GALLEON_DISABLE_CAPABILITIES_CHECK_PROPERTY);
+                } else {
+                    System.setProperty(GALLEON_DISABLE_CAPABILITIES_CHECK_PROPERTY, capabilitiesCheckProperty);
+                }
+            }
+        }
+    }
+
+    /**
+     * Run the tasks on at most parallelism threads.
+     *
+     * @return The results, in the order of the tasks.
+     */
+    private static <T> List<T> invokeAll(List<Callable<T>> tasks, int parallelism) throws Exception {
+        List<T> results = new ArrayList<>();
+        int threads = Math.min(parallelism, tasks.size());
+        if (threads <= 1) {
+            for (Callable<T> task : tasks) {
+                results.add(task.call());
+            }
+            return results;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<T> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof Exception) {
+                        throw (Exception) ex.getCause();
+                    }
+                    throw ex;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    private static void scanDeployments(ScanArguments arguments, LayerMapping mapping, Set<Layer> layers,
+            Map<String, Layer> all, ScanEvidence evidence, ErrorIdentificationSession errorSession, ScanMetrics metrics,
+            RuleProfiler profiler) throws Exception {
+        List<Path> binaries = arguments.getBinaries();
+        int concurrentScans = Math.min(arguments.getParallelism(), binaries.size());
+        // The threads that are not scanning deployments are used to analyze the classes of each deployment.
+        int scannerParallelism = Math.max(1, arguments.getParallelism() / concurrentScans);
+        List<DeploymentScanner> scanners = new ArrayList<>();
+        ExecutorService executor = concurrentScans > 1 ? Executors.newFixedThreadPool(concurrentScans) : null;
+        try {
+            for (Path d : binaries) {
+                scanners.add(new DeploymentScanner(d, arguments.isVerbose(), arguments.getExcludeArchivesFromScan(), scannerParallelism, metrics, profiler));
+            }
+            if (executor == null) {
+                for (DeploymentScanner deploymentScanner : scanners) {
+                    deploymentScanner.scan(mapping, layers, all, evidence, errorSession);
+                }
+            } else {
+                // Deployments are scanned concurrently, what has been discovered is applied in the order of the deployments.
+                List<Future<DeploymentScanner.DeploymentScanContext>> futures = new ArrayList<>();
+                for (DeploymentScanner deploymentScanner : scanners) {
+                    futures.add(executor.submit(() -> deploymentScanner.collect(mapping, all)));
+                }
+                for (int i = 0; i < scanners.size(); i++) {
+                    DeploymentScanner.DeploymentScanContext ctx;
+                    try {
+                        ctx = futures.get(i).get();
+                    } catch (ExecutionException ex) {
+                        if (ex.getCause() instanceof Exception) {
+                            throw (Exception) ex.getCause();
+                        }
+                        throw ex;
+                    }
+                    scanners.get(i).apply(ctx, layers, evidence, errorSession);
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            for (DeploymentScanner deploymentScanner : scanners) {
+                deploymentScanner.close();
+            }
+        }
+    }
+
     private static void fixAddOns(ErrorIdentificationSession errorSession,
+            ScanEvidence evidence,
             Set<Layer> layers,
             LayerMapping mapping,
             Set<AddOn> allEnabledAddOns,
@@ -1115,7 +1307,7 @@ public class GlowSession {
             StringBuilder builder = new StringBuilder();
             for (AddOn ao : addons) {
                 if (arguments.getUserEnabledAddOns().contains(ao.getName())) {
-                    builder.append(Utils.getAddOnFix(ao, null));
+                    builder.append(Utils.getAddOnFix(ao, null, evidence));
                 }
             }
             if (builder.length() != 0) {
@@ -1266,18 +1458,50 @@ public class GlowSession {
         return activeConfigBuilder.build();
     }
 
+    /**
+     * Provision the layer to retrieve the stability of its features.
+     *
+     * @return The features and feature parameters that have a stability, with their stability.
+     */
+    private static Map<String, String> getFeatureStabilities(Provisioning provisioning, GalleonProvisioningConfig activeConfig,
+            Layer layer) throws Exception {
+        GalleonConfigurationWithLayers configLayers = GalleonConfigurationWithLayersBuilder.builder("standalone", "standalone.xml").includeLayer(layer.getName()).build();
+        GalleonProvisioningConfig.Builder config2Builder = GalleonProvisioningConfig.builder().addConfig(configLayers).addOption(Constants.CONFIG_STABILITY_LEVEL, Constants.STABILITY_EXPERIMENTAL);
+        for (GalleonFeaturePackConfig fp : activeConfig.getFeaturePackDeps()) {
+            config2Builder.addFeaturePackDep(GalleonFeaturePackConfig.
+                    builder(fp.getLocation(), false).setInheritConfigs(false).build());
+        }
+        GalleonProvisioningConfig config2 = config2Builder.build();
+        Map<String, String> stabilities = new LinkedHashMap<>();
+        try (GalleonProvisioningRuntime rt = provisioning.getProvisioningRuntime(config2)) {
+            for (GalleonFeatureSpec spec : rt.getAllFeatures()) {
+                String stab = spec.getStability();
+                if (stab != null) {
+                    stabilities.put(spec.getName(), stab);
+                }
+                for (GalleonFeatureParamSpec pspec : spec.getParams()) {
+                    String pstab = pspec.getStability();
+                    if (pstab != null) {
+                        stabilities.put(spec.getName() + "." + pspec.getName(), pstab);
+                    }
+                }
+            }
+        }
+        return stabilities;
+    }
+
     // Only use the default base layer
-    private static Map<Layer, Set<Layer>> findBaseLayer(LayerMapping mapping, Map<String, Layer> all) {
+    private static Map<Layer, BitSet> findBaseLayer(LayerMapping mapping, Map<String, Layer> all, LayerGraph graph) {
         //Identify servers
-        Map<Layer, Set<Layer>> roots = new HashMap<>();
+        Map<Layer, BitSet> roots = new HashMap<>();
         for (String k : all.keySet()) {
             Layer layer = all.get(k);
             String kind = layer.getProperties().get(LayerMetadata.KIND);
             if (kind != null && (kind.equals("base-layer") || kind.equals("default-base-layer"))) {
-                roots.put(layer, Utils.getTransitiveDependencies(all, layer, new HashSet<>()));
+                roots.put(layer, graph.getTransitiveDependencies(layer));
             }
         }
-        Map<Layer, Set<Layer>> ret = new HashMap<>();
+        Map<Layer, BitSet> ret = new HashMap<>();
         ret.put(mapping.getDefaultBaseLayer(), roots.get(mapping.getDefaultBaseLayer()));
         return ret;
     }
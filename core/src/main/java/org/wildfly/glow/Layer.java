@@ -19,6 +19,7 @@ package org.wildfly.glow;
 
 import org.jboss.galleon.universe.FeaturePackLocation.FPID;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -27,25 +28,50 @@ import java.util.Set;
 import java.util.TreeSet;
 
 /**
+ * A layer of the model built from the feature-packs. A layer is immutable, it
+ * can be shared by the scans of a long running process. The dependencies and
+ * the add-on reference other layers, they are set once all the layers of the
+ * model have been created.
  *
  * @author jdenise
  */
 public class Layer implements Comparable<Layer> {
 
     private final String name;
-    private final Set<Layer> dependencies = new TreeSet<>();
-    private final Map<String, String> properties = new HashMap<>();
-    private final Map<LayerMapping.RULE, Set<String>> matchingRules = new HashMap<>();
-    private final Set<FPID> featurePacks = new HashSet<>();
+    private final Map<String, String> properties;
+    private final Set<FPID> featurePacks;
+    private final boolean isAutomaticInjection;
+    private final Set<String> bringDatasources;
+    private final String expectFamily;
+    private Set<Layer> dependencies = Collections.emptySet();
     private AddOn addOn;
-    private final Set<String> bringDatasources = new TreeSet<>();
-    private boolean isAutomaticInjection;
-    private final Set<String> configuration = new TreeSet<>();
-    private String expectFamily;
-    private boolean banned;
+    private boolean linked;
 
     Layer(String name) {
+        this(name, Collections.emptyMap(), Collections.emptySet(), false);
+    }
+
+    Layer(String name, Map<String, String> properties, Set<FPID> featurePacks, boolean isAutomaticInjection) {
         this.name = name;
+        this.properties = Collections.unmodifiableMap(new HashMap<>(properties));
+        this.featurePacks = Collections.unmodifiableSet(new HashSet<>(featurePacks));
+        this.isAutomaticInjection = isAutomaticInjection;
+        String datasource = properties.get(LayerMetadata.BRING_DATASOURCE);
+        this.bringDatasources = datasource == null ? Collections.emptySet() : Collections.singleton(datasource);
+        this.expectFamily = properties.get(LayerMetadata.EXPECT_ADD_ON_FAMILY);
+    }
+
+    /**
+     * Set the dependencies and the add-on, once all the layers of the model
+     * have been created. A layer can only be linked once.
+     */
+    void link(Set<Layer> dependencies, AddOn addOn) {
+        if (linked) {
+            throw new IllegalStateException("Layer " + name + " is already linked");
+        }
+        this.dependencies = Collections.unmodifiableSet(new TreeSet<>(dependencies));
+        this.addOn = addOn;
+        linked = true;
     }
 
     @Override
@@ -98,13 +124,6 @@ public class Layer implements Comparable<Layer> {
         return properties;
     }
 
-    /**
-     * @return the matching rules
-     */
-    public Map<LayerMapping.RULE, Set<String>> getMatchingRules() {
-        return matchingRules;
-    }
-
     /**
      * @return the featurePacks
      */
@@ -119,13 +138,6 @@ public class Layer implements Comparable<Layer> {
         return addOn;
     }
 
-    /**
-     * @param addOn the addOn to set
-     */
-    public void setAddOn(AddOn addOn) {
-        this.addOn = addOn;
-    }
-
     /**
      * @return the bringDatasources
      */
@@ -140,20 +152,6 @@ public class Layer implements Comparable<Layer> {
         return isAutomaticInjection;
     }
 
-    /**
-     * @param isAutomaticInjection the isAutomaticInjection to set
-     */
-    public void setIsAutomaticInjection(boolean isAutomaticInjection) {
-        this.isAutomaticInjection = isAutomaticInjection;
-    }
-
-    /**
-     * @return the configuration
-     */
-    public Set<String> getConfiguration() {
-        return configuration;
-    }
-
     /**
      * @return the expectFamily
      */
@@ -161,24 +159,4 @@ public class Layer implements Comparable<Layer> {
         return expectFamily;
     }
 
-    /**
-     * @param expectFamily the expectFamily to set
-     */
-    public void setExpectFamily(String expectFamily) {
-        this.expectFamily = expectFamily;
-    }
-
-    /**
-     * @return the isBanned
-     */
-    public boolean isBanned() {
-        return banned;
-    }
-
-    /**
-     * @param isBanned the isBanned to set
-     */
-    public void setBanned(boolean isBanned) {
-        this.banned = isBanned;
-    }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The dependencies between the layers, indexed for set operations. Each layer gets an int id, the ids follow the
+ * layer names order, so iterating a set of ids visits the layers in the same order as a {@code TreeSet<Layer>}. The
+ * direct and transitive dependencies of every layer are computed once.
+ */
+final class LayerGraph {
+
+    private final List<Layer> layers;
+    private final Map<String, Integer> idsByName = new HashMap<>();
+    private final BitSet[] dependencies;
+    private final BitSet[] transitiveDependencies;
+
+    LayerGraph(Map<String, Layer> all) {
+        layers = new ArrayList<>(new TreeSet<>(all.values()));
+        for (int i = 0; i < layers.size(); i++) {
+            idsByName.put(layers.get(i).getName(), i);
+        }
+        dependencies = new BitSet[layers.size()];
+        for (int i = 0; i < layers.size(); i++) {
+            dependencies[i] = toBitSet(layers.get(i).getDependencies());
+        }
+        transitiveDependencies = new BitSet[layers.size()];
+        for (int i = 0; i < layers.size(); i++) {
+            BitSet closure = new BitSet(layers.size());
+            BitSet toVisit = (BitSet) dependencies[i].clone();
+            while (!toVisit.isEmpty()) {
+                int dep = toVisit.nextSetBit(0);
+                toVisit.clear(dep);
+                if (!closure.get(dep)) {
+                    closure.set(dep);
+                    toVisit.or(dependencies[dep]);
+                    toVisit.andNot(closure);
+                }
+            }
+            transitiveDependencies[i] = closure;
+        }
+    }
+
+    int getId(Layer layer) {
+        Integer id = idsByName.get(layer.getName());
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown layer " + layer);
+        }
+        return id;
+    }
+
+    Layer getLayer(int id) {
+        return layers.get(id);
+    }
+
+    /**
+     * @return The direct dependencies of the layer, must not be modified.
+     */
+    BitSet getDependencies(Layer layer) {
+        return dependencies[getId(layer)];
+    }
+
+    /**
+     * @return All the layers the layer depends on, directly or not, must not be modified.
+     */
+    BitSet getTransitiveDependencies(Layer layer) {
+        return transitiveDependencies[getId(layer)];
+    }
+
+    BitSet toBitSet(Collection<Layer> set) {
+        BitSet bits = new BitSet(layers.size());
+        for (Layer l : set) {
+            bits.set(getId(l));
+        }
+        return bits;
+    }
+
+    /**
+     * @return The ids of the layers, null if a layer is unknown.
+     */
+    BitSet toBitSetByName(Collection<String> names) {
+        BitSet bits = new BitSet(layers.size());
+        for (String name : names) {
+            Integer id = idsByName.get(name);
+            if (id == null) {
+                return null;
+            }
+            bits.set(id);
+        }
+        return bits;
+    }
+
+    Set<Layer> toLayers(BitSet bits) {
+        Set<Layer> set = new TreeSet<>();
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            set.add(layers.get(i));
+        }
+        return set;
+    }
+
+    /**
+     * @return true if all the layers of {@code subset} are in {@code set}.
+     */
+    static boolean containsAll(BitSet set, BitSet subset) {
+        BitSet missing = (BitSet) subset.clone();
+        missing.andNot(set);
+        return missing.isEmpty();
+    }
+}
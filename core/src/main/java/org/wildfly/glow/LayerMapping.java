@@ -17,8 +17,8 @@
  */
 package org.wildfly.glow;
 
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -69,6 +69,11 @@ public class LayerMapping {
 
     private final Map<Layer, String> noConfigurationConditions = new HashMap<>();
     private final Map<Layer, String> hiddenConditions = new HashMap<>();
+    private final Map<Layer, Map<String, String>> fileRuleProperties = new HashMap<>();
+    private final Map<Layer, Set<String>> configurations = new HashMap<>();
+    private volatile ClassNameMatcher classNameMatcher;
+    private volatile AnnotationRules annotationRules;
+    private volatile FileRules fileRules;
     /**
      * @return the constantPoolClassInfos
      */
@@ -181,6 +186,74 @@ public class LayerMapping {
         return hiddenConditions;
     }
 
+    /**
+     * The class rules compiled in a matcher. Built on first call, the class
+     * rules must not be updated afterward.
+     *
+     * @return the classNameMatcher
+     */
+    ClassNameMatcher getClassNameMatcher() {
+        ClassNameMatcher matcher = classNameMatcher;
+        if (matcher == null) {
+            synchronized (this) {
+                matcher = classNameMatcher;
+                if (matcher == null) {
+                    matcher = ClassNameMatcher.build(constantPoolClassInfos);
+                    classNameMatcher = matcher;
+                }
+            }
+        }
+        return matcher;
+    }
+
+    /**
+     * The annotation rules compiled in a table keyed by annotation name. Built
+     * on first call, the annotation rules must not be updated afterward.
+     *
+     * @return the annotationRules
+     */
+    AnnotationRules getAnnotationRules() {
+        AnnotationRules rules = annotationRules;
+        if (rules == null) {
+            synchronized (this) {
+                rules = annotationRules;
+                if (rules == null) {
+                    rules = AnnotationRules.build(this);
+                    annotationRules = rules;
+                }
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * @return the expected-file, not-expected-file, properties-file-match and
+     * xml-path properties of each layer
+     */
+    public Map<Layer, Map<String, String>> getFileRuleProperties() {
+        return fileRuleProperties;
+    }
+
+    /**
+     * The file rules parsed and indexed by file. Built on first call, the
+     * file rules must not be updated afterward.
+     *
+     * @return the fileRules
+     */
+    FileRules getFileRules() {
+        FileRules rules = fileRules;
+        if (rules == null) {
+            synchronized (this) {
+                rules = fileRules;
+                if (rules == null) {
+                    rules = FileRules.build(fileRuleProperties);
+                    fileRules = rules;
+                }
+            }
+        }
+        return rules;
+    }
+
     public Map<String, Map<String, List<AnnotationFieldValue>>> getAnnotationFieldValues() {
         return annotationFieldValues;
     }
@@ -204,20 +277,19 @@ public class LayerMapping {
         return k.startsWith(LayerMetadata.HIDDEN_IF) || k.startsWith(LayerMetadata.NO_CONFIGURATION_IF);
     }
 
-    public static void addRule(RULE rule, Set<Layer> layers, String c) {
-        for (Layer ll : layers) {
-            Set<String> set = ll.getMatchingRules().computeIfAbsent(rule, (value) -> new HashSet<>());
-            if (c != null) {
-                set.add(c);
-            }
-        }
+    /**
+     * @return The configuration URIs of the layers, for the execution context of the mapping.
+     */
+    Map<Layer, Set<String>> getConfigurations() {
+        return configurations;
     }
 
-    public static void addRule(RULE rule, Layer l, String c) {
-        Set<String> set = l.getMatchingRules().computeIfAbsent(rule, (value) -> new HashSet<>());
-        if (c != null) {
-            set.add(c);
-        }
+    /**
+     * @return The configuration URIs of the layer, for the execution context of the mapping.
+     */
+    public Set<String> getConfiguration(Layer l) {
+        Set<String> configuration = configurations.get(l);
+        return configuration == null ? Collections.emptySet() : Collections.unmodifiableSet(configuration);
     }
 
 }
@@ -0,0 +1,234 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.jboss.galleon.api.config.GalleonFeaturePackConfig;
+import org.jboss.galleon.api.config.GalleonProvisioningConfig;
+import org.jboss.galleon.universe.FeaturePackLocation;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.FeaturePackLocation.ProducerSpec;
+
+/**
+ * On disk cache of the layers loaded from a set of feature-packs. Loading the layer specs requires to resolve and open
+ * all the feature-packs, although the result only depends on the feature-packs. Entries are keyed by the SHA-256 of
+ * the sorted feature-pack locations and contain, for each layer, its properties, feature-packs, dependencies and
+ * whether it is automatically injected, as well as the dependencies between the feature-packs.
+ *
+ * The {@link LayerMapping} is not cached, it depends on the execution context, the variant and the spaces and is
+ * built from the loaded layers. Feature-packs without a version or with a SNAPSHOT version are never cached. Entries
+ * written with another format version are ignored. The cache can be disabled with the
+ * {@code org.wildfly.glow.layer.model.cache} property set to {@code false}.
+ */
+final class LayerModelCache {
+
+    static final String LAYER_MODEL_CACHE_PROPERTY = "org.wildfly.glow.layer.model.cache";
+    // To be incremented each time the content of the model or the way it is loaded changes.
+    private static final int FORMAT_VERSION = 1;
+    private static final String SUFFIX = ".layers";
+
+    private final Path directory;
+
+    LayerModelCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return The cache located in the glow cache directory, null if the cache is disabled.
+     */
+    static LayerModelCache newInstance() {
+        if ("false".equals(new HiddenPropertiesAccessor().getProperty(LAYER_MODEL_CACHE_PROPERTY))) {
+            return null;
+        }
+        return new LayerModelCache(Utils.getCacheDirectory().resolve("layer-models"));
+    }
+
+    /**
+     * @return The key of the feature-packs, null if the layers of the feature-packs can't be cached.
+     */
+    static String key(GalleonProvisioningConfig config) {
+        Set<String> locations = new HashSet<>();
+        for (GalleonFeaturePackConfig fp : config.getFeaturePackDeps()) {
+            FeaturePackLocation location = fp.getLocation();
+            if (location.getBuild() == null || location.getBuild().endsWith("SNAPSHOT")) {
+                return null;
+            }
+            locations.add(location.toString());
+        }
+        return key(locations);
+    }
+
+    /**
+     * @return The key of the feature-pack locations, whatever their order.
+     */
+    static String key(Set<String> locations) {
+        MessageDigest digest = CacheFiles.newDigest();
+        for (String location : new TreeSet<>(locations)) {
+            digest.update(location.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return CacheFiles.toHex(digest.digest());
+    }
+
+    /**
+     * @param fpDependencies Filled with the cached dependencies between the feature-packs.
+     * @return The cached layers keyed by name, null if not found or if the entry can't be read.
+     */
+    Map<String, Layer> load(String key, Map<FPID, Set<ProducerSpec>> fpDependencies) {
+        Path file = directory.resolve(key + SUFFIX);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            byte[] content;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (!CacheFiles.readHeader(in, FORMAT_VERSION)) {
+                    return null;
+                }
+                content = in.readAllBytes();
+            }
+            return read(content, fpDependencies);
+        } catch (IOException | RuntimeException ex) {
+            // Corrupted entry, the layers are loaded from the feature-packs.
+            return null;
+        }
+    }
+
+    private static Map<String, Layer> read(byte[] content, Map<FPID, Set<ProducerSpec>> fpDependencies) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(content))) {
+            Map<String, FPID> fpids = new HashMap<>();
+            int numLayers = in.readInt();
+            Map<String, Layer> layers = new HashMap<>();
+            Map<String, List<String>> dependencies = new HashMap<>();
+            for (int i = 0; i < numLayers; i++) {
+                String name = in.readUTF();
+                boolean isAutomaticInjection = in.readBoolean();
+                int numProperties = in.readInt();
+                Map<String, String> properties = new HashMap<>();
+                for (int j = 0; j < numProperties; j++) {
+                    properties.put(in.readUTF(), in.readUTF());
+                }
+                Set<FPID> featurePacks = new HashSet<>();
+                for (String fpid : readStrings(in)) {
+                    featurePacks.add(fpids.computeIfAbsent(fpid, (s) -> FeaturePackLocation.fromString(s).getFPID()));
+                }
+                dependencies.put(name, readStrings(in));
+                layers.put(name, new Layer(name, properties, featurePacks, isAutomaticInjection));
+            }
+            Map<FPID, Set<ProducerSpec>> cachedFpDependencies = new HashMap<>();
+            int numFps = in.readInt();
+            for (int i = 0; i < numFps; i++) {
+                String fpid = in.readUTF();
+                Set<ProducerSpec> producers = new HashSet<>();
+                for (String producer : readStrings(in)) {
+                    producers.add(FeaturePackLocation.fromString(producer).getProducer());
+                }
+                cachedFpDependencies.put(fpids.computeIfAbsent(fpid, (s) -> FeaturePackLocation.fromString(s).getFPID()), producers);
+            }
+            Utils.linkLayers(layers, dependencies);
+            for (Map.Entry<FPID, Set<ProducerSpec>> entry : cachedFpDependencies.entrySet()) {
+                fpDependencies.computeIfAbsent(entry.getKey(), (value) -> new HashSet<>()).addAll(entry.getValue());
+            }
+            return layers;
+        }
+    }
+
+    /**
+     * Store the layers loaded from the feature-packs. Nothing is stored if a feature-pack or a producer can't be
+     * restored from its string representation.
+     */
+    void store(String key, Map<String, Layer> layers, Map<FPID, Set<ProducerSpec>> fpDependencies) {
+        try {
+            for (Layer l : layers.values()) {
+                for (FPID fpid : l.getFeaturePacks()) {
+                    if (!canRestore(fpid)) {
+                        return;
+                    }
+                }
+            }
+            for (Map.Entry<FPID, Set<ProducerSpec>> entry : fpDependencies.entrySet()) {
+                if (!canRestore(entry.getKey())) {
+                    return;
+                }
+                for (ProducerSpec producer : entry.getValue()) {
+                    if (!producer.equals(FeaturePackLocation.fromString(producer.toString()).getProducer())) {
+                        return;
+                    }
+                }
+            }
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(content)) {
+                out.writeInt(layers.size());
+                for (Layer l : layers.values()) {
+                    out.writeUTF(l.getName());
+                    out.writeBoolean(l.isIsAutomaticInjection());
+                    out.writeInt(l.getProperties().size());
+                    for (Map.Entry<String, String> property : l.getProperties().entrySet()) {
+                        out.writeUTF(property.getKey());
+                        out.writeUTF(property.getValue());
+                    }
+                    List<String> fpids = new ArrayList<>();
+                    for (FPID fpid : l.getFeaturePacks()) {
+                        fpids.add(fpid.toString());
+                    }
+                    writeStrings(out, fpids);
+                    List<String> dependencies = new ArrayList<>();
+                    for (Layer dep : l.getDependencies()) {
+                        dependencies.add(dep.getName());
+                    }
+                    writeStrings(out, dependencies);
+                }
+                out.writeInt(fpDependencies.size());
+                for (Map.Entry<FPID, Set<ProducerSpec>> entry : fpDependencies.entrySet()) {
+                    out.writeUTF(entry.getKey().toString());
+                    List<String> producers = new ArrayList<>();
+                    for (ProducerSpec producer : entry.getValue()) {
+                        producers.add(producer.toString());
+                    }
+                    writeStrings(out, producers);
+                }
+            }
+            CacheFiles.store(directory, key + SUFFIX, FORMAT_VERSION, out -> content.writeTo(out));
+        } catch (IOException | RuntimeException ex) {
+            // The cache is an optimization, failing to write an entry is not an error.
+        }
+    }
+
+    private static boolean canRestore(FPID fpid) {
+        return fpid.equals(FeaturePackLocation.fromString(fpid.toString()).getFPID());
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<String> strings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            strings.add(in.readUTF());
+        }
+        return strings;
+    }
+}
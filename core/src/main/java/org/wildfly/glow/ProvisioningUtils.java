@@ -23,6 +23,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import org.jboss.galleon.api.GalleonBuilder;
 import org.jboss.galleon.api.Provisioning;
 import org.jboss.galleon.api.config.GalleonProvisioningConfig;
@@ -48,6 +49,17 @@ public class ProvisioningUtils {
     public static void traverseProvisioning(Space space, ProvisioningConsumer consumer,
             String executionContext, Path provisioningXML, boolean isLatest, String wildflyServerVersion, String variant, List<Channel> channels,
             MavenRepoManager resolver, MetadataProvider metadataProvider, LayerConfigurationProvider configurationProvider) throws Exception {
+        traverseProvisioning(space, consumer, executionContext, provisioningXML, isLatest, wildflyServerVersion, variant, channels,
+                resolver, metadataProvider, configurationProvider, null);
+    }
+
+    /**
+     * @param modelCache The layer models shared with the other commands of the process, can be null.
+     */
+    public static void traverseProvisioning(Space space, ProvisioningConsumer consumer,
+            String executionContext, Path provisioningXML, boolean isLatest, String wildflyServerVersion, String variant, List<Channel> channels,
+            MavenRepoManager resolver, MetadataProvider metadataProvider, LayerConfigurationProvider configurationProvider,
+            ScanModelCache modelCache) throws Exception {
         UniverseResolver universeResolver = UniverseResolver.builder().addArtifactResolver(resolver).build();
         GalleonBuilder provider = new GalleonBuilder();
         provider.addArtifactResolver(resolver);
@@ -64,12 +76,19 @@ public class ProvisioningUtils {
             } else {
                 provisioning = provider.newProvisioningBuilder(config).build();
             }
-            Map<FeaturePackLocation.FPID, Set<FeaturePackLocation.ProducerSpec>> fpDependencies = new HashMap<>();
-            Map<String, Layer> all = Utils.getAllLayers(config, universeResolver, provisioning, fpDependencies);
             Set<String> spaces = new HashSet<>();
             spaces.add(space.getName());
-            LayerMapping mapping = org.wildfly.glow.Utils.buildMapping(configurationProvider, vers, spaces, executionContext, variant, all, Collections.emptySet());
-            consumer.consume(space, config, all, mapping, fpDependencies);
+            GalleonProvisioningConfig modelConfig = config;
+            Provisioning modelProvisioning = provisioning;
+            Callable<ScanModelCache.Model> modelBuilder = () -> {
+                Map<FeaturePackLocation.FPID, Set<FeaturePackLocation.ProducerSpec>> fpDependencies = new HashMap<>();
+                Map<String, Layer> all = Utils.getAllLayers(modelConfig, universeResolver, modelProvisioning, fpDependencies);
+                LayerMapping mapping = org.wildfly.glow.Utils.buildMapping(configurationProvider, vers, spaces, executionContext, variant, all, Collections.emptySet());
+                return new ScanModelCache.Model(all, fpDependencies, mapping);
+            };
+            ScanModelCache.Model model = modelCache == null ? modelBuilder.call()
+                    : modelCache.get(ScanModelCache.key(config, vers, spaces, executionContext, variant, Collections.emptySet(), false, configurationProvider), modelBuilder);
+            consumer.consume(space, config, model.getLayers(), model.getMapping(), model.getFpDependencies());
         } finally {
             IoUtils.recursiveDelete(OFFLINE_CONTENT);
             if (provisioning != null) {
@@ -0,0 +1,199 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records, for each rule of the layers, the number of times it has been evaluated during a scan, the number of times
+ * it matched and the time spent evaluating it. A rule is identified by its kind, its value and the layers it belongs
+ * to. The kind of the file, XML and properties rules is the rule property name (for example
+ * {@code org.wildfly.rule.xml-path-web}), the kind of the class and annotation rules is the rule property name without
+ * suffix (for example {@code org.wildfly.rule.class}).
+ *
+ * The exact class and package names of the class rules, the annotation names and the exact file paths are looked up
+ * in indexes whose cost doesn't depend on the number of rules, only their hits are recorded. The wildcard class rules,
+ * the file patterns, the annotation values, the properties and the XML files are evaluated rule by rule. When multiple
+ * xml-path rules target the same file, the time spent parsing the file is shared by the rules.
+ *
+ * Instances can be updated concurrently.
+ */
+public final class RuleProfiler {
+
+    /**
+     * The profile of a rule.
+     */
+    public static final class RuleProfile {
+
+        private final String kind;
+        private final String rule;
+        private final String layers;
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder time = new LongAdder();
+
+        private RuleProfile(String kind, String rule, String layers) {
+            this.kind = kind;
+            this.rule = rule;
+            this.layers = layers;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        public String getRule() {
+            return rule;
+        }
+
+        /**
+         * @return The comma separated names of the layers of the rule.
+         */
+        public String getLayers() {
+            return layers;
+        }
+
+        public long getEvaluations() {
+            return evaluations.sum();
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        /**
+         * @return The cumulative time spent evaluating the rule, in nanoseconds.
+         */
+        public long getTime() {
+            return time.sum();
+        }
+    }
+
+    private static final class Key {
+
+        private final String kind;
+        private final String rule;
+        private final String layers;
+
+        private Key(String kind, String rule, String layers) {
+            this.kind = kind;
+            this.rule = rule;
+            this.layers = layers;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return kind.equals(other.kind) && rule.equals(other.rule) && layers.equals(other.layers);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, rule, layers);
+        }
+    }
+
+    private static final Comparator<RuleProfile> BY_COST = Comparator.comparingLong(RuleProfile::getTime).reversed()
+            .thenComparing(Comparator.comparingLong(RuleProfile::getEvaluations).reversed())
+            .thenComparing(RuleProfile::getKind)
+            .thenComparing(RuleProfile::getRule)
+            .thenComparing(RuleProfile::getLayers);
+
+    private final Map<Key, RuleProfile> profiles = new ConcurrentHashMap<>();
+
+    RuleProfiler() {
+    }
+
+    /**
+     * Record an evaluation of a rule.
+     *
+     * @param kind The rule property name, without suffix.
+     * @param rule The rule value.
+     * @param layers The layers of the rule.
+     * @param hit true if the rule matched.
+     * @param time The time spent evaluating the rule, in nanoseconds.
+     */
+    void record(String kind, String rule, Collection<Layer> layers, boolean hit, long time) {
+        record(kind, rule, layerNames(layers), hit, time);
+    }
+
+    void record(String kind, String rule, Layer layer, boolean hit, long time) {
+        record(kind, rule, layer.getName(), hit, time);
+    }
+
+    private void record(String kind, String rule, String layers, boolean hit, long time) {
+        RuleProfile profile = profiles.computeIfAbsent(new Key(kind, rule, layers), (k) -> new RuleProfile(k.kind, k.rule, k.layers));
+        profile.evaluations.increment();
+        if (hit) {
+            profile.hits.increment();
+        }
+        profile.time.add(time);
+    }
+
+    private static String layerNames(Collection<Layer> layers) {
+        if (layers.size() == 1) {
+            return layers.iterator().next().getName();
+        }
+        Set<String> names = new TreeSet<>();
+        for (Layer l : layers) {
+            names.add(l.getName());
+        }
+        return String.join(",", names);
+    }
+
+    /**
+     * @return The profiles of the evaluated rules, the most expensive first.
+     */
+    public List<RuleProfile> getProfiles() {
+        List<RuleProfile> list = new ArrayList<>(profiles.values());
+        list.sort(BY_COST);
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * @return A report of the evaluated rules, a line per rule, the most expensive first.
+     */
+    public String getReport() {
+        List<RuleProfile> list = getProfiles();
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.ENGLISH, "%12s %12s %8s  %-40s %-30s %s%n", "time (us)", "evaluations", "hits", "rule", "layers", "value"));
+        for (RuleProfile profile : list) {
+            builder.append(String.format(Locale.ENGLISH, "%12d %12d %8d  %-40s %-30s %s%n",
+                    TimeUnit.NANOSECONDS.toMicros(profile.getTime()), profile.getEvaluations(), profile.getHits(),
+                    profile.getKind(), profile.getLayers(), profile.getRule()));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Write the report to a file.
+     */
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(file, getReport().getBytes(StandardCharsets.UTF_8));
+    }
+}
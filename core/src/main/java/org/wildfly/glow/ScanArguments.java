@@ -91,6 +91,22 @@ public interface ScanArguments {
     boolean isEnforceInputFeaturePacks();
     boolean isSystemPropertiesPreferred();
 
+    /**
+     * @return the number of threads used to scan the binaries
+     */
+    int getParallelism();
+
+    /**
+     * @return true if the cost and the hits of the layer rules are recorded during the scan
+     */
+    boolean isProfileRules();
+
+    /**
+     * @return the cache of the layer models shared with the other scans of the process, null if the model is built
+     * for this scan only
+     */
+    ScanModelCache getModelCache();
+
     default Builder createScanArgumentsBuilder() {
         return new Builder();
     }
@@ -221,5 +237,27 @@ public interface ScanArguments {
             this.preferSystemProperties = preferSystemProperties;
             return this;
         }
+        public Builder setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+        public Builder setProfileRules(boolean profileRules) {
+            this.profileRules = profileRules;
+            return this;
+        }
+        public Builder setModelCache(ScanModelCache modelCache) {
+            this.modelCache = modelCache;
+            return this;
+        }
+
+        /**
+         * @return A builder with the same arguments, the arguments then set
+         * in one of the builders are not seen by the other.
+         */
+        Builder copy() {
+            Builder copy = new Builder();
+            copyTo(copy);
+            return copy;
+        }
     }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What has been discovered about the layers during a scan: the rules that matched, the layers banned by an hidden
+ * condition and the layers whose configuration has been removed by a no configuration condition.
+ *
+ * The {@link Layer} objects are the model built from the feature-packs, they are not modified during a scan. A model
+ * can then be shared by multiple scans. An instance is not thread safe, each deployment scanned concurrently records
+ * its evidence in its own instance that is then merged.
+ */
+public final class ScanEvidence {
+
+    private final LayerMapping mapping;
+    private final Map<Layer, Map<LayerMapping.RULE, Set<String>>> matchingRules = new HashMap<>();
+    private final Set<Layer> bannedLayers = new HashSet<>();
+    private final Set<Layer> layersWithoutConfiguration = new HashSet<>();
+
+    /**
+     * @param mapping The mapping of the scan, it contains the configuration of the layers.
+     */
+    ScanEvidence(LayerMapping mapping) {
+        this.mapping = mapping;
+    }
+
+    void addRule(LayerMapping.RULE rule, Set<Layer> layers, String c) {
+        for (Layer l : layers) {
+            addRule(rule, l, c);
+        }
+    }
+
+    void addRule(LayerMapping.RULE rule, Layer l, String c) {
+        Set<String> set = matchingRules.computeIfAbsent(l, (value) -> new EnumMap<>(LayerMapping.RULE.class)).
+                computeIfAbsent(rule, (value) -> new HashSet<>());
+        if (c != null) {
+            set.add(c);
+        }
+    }
+
+    void ban(Layer l) {
+        bannedLayers.add(l);
+    }
+
+    void removeConfiguration(Layer l) {
+        layersWithoutConfiguration.add(l);
+    }
+
+    /**
+     * Add the evidence collected by the scan of a single deployment.
+     */
+    void merge(ScanEvidence other) {
+        for (Map.Entry<Layer, Map<LayerMapping.RULE, Set<String>>> entry : other.matchingRules.entrySet()) {
+            for (Map.Entry<LayerMapping.RULE, Set<String>> rules : entry.getValue().entrySet()) {
+                addRule(rules.getKey(), entry.getKey(), null);
+                matchingRules.get(entry.getKey()).get(rules.getKey()).addAll(rules.getValue());
+            }
+        }
+        bannedLayers.addAll(other.bannedLayers);
+        layersWithoutConfiguration.addAll(other.layersWithoutConfiguration);
+    }
+
+    /**
+     * @return The rules that matched for the layer, empty if the layer has not been discovered.
+     */
+    public Map<LayerMapping.RULE, Set<String>> getMatchingRules(Layer l) {
+        Map<LayerMapping.RULE, Set<String>> rules = matchingRules.get(l);
+        return rules == null ? Collections.emptyMap() : Collections.unmodifiableMap(rules);
+    }
+
+    public boolean isBanned(Layer l) {
+        return bannedLayers.contains(l);
+    }
+
+    /**
+     * @return true if all the layers are banned.
+     */
+    public boolean areBanned(Set<Layer> layers) {
+        return bannedLayers.containsAll(layers);
+    }
+
+    /**
+     * @return The layer configuration, empty if removed by a no configuration condition.
+     */
+    public Set<String> getConfiguration(Layer l) {
+        return layersWithoutConfiguration.contains(l) ? Collections.emptySet() : mapping.getConfiguration(l);
+    }
+}
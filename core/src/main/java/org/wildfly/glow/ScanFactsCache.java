@@ -0,0 +1,175 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexWriter;
+
+/**
+ * On disk cache of the class files analysis of nested archives. Entries are keyed by the SHA-256 of the archive
+ * content and contain the Jandex indexes and the {@link ClassFacts} of the archive classes. The layer rules are not
+ * involved in the analysis, so a cached entry can be reused whatever the rules. Files and nested archives are not
+ * cached, they are still inspected from the archive.
+ *
+ * The cache is bounded in size, the least recently used entries are evicted. Entries written with another format
+ * version are ignored. The cache can be disabled with the {@code org.wildfly.glow.scan.cache} property set to
+ * {@code false}.
+ */
+final class ScanFactsCache {
+
+    static final String SCAN_CACHE_PROPERTY = "org.wildfly.glow.scan.cache";
+    static final String SCAN_CACHE_MAX_SIZE_PROPERTY = "org.wildfly.glow.scan.cache.max.size";
+    // To be incremented each time the content of the analysis or the way it is computed changes.
+    private static final int FORMAT_VERSION = 1;
+    private static final long DEFAULT_MAX_SIZE = 256 * 1024 * 1024;
+    static final String SUFFIX = ".facts";
+
+    private final Path directory;
+    private final long maxSize;
+    private final AtomicBoolean updated = new AtomicBoolean();
+
+    ScanFactsCache(Path directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return The cache located in the glow cache directory, null if the cache is disabled.
+     */
+    static ScanFactsCache newInstance() {
+        HiddenPropertiesAccessor accessor = new HiddenPropertiesAccessor();
+        if ("false".equals(accessor.getProperty(SCAN_CACHE_PROPERTY))) {
+            return null;
+        }
+        String maxSize = accessor.getProperty(SCAN_CACHE_MAX_SIZE_PROPERTY);
+        return new ScanFactsCache(Utils.getCacheDirectory().resolve("scan-facts"),
+                maxSize == null ? DEFAULT_MAX_SIZE : Long.parseLong(maxSize));
+    }
+
+    String key(Path archive) throws IOException {
+        MessageDigest digest = CacheFiles.newDigest();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(archive)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return CacheFiles.toHex(digest.digest());
+    }
+
+    /**
+     * @return The cached analysis, null if not found or if the entry can't be read.
+     */
+    DeploymentScanner.ClassAnalysis load(String key) {
+        Path file = directory.resolve(key + SUFFIX);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (!CacheFiles.readHeader(in, FORMAT_VERSION)) {
+                return null;
+            }
+            int numIndexes = in.readInt();
+            List<Index> indexes = new ArrayList<>(numIndexes);
+            for (int i = 0; i < numIndexes; i++) {
+                byte[] content = new byte[in.readInt()];
+                in.readFully(content);
+                indexes.add(new IndexReader(new ByteArrayInputStream(content)).read());
+            }
+            int numFacts = in.readInt();
+            Map<String, ClassFacts> facts = new HashMap<>();
+            for (int i = 0; i < numFacts; i++) {
+                String path = in.readUTF();
+                facts.put(path, readFacts(in));
+            }
+            // Used as the last access time for the eviction.
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return new DeploymentScanner.ClassAnalysis(indexes, facts);
+        } catch (IOException | RuntimeException ex) {
+            // Corrupted or concurrently evicted entry, the archive is analyzed again.
+            return null;
+        }
+    }
+
+    void store(String key, DeploymentScanner.ClassAnalysis analysis) {
+        boolean stored = CacheFiles.store(directory, key + SUFFIX, FORMAT_VERSION, out -> {
+            out.writeInt(analysis.getIndexes().size());
+            for (Index index : analysis.getIndexes()) {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                new IndexWriter(content).write(index);
+                out.writeInt(content.size());
+                content.writeTo(out);
+            }
+            out.writeInt(analysis.getFacts().size());
+            for (Map.Entry<String, ClassFacts> entry : analysis.getFacts().entrySet()) {
+                out.writeUTF(entry.getKey());
+                writeFacts(out, entry.getValue());
+            }
+        });
+        if (stored) {
+            updated.set(true);
+        }
+    }
+
+    /**
+     * Delete the least recently used entries until the cache size is below the max size.
+     */
+    void evict() {
+        if (updated.getAndSet(false)) {
+            CacheFiles.evict(directory, SUFFIX, maxSize);
+        }
+    }
+
+    static void writeFacts(DataOutputStream out, ClassFacts facts) throws IOException {
+        out.writeUTF(facts.getClassName());
+        writeStrings(out, facts.getReferencedTypes());
+        writeStrings(out, facts.getContextLookupTypes());
+        writeStrings(out, facts.getContextLookups());
+    }
+
+    static ClassFacts readFacts(DataInputStream in) throws IOException {
+        String className = in.readUTF();
+        Set<String> referencedTypes = readStrings(in, new LinkedHashSet<>());
+        Set<String> contextLookupTypes = readStrings(in, new LinkedHashSet<>());
+        List<String> contextLookups = readStrings(in, new ArrayList<>());
+        return new ClassFacts(className, referencedTypes, contextLookupTypes, contextLookups);
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static <T extends Collection<String>> T readStrings(DataInputStream in, T strings) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            strings.add(in.readUTF());
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The wall time spent in each phase of a scan and the amount of work done. A phase that is not executed (for example
+ * the stability checks when no stability is set) has a zero time. The counters can be updated concurrently.
+ */
+public final class ScanMetrics {
+
+    public enum Phase {
+        /**
+         * The whole scan, from the retrieval of the metadata to the scan results.
+         */
+        SCAN("scan"),
+        /**
+         * Retrieval of the provisioning files of the server and of the spaces.
+         */
+        METADATA("metadata"),
+        /**
+         * Resolution of the feature-packs.
+         */
+        FEATURE_PACKS("feature-packs"),
+        /**
+         * Loading of the layers of the feature-packs.
+         */
+        LAYERS("layers"),
+        /**
+         * Building of the rules from the layers.
+         */
+        MAPPING("mapping"),
+        /**
+         * Scanning of the deployments.
+         */
+        DEPLOYMENTS("deployments"),
+        /**
+         * Layers discovery, add-ons, profiles and errors.
+         */
+        DISCOVERY("discovery"),
+        /**
+         * Features and packages stability checks.
+         */
+        STABILITY("stability"),
+        /**
+         * Generation of the provisioning configuration, of the server, bootable JAR or image.
+         */
+        PROVISIONING("provisioning");
+
+        private final String name;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public enum Counter {
+        /**
+         * Class files read and parsed.
+         */
+        CLASSES_PARSED("classes-parsed"),
+        /**
+         * Deployments and nested archives opened.
+         */
+        ARCHIVES_OPENED("archives-opened"),
+        /**
+         * Bytes of the class files read.
+         */
+        BYTES_READ("bytes-read"),
+        /**
+         * Class, annotation and file rules evaluated.
+         */
+        RULE_EVALUATIONS("rule-evaluations"),
+        /**
+         * Layer models, feature stabilities and class analysis retrieved from the caches.
+         */
+        CACHE_HITS("cache-hits"),
+        /**
+         * Layer models, feature stabilities and class analysis not found in the caches.
+         */
+        CACHE_MISSES("cache-misses");
+
+        private final String name;
+
+        Counter(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final Map<Phase, LongAdder> times = new EnumMap<>(Phase.class);
+    private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+
+    ScanMetrics() {
+        for (Phase phase : Phase.values()) {
+            times.put(phase, new LongAdder());
+        }
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, new LongAdder());
+        }
+    }
+
+    /**
+     * Add the time elapsed since {@code start}, a {@link System#nanoTime()} value, to the phase.
+     */
+    void record(Phase phase, long start) {
+        times.get(phase).add(System.nanoTime() - start);
+    }
+
+    void increment(Counter counter) {
+        counters.get(counter).increment();
+    }
+
+    void add(Counter counter, long value) {
+        counters.get(counter).add(value);
+    }
+
+    /**
+     * @return The time spent in the phase, in milliseconds.
+     */
+    public long getTime(Phase phase) {
+        return TimeUnit.NANOSECONDS.toMillis(times.get(phase).sum());
+    }
+
+    public long getCount(Counter counter) {
+        return counters.get(counter).sum();
+    }
+
+    /**
+     * @return The time spent in each phase, in milliseconds, keyed by phase name.
+     */
+    public Map<String, Long> getTimes() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            map.put(phase.getName(), getTime(phase));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * @return The value of each counter, keyed by counter name.
+     */
+    public Map<String, Long> getCounters() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (Counter counter : Counter.values()) {
+            map.put(counter.getName(), getCount(counter));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * @return The metrics as a JSON document, the times in milliseconds.
+     */
+    public String toJson() throws IOException {
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectNode root = mapper.createObjectNode();
+        ObjectNode phases = root.putObject("phases");
+        getTimes().forEach(phases::put);
+        ObjectNode values = root.putObject("counters");
+        getCounters().forEach(values::put);
+        return mapper.writeValueAsString(root);
+    }
+
+    /**
+     * Write the metrics to a JSON file.
+     */
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(file, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import org.jboss.galleon.api.config.GalleonFeaturePackConfig;
+import org.jboss.galleon.api.config.GalleonProvisioningConfig;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.FeaturePackLocation.ProducerSpec;
+import org.jboss.galleon.universe.maven.repo.MavenRepoManager;
+import org.jboss.galleon.util.IoUtils;
+
+/**
+ * The layer models built by the scans of a process that runs several scans (daemon, batch scan, watch mode). A model
+ * is made of the layers loaded from a set of feature-packs and of the layer mapping built for a server version,
+ * execution context, variant, spaces and profiles. The layers and the mapping are not modified by the scans, a model
+ * is shared by concurrent scans and is built once.
+ *
+ * The scans that don't have a metadata provider share the one of the cache, the layer configurations are retrieved
+ * once. The cache is bounded, the least recently used models are evicted. A feature-pack with a SNAPSHOT version is
+ * not loaded again while its model is in the cache.
+ */
+public final class ScanModelCache implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_MODELS = 4;
+
+    /**
+     * The layers of a set of feature-packs and their mapping.
+     */
+    static final class Model {
+
+        private final Map<String, Layer> layers;
+        private final Map<FPID, Set<ProducerSpec>> fpDependencies;
+        private final LayerMapping mapping;
+
+        Model(Map<String, Layer> layers, Map<FPID, Set<ProducerSpec>> fpDependencies, LayerMapping mapping) {
+            this.layers = Collections.unmodifiableMap(layers);
+            this.fpDependencies = Collections.unmodifiableMap(fpDependencies);
+            this.mapping = mapping;
+        }
+
+        Map<String, Layer> getLayers() {
+            return layers;
+        }
+
+        Map<FPID, Set<ProducerSpec>> getFpDependencies() {
+            return fpDependencies;
+        }
+
+        LayerMapping getMapping() {
+            return mapping;
+        }
+    }
+
+    private final int maxModels;
+    private final Map<List<Object>, FutureTask<Model>> models;
+    private WildFlyMavenMetadataProvider metadataProvider;
+    private Path tmpMetadataDirectory;
+
+    public ScanModelCache() {
+        this(DEFAULT_MAX_MODELS);
+    }
+
+    /**
+     * @param maxModels The max number of models kept in memory.
+     */
+    public ScanModelCache(int maxModels) {
+        if (maxModels < 1) {
+            throw new IllegalArgumentException("Invalid max models " + maxModels + ", must be greater than 0");
+        }
+        this.maxModels = maxModels;
+        models = new LinkedHashMap<List<Object>, FutureTask<Model>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, FutureTask<Model>> eldest) {
+                return size() > ScanModelCache.this.maxModels;
+            }
+        };
+    }
+
+    /**
+     * @return The key of the model of the feature-packs for the given mapping inputs.
+     */
+    static List<Object> key(GalleonProvisioningConfig config, String version, Set<String> spaces, String context,
+            String variant, Set<String> profiles, boolean bootableJar, LayerConfigurationProvider configurationProvider) {
+        Set<String> locations = new TreeSet<>();
+        for (GalleonFeaturePackConfig fp : config.getFeaturePackDeps()) {
+            locations.add(fp.getLocation().toString());
+        }
+        // The default provider returns the configuration URIs as is, whatever its instance.
+        Object provider = configurationProvider.getClass() == DefaultLayerConfigurationProvider.class
+                ? DefaultLayerConfigurationProvider.class : configurationProvider;
+        return Arrays.asList(locations, version, new TreeSet<>(spaces), context, variant, new TreeSet<>(profiles),
+                bootableJar, provider);
+    }
+
+    /**
+     * @param builder Builds the model if not found, a model is built once, concurrent scans wait for it.
+     * @return The model.
+     */
+    Model get(List<Object> key, Callable<Model> builder) throws Exception {
+        FutureTask<Model> task;
+        boolean build = false;
+        synchronized (models) {
+            task = models.get(key);
+            if (task == null) {
+                task = new FutureTask<>(builder);
+                models.put(key, task);
+                build = true;
+            }
+        }
+        if (build) {
+            task.run();
+        }
+        try {
+            return task.get();
+        } catch (ExecutionException ex) {
+            synchronized (models) {
+                models.remove(key, task);
+            }
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * @return The metadata provider shared by the scans, its content is deleted when the cache is closed.
+     */
+    public synchronized WildFlyMavenMetadataProvider getMetadataProvider(MavenRepoManager resolver) throws Exception {
+        if (metadataProvider == null) {
+            tmpMetadataDirectory = Files.createTempDirectory("wildfly-glow-metadata");
+            metadataProvider = new WildFlyMavenMetadataProvider(resolver, tmpMetadataDirectory);
+        }
+        return metadataProvider;
+    }
+
+    @Override
+    public void close() {
+        synchronized (models) {
+            models.clear();
+        }
+        synchronized (this) {
+            if (tmpMetadataDirectory != null) {
+                IoUtils.recursiveDelete(tmpMetadataDirectory);
+                tmpMetadataDirectory = null;
+                metadataProvider = null;
+            }
+        }
+    }
+}
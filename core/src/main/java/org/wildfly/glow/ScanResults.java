@@ -39,6 +39,7 @@ public class ScanResults implements AutoCloseable {
     private final Set<Layer> metadataOnlyLayers;
     private final Provisioning provisioning;
     private final GalleonProvisioningConfig config;
+    private final ScanEvidence evidence;
     private final ErrorIdentificationSession errorSession;
     private final Map<AddOn, String> disabledAddOns;
     private final Set<AddOn> enabledAddOns;
@@ -48,6 +49,8 @@ public class ScanResults implements AutoCloseable {
     private final Map<ProducerSpec, FPID> fpVersions;
     private final List<Channel> channels;
     private final Path tmpMetadataDirectory;
+    private final ScanMetrics metrics;
+    private final RuleProfiler profiler;
 
     ScanResults(GlowSession glowSession,
             Set<Layer> discoveredLayers,
@@ -60,12 +63,15 @@ public class ScanResults implements AutoCloseable {
             Set<AddOn> enabledAddOns,
             Map<AddOn, String> disabledAddOns,
             Suggestions suggestions,
+            ScanEvidence evidence,
             ErrorIdentificationSession errorSession,
             Set<String> excludedPackages,
             Map<Layer, Set<String>> excludedFeatures,
             Map<ProducerSpec, FPID> fpVersions,
             List<Channel> channels,
-            Path tmpMetadataDirectory) {
+            Path tmpMetadataDirectory,
+            ScanMetrics metrics,
+            RuleProfiler profiler) {
         this.glowSession = glowSession;
         this.discoveredLayers = discoveredLayers;
         this.excludedLayers = excludedLayers;
@@ -77,12 +83,15 @@ public class ScanResults implements AutoCloseable {
         this.disabledAddOns = disabledAddOns;
         this.enabledAddOns = enabledAddOns;
         this.suggestions = suggestions;
+        this.evidence = evidence;
         this.errorSession = errorSession;
         this.excludedPackages = excludedPackages;
         this.excludedFeatures = excludedFeatures;
         this.fpVersions = fpVersions;
         this.channels = channels;
         this.tmpMetadataDirectory = tmpMetadataDirectory;
+        this.metrics = metrics;
+        this.profiler = profiler;
     }
 
     public Set<Layer> getDiscoveredLayers() {
@@ -116,6 +125,10 @@ public class ScanResults implements AutoCloseable {
         return suggestions;
     }
 
+    public ScanEvidence getEvidence() {
+        return evidence;
+    }
+
     public ErrorIdentificationSession getErrorSession() {
         return errorSession;
     }
@@ -186,4 +199,20 @@ public class ScanResults implements AutoCloseable {
     public List<Channel> getChannels() {
         return channels;
     }
+
+    /**
+     * @return The time spent in each phase of the scan and the work done. The provisioning phase is updated when
+     * calling {@link #outputConfig(Path, String)}.
+     */
+    public ScanMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return The evaluations of the rules during the scan of the deployments, null if the rules have not been
+     * profiled.
+     */
+    public RuleProfiler getRuleProfiler() {
+        return profiler;
+    }
 }
@@ -115,14 +115,16 @@ public class ScanResultsPrinter {
             writer.info(" ");
             writer.info("layers inclusion rules");
             writer.info("* " + scanResults.getBaseLayer());
-            for (LayerMapping.RULE rule : scanResults.getBaseLayer().getMatchingRules().keySet()) {
-                Set<String> str = scanResults.getBaseLayer().getMatchingRules().get(rule);
+            Map<LayerMapping.RULE, Set<String>> baseLayerRules = scanResults.getEvidence().getMatchingRules(scanResults.getBaseLayer());
+            for (LayerMapping.RULE rule : baseLayerRules.keySet()) {
+                Set<String> str = baseLayerRules.get(rule);
                 writer.info("  - " + rule + ((str == null || str.isEmpty()) ? "" : ": " + str));
             }
             for (Layer l : scanResults.getDecorators()) {
                 writer.info("* " + l.getName());
-                for (LayerMapping.RULE rule : l.getMatchingRules().keySet()) {
-                    Set<String> str = l.getMatchingRules().get(rule);
+                Map<LayerMapping.RULE, Set<String>> rules = scanResults.getEvidence().getMatchingRules(l);
+                for (LayerMapping.RULE rule : rules.keySet()) {
+                    Set<String> str = rules.get(rule);
                     writer.info("  - " + rule + ((str == null || str.isEmpty()) ? "" : ": " + str));
                 }
             }
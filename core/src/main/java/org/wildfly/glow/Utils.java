@@ -29,7 +29,6 @@ import org.jboss.galleon.util.ZipUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
-import org.wildfly.glow.error.Fix;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -45,9 +44,11 @@ import java.net.URL;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -57,8 +58,6 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.function.Consumer;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.jboss.galleon.api.GalleonBuilder;
@@ -87,58 +86,7 @@ import static org.wildfly.glow.GlowSession.OFFLINE_ZIP;
  */
 public final class Utils {
 
-    static void applyXPath(Path p, String expression, String expectedValue, Consumer<Layer> consumer, Layer layer) throws Exception {
-        if (Files.readAllBytes(p).length == 0) {
-            return;
-        }
-        try (InputStream reader = Files.newInputStream(p)) {
-            DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-            Document document = documentBuilder.parse(reader);
-            XPath xPath = XPathFactory.newInstance().newXPath();
-            NodeList nodes = (NodeList) xPath.evaluate(expression,
-                    document, XPathConstants.NODESET);
-            if (nodes.getLength() != 0) {
-                if (expectedValue != null) {
-                    for (int i = 0; i < nodes.getLength(); i++) {
-                        Node n = nodes.item(i);
-                        String content = n.getTextContent();
-                        if (Utils.isPattern(expectedValue)) {
-                            expectedValue = Utils.escapePattern(expectedValue);
-                        }
-                        Pattern pattern = Pattern.compile(expectedValue);
-                        if (pattern.matcher(content).matches()) {
-                            //System.out.println("RULE " + split[2] + "matched");
-                            consumer.accept(layer);
-                            LayerMapping.addRule(LayerMapping.RULE.XML_PATH, layer, p.toString() + "==>" + expression + "==" + content);
-                            break;
-                        }
-                    }
-                } else {
-                    //System.out.println("RULE " + xpathExpression + " matched");
-                    consumer.accept(layer);
-                    LayerMapping.addRule(LayerMapping.RULE.XML_PATH, layer, p.toString() + "==>" + expression);
-                }
-            }
-        }
-    }
-
-    static Set<Layer> getTransitiveDependencies(Map<String, Layer> all, Layer root, Set<Layer> seen) {
-        if (seen.contains(root)) {
-            return Collections.emptySet();
-        }
-        seen.add(root);
-        Layer l = all.get(root.getName());
-        if (l.getDependencies().isEmpty()) {
-            return Collections.emptySet();
-        }
-        Set<Layer> alldeps = new TreeSet<>();
-        alldeps.addAll(l.getDependencies());
-        for (Layer d : l.getDependencies()) {
-            alldeps.addAll(getTransitiveDependencies(all, d, seen));
-        }
-        return alldeps;
-    }
+    public static final String CACHE_DIR_PROPERTY = "org.wildfly.glow.cache.dir";
 
     static void exportOffline(Provisioning provisioning, GalleonProvisioningConfig config, UniverseResolver universeResolver, boolean bootableJar) throws ProvisioningException, IOException {
         Path featurePacksDir = OFFLINE_FEATURE_PACKS_DIR;
@@ -175,9 +123,6 @@ public final class Utils {
                     String[] split = val.split(",");
                     for (int i = 0; i < split.length; i++) {
                         String s = split[i];
-                        if(LayerMetadata.CONFIGURATION.equals(k) || (LayerMetadata.CONFIGURATION_SERVER.equals(k) && !bootableJar)) {
-                            l.getConfiguration().add(s);
-                        }
                         try (InputStream in = new URL(s).openStream()) {
                             Files.copy(in, docsDir.resolve(l.getName() + "-glow-configuration-" + i + ".yaml"),
                                     StandardCopyOption.REPLACE_EXISTING);
@@ -192,7 +137,38 @@ public final class Utils {
             Provisioning context,
             Map<FPID, Set<ProducerSpec>> fpDependencies)
             throws ProvisioningException, IOException {
-        Map<String, Layer> layersMap = new HashMap<>();
+        return getAllLayers(config, universeResolver, context, fpDependencies, new ScanMetrics());
+    }
+
+    static Map<String, Layer> getAllLayers(GalleonProvisioningConfig config, UniverseResolver universeResolver,
+            Provisioning context,
+            Map<FPID, Set<ProducerSpec>> fpDependencies,
+            ScanMetrics metrics)
+            throws ProvisioningException, IOException {
+        LayerModelCache cache = LayerModelCache.newInstance();
+        String key = cache == null ? null : LayerModelCache.key(config);
+        if (key != null) {
+            Map<String, Layer> layersMap = cache.load(key, fpDependencies);
+            if (layersMap != null) {
+                metrics.increment(ScanMetrics.Counter.CACHE_HITS);
+                return layersMap;
+            }
+            metrics.increment(ScanMetrics.Counter.CACHE_MISSES);
+        }
+        Map<String, Layer> layersMap = loadAllLayers(config, universeResolver, context, fpDependencies);
+        if (key != null) {
+            cache.store(key, layersMap, fpDependencies);
+        }
+        return layersMap;
+    }
+
+    private static Map<String, Layer> loadAllLayers(GalleonProvisioningConfig config, UniverseResolver universeResolver,
+            Provisioning context,
+            Map<FPID, Set<ProducerSpec>> fpDependencies)
+            throws ProvisioningException, IOException {
+        // The layers are immutable, their content is collected before they are created.
+        Map<String, Map<String, String>> layersProperties = new HashMap<>();
+        Map<String, Set<FPID>> layersFeaturePacks = new HashMap<>();
         Set<String> autoInjected = new TreeSet<>();
         Set<String> hiddens = new TreeSet<>();
         Map<String, Set<String>> unresolvedDependencies = new LinkedHashMap<>();
@@ -217,51 +193,64 @@ public final class Utils {
                     }
                     // Case where a layer is redefined in multiple FP. Add all deps.
 
-                    Layer l = layersMap.get(layer.getName());
-                    if (l != null) {
-                        Set<String> deps = unresolvedDependencies.get(l.getName());
+                    Map<String, String> properties = layersProperties.get(layer.getName());
+                    if (properties != null) {
+                        Set<String> deps = unresolvedDependencies.get(layer.getName());
                         if (deps != null) {
                             deps.addAll(dependencies);
                         }
-                        l.getProperties().putAll(spec.getProperties());
+                        properties.putAll(spec.getProperties());
                         String redefinedKind = spec.getProperties().get(LayerMetadata.KIND);
                         if (redefinedKind != null && "hidden".equals(redefinedKind)) {
-                            layersMap.remove(layer.getName());
+                            layersProperties.remove(layer.getName());
+                            unresolvedDependencies.remove(layer.getName());
                         }
                     } else {
                         if (hiddens.contains(layer.getName())) {
                             // Could be that the layer is redefined in another feature-pack but hidden.
                             continue;
                         }
-                        l = new Layer(layer.getName());
-                        l.getProperties().putAll(spec.getProperties());
-                        unresolvedDependencies.put(l.getName(), dependencies);
-                        layersMap.put(layer.getName(), l);
+                        layersProperties.put(layer.getName(), new HashMap<>(spec.getProperties()));
+                        unresolvedDependencies.put(layer.getName(), dependencies);
                     }
-                    l.getFeaturePacks().add(fpid);
+                    layersFeaturePacks.computeIfAbsent(layer.getName(), (value) -> new HashSet<>()).add(fpid);
                 }
                 Set<ProducerSpec> producers = fpDependencies.computeIfAbsent(fpid, (value) -> new HashSet<>());
                 for (FPID depFpid : fp.getFeaturePackDeps()) {
                     FPID fpidDep = toMavenCoordinates(depFpid, universeResolver);
                     producers.add(fpidDep.getProducer());
                 }
+            }
+        }
+        Map<String, Layer> layersMap = new HashMap<>();
+        for (Map.Entry<String, Map<String, String>> entry : layersProperties.entrySet()) {
+            String name = entry.getKey();
+            layersMap.put(name, new Layer(name, entry.getValue(), layersFeaturePacks.get(name), autoInjected.contains(name)));
+        }
+        linkLayers(layersMap, unresolvedDependencies);
+        return layersMap;
+    }
 
-                for (Layer l : layersMap.values()) {
-                    if (autoInjected.contains(l.getName())) {
-                        l.setIsAutomaticInjection(true);
+    /**
+     * Set the dependencies and the add-on of the layers, once all the layers of
+     * the model have been created.
+     *
+     * @param dependencies The names of the dependencies of each layer.
+     */
+    static void linkLayers(Map<String, Layer> layers, Map<String, ? extends Collection<String>> dependencies) {
+        for (Layer l : layers.values()) {
+            Set<Layer> deps = new TreeSet<>();
+            Collection<String> names = dependencies.get(l.getName());
+            if (names != null) {
+                for (String d : names) {
+                    Layer dep = layers.get(d);
+                    if (dep != null) {
+                        deps.add(dep);
                     }
                 }
             }
+            l.link(deps, AddOn.build(l, layers));
         }
-        for (String l : unresolvedDependencies.keySet()) {
-            Layer layer = layersMap.get(l);
-            Set<String> deps = unresolvedDependencies.get(l);
-            for (String d : deps) {
-                Layer dep = layersMap.get(d);
-                layer.getDependencies().add(dep);
-            }
-        }
-        return layersMap;
     }
 
     static FPID toMavenCoordinates(FPID fpid, UniverseResolver universeResolver) throws ProvisioningException {
@@ -416,6 +405,10 @@ public final class Utils {
         LayerMapping mapping = new LayerMapping();
         for (Layer l : layers.values()) {
             for (String k : l.getProperties().keySet()) {
+                if (FileRules.getKind(k) != null) {
+                    // File rules can also be conditions
+                    mapping.getFileRuleProperties().computeIfAbsent(l, value -> new HashMap<>()).put(k, l.getProperties().get(k));
+                }
                 if (LayerMetadata.ANNOTATIONS.equals(k)) {
                     String val = l.getProperties().get(k);
                     String[] split = val.split(",");
@@ -468,7 +461,7 @@ public final class Utils {
                                 .collect(Collectors.toList());
                         for (File f : files) {
                             if (LayerMetadata.CONFIGURATION.equals(k) || (LayerMetadata.CONFIGURATION_SERVER.equals(k) && !bootableJar)) {
-                                l.getConfiguration().add(f.toURI().toString());
+                                mapping.getConfigurations().computeIfAbsent(l, value -> new TreeSet<>()).add(f.toURI().toString());
                             }
                         }
                     } else {
@@ -478,7 +471,7 @@ public final class Utils {
                             List<String> uris = Arrays.asList(split);
                             for(String uri : uris) {
                                 URI actualUri = configurationProvider.getConfigurationURI(l.getName(), version, spaces, context, variant, new URI(uri));
-                                l.getConfiguration().add(actualUri.toString());
+                                mapping.getConfigurations().computeIfAbsent(l, value -> new TreeSet<>()).add(actualUri.toString());
                             }
                         }
                     }
@@ -493,46 +486,13 @@ public final class Utils {
                     continue;
                 }
                 if (LayerMetadata.EXPECT_ADD_ON_FAMILY.equals(k)) {
-                    l.setExpectFamily(l.getProperties().get(k));
+                    // Set when the layer is created.
                     continue;
                 }
                 if (LayerMetadata.ADD_ON.equals(k)) {
-                    String familyAndName = l.getProperties().get(k);
-                    String[] split = familyAndName.split(",");
-                    String family = split[0];
-                    String name = split[1];
-                    // Do we have a description for it
-                    String description = l.getProperties().get(LayerMetadata.ADD_ON_DESCRIPTION);
-                    AddOn addon = new AddOn(name, family, description);
-                    String dependencies = l.getProperties().get(LayerMetadata.ADD_ON_DEPENDS_ON);
-                    if ("all-dependencies".equals(dependencies)) {
-                        addon.getLayersThatExpectAllDependencies().add(l);
-                    } else {
-                        if (dependencies.startsWith("only:")) {
-                            int i = dependencies.indexOf(":");
-                            String v = dependencies.substring(i + 1);
-                            String[] deps = v.split(",");
-                            Set<Layer> set = addon.getLayersThatExpectSomeDependencies().get(l);
-                            if (set == null) {
-                                set = new TreeSet<>();
-                                addon.getLayersThatExpectSomeDependencies().put(l, set);
-                            }
-                            for (String d : deps) {
-                                Layer dl = layers.get(d);
-                                if (dl != null) {
-                                    set.add(dl);
-                                }
-                            }
-                        } else {
-                            if ("none".equals(dependencies)) {
-                                // Such addons are always proposed, if addOn enabled, layer is always included.
-                                addon.getLayersAlwaysIncluded().add(l);
-                            }
-                        }
-                    }
-
-                    addon.getLayers().add(l);
-                    l.setAddOn(addon);
+                    // Created when the layer is linked.
+                    AddOn addon = l.getAddOn();
+                    String family = addon.getFamily();
                     mapping.getAddOns().put(addon.getName(), addon);
                     Set<AddOn> members = mapping.getAddOnFamilyMembers().get(family);
                     if (members == null) {
@@ -550,29 +510,14 @@ public final class Utils {
                             mapping.getAddOnsCardinalityInDefaultFamily().put(family, 1);
                         }
                     }
-                    // Found the issues that get fixed by enabling this layer
-                    for (String kk : l.getProperties().keySet()) {
-                        if (kk.startsWith(LayerMetadata.ADD_ON_FIX)) {
-                            int i = LayerMetadata.ADD_ON_FIX.length();
-                            String id = kk.substring(i);
-                            String value = l.getProperties().get(kk);
-                            String[] items = value.split(",");
-                            String fixDescription = null;
-                            String fixContent = null;
-                            if (items.length == 2) {
-                                fixDescription = items[0];
-                                fixContent = items[1];
-                            }
-                            Fix fix = new Fix(id, fixDescription, fixContent);
-                            addon.getFixes().put(id, fix);
-                            Set<AddOn> s = mapping.getFixedByAddons().get(id);
-                            if (s == null) {
-                                s = new TreeSet<>();
-                                mapping.getFixedByAddons().put(id, s);
-                            }
-                            s.add(addon);
-                            break;
+                    // The issues that get fixed by enabling this layer
+                    for (String id : addon.getFixes().keySet()) {
+                        Set<AddOn> s = mapping.getFixedByAddons().get(id);
+                        if (s == null) {
+                            s = new TreeSet<>();
+                            mapping.getFixedByAddons().put(id, s);
                         }
+                        s.add(addon);
                     }
                     continue;
                 }
@@ -589,8 +534,7 @@ public final class Utils {
                     continue;
                 }
                 if (LayerMetadata.BRING_DATASOURCE.equals(k)) {
-                    String value = l.getProperties().get(k);
-                    l.getBringDatasources().add(value);
+                    // Set when the layer is created.
                     continue;
                 }
                 if (k.startsWith(LayerMetadata.PROFILE)) {
@@ -722,13 +666,13 @@ public final class Utils {
         return profiles;
     }
 
-    public static String getAddOnFix(AddOn ao, String fixContent) throws URISyntaxException, IOException {
+    public static String getAddOnFix(AddOn ao, String fixContent, ScanEvidence evidence) throws URISyntaxException, IOException {
         StringBuilder builder = new StringBuilder();
         builder.append("add-on ").append(ao.getName()).append(" fixes the problem");
         StringBuilder envBuilder = new StringBuilder();
         for (Layer l : ao.getLayers()) {
-            if (!l.getConfiguration().isEmpty()) {
-                for (String c : l.getConfiguration()) {
+            if (!evidence.getConfiguration(l).isEmpty()) {
+                for (String c : evidence.getConfiguration(l)) {
                     URI uri = new URI(c);
                     Set<Env> envs = EnvHandler.retrieveEnv(uri);
                     for (Env env : envs) {
@@ -752,13 +696,18 @@ public final class Utils {
         return builder.toString();
     }
 
-    public static boolean layersAreBanned(Set<Layer> layers) {
-        for (Layer l : layers) {
-            if (!l.isBanned()) {
-                return false;
-            }
+    /**
+     * @return The directory in which data is cached between executions. The
+     * {@code org.wildfly.glow.cache.dir} property overrides the default location.
+     */
+    public static Path getCacheDirectory() {
+        String dir = new HiddenPropertiesAccessor().getProperty(CACHE_DIR_PROPERTY);
+        if (dir != null) {
+            return Paths.get(dir);
         }
-        return true;
+        String cacheHome = System.getenv("XDG_CACHE_HOME");
+        Path root = cacheHome == null || cacheHome.isEmpty() ? Paths.get(System.getProperty("user.home"), ".cache") : Paths.get(cacheHome);
+        return root.resolve("wildfly-glow");
     }
 
     public static String getConfigEntry(String entry) throws IOException {
@@ -16,18 +16,26 @@
  */
 package org.wildfly.glow;
 
+import java.io.IOException;
 import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import org.jboss.galleon.universe.maven.MavenArtifact;
 import org.jboss.galleon.universe.maven.repo.MavenRepoManager;
+import org.jboss.galleon.util.IoUtils;
 import org.jboss.galleon.util.ZipUtils;
 
 /**
+ * Metadata retrieved from the {@code wildfly-galleon-feature-packs-metadata} artifact. The artifact is extracted once
+ * per version in the glow cache directory and reused by the next executions. SNAPSHOT versions are extracted in the
+ * temporary directory, as is done for all versions when the {@code org.wildfly.glow.metadata.store} property is set
+ * to {@code false}.
  *
  * @author jdenise
  */
@@ -37,17 +45,18 @@ public class WildFlyMavenMetadataProvider implements MetadataProvider, LayerConf
     private static final String METADATA_EXTENSION = "zip";
     private static final String METADATA_GROUP_ID = "org.wildfly.galleon.feature-packs";
     private static final String METADATA_ARTIFACT_ID = "wildfly-galleon-feature-packs-metadata";
+    public static final String METADATA_STORE_PROPERTY = "org.wildfly.glow.metadata.store";
     private final MavenRepoManager repo;
     private final Path tmpDirectory;
     private FeaturePacks featurePacks;
-    private final Path rootDirectory ;
+    private volatile Path rootDirectory ;
     public WildFlyMavenMetadataProvider(MavenRepoManager repo, Path tmpDirectory) {
         this.repo = repo;
         this.tmpDirectory = tmpDirectory;
         rootDirectory = tmpDirectory.resolve("glow-metadata");
     }
 
-    private FeaturePacks getResolver() throws Exception {
+    private synchronized FeaturePacks getResolver() throws Exception {
         if (featurePacks == null) {
             MavenArtifact artifact = new MavenArtifact();
             artifact.setExtension(METADATA_EXTENSION);
@@ -56,12 +65,47 @@ public class WildFlyMavenMetadataProvider implements MetadataProvider, LayerConf
             artifact.setVersionRange(DEFAULT_RANGE);
             repo.resolveLatestVersion(artifact, null, false);
             Path zip = artifact.getPath();
-            ZipUtils.unzip(zip, rootDirectory);
+            String version = artifact.getVersion();
+            if (version == null || version.endsWith("SNAPSHOT")
+                    || "false".equals(new HiddenPropertiesAccessor().getProperty(METADATA_STORE_PROPERTY))) {
+                ZipUtils.unzip(zip, rootDirectory);
+            } else {
+                rootDirectory = extract(zip, Utils.getCacheDirectory().resolve("metadata").resolve(version));
+            }
             featurePacks = new FeaturePacks(rootDirectory.toUri());
         }
         return featurePacks;
     }
 
+    /**
+     * Extract the metadata in the store, unless already extracted. The content is extracted in a temporary directory
+     * that is then moved, the store only contains complete extractions.
+     */
+    private static Path extract(Path zip, Path store) throws IOException {
+        if (Files.isDirectory(store)) {
+            return store;
+        }
+        Files.createDirectories(store.getParent());
+        Path tmp = Files.createTempDirectory(store.getParent(), store.getFileName().toString());
+        try {
+            Path content = tmp.resolve("content");
+            ZipUtils.unzip(zip, content);
+            try {
+                Files.move(content, store, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(content, store);
+            }
+        } catch (IOException ex) {
+            // Could have been concurrently extracted.
+            if (!Files.isDirectory(store)) {
+                throw ex;
+            }
+        } finally {
+            IoUtils.recursiveDelete(tmp);
+        }
+        return store;
+    }
+
     @Override
     public Path getFeaturePacks(Space space, String version, String context, String kind) throws Exception {
         return getResolver().getFeaturePacks(space, version, context, kind);
@@ -34,7 +34,7 @@ public class WildFlyMetadataProvider implements MetadataProvider {
         this.uri = uri;
     }
 
-    private FeaturePacks getResolver() throws Exception {
+    private synchronized FeaturePacks getResolver() throws Exception {
         if (featurePacks == null) {
             featurePacks = new FeaturePacks(uri);
         }
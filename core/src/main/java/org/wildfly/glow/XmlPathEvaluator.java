@@ -0,0 +1,267 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.regex.Pattern;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+/**
+ * Evaluates the {@code org.wildfly.rule.xml-path} rules of a deployment. The rules are grouped by file, each file is
+ * parsed once whatever the number of rules that target it.
+ *
+ * When all the expressions that target a file are absolute paths of element names, possibly with {@code *} steps, the
+ * file is streamed with StAX and all the expressions are evaluated during the same pass. Otherwise the file is parsed
+ * in a DOM on which the compiled XPath expressions are evaluated. Both parsers are not namespace aware, the elements
+ * are read with their qualified name and a document with an undeclared prefix is not an error. As done by XPath for
+ * the child steps of an absolute path on such a DOM, a step matches the part of the qualified name that follows the
+ * prefix, {@code /web-app} selects {@code <jee:web-app>}. The streamed expressions give the same results as their
+ * evaluation on the DOM.
+ */
+final class XmlPathEvaluator {
+
+    private static final Pattern STREAMABLE_EXPRESSION = Pattern.compile("(/(\\*|[A-Za-z_][\\w.\\-]*))+");
+
+    private final Map<Path, List<XmlPathRule>> rules = new LinkedHashMap<>();
+    private final Map<String, XPathExpression> compiledExpressions = new HashMap<>();
+    private final Map<String, Pattern> compiledValues = new HashMap<>();
+    private DocumentBuilderFactory documentBuilderFactory;
+    private XPathFactory xPathFactory;
+    private XMLInputFactory xmlInputFactory;
+
+    /**
+     * Register a rule, it is evaluated when calling {@link #evaluate(BiConsumer)}.
+     *
+     * @param path The file.
+     * @param expression The XPath expression.
+     * @param expectedValue The value (or pattern) the content of a selected element must match, null if the
+     * expression only has to select an element.
+     * @param onMatch Called once if the rule matches, with the content of the matching element or null if no value is
+     * expected.
+     */
+    void add(Path path, String expression, String expectedValue, Consumer<String> onMatch) {
+        add(path, expression, expectedValue, onMatch, null);
+    }
+
+    /**
+     * Register a rule, it is evaluated when calling {@link #evaluate(BiConsumer)}.
+     *
+     * @param onEvaluated Called once the file has been evaluated, with the time spent in nanoseconds. The time spent
+     * evaluating a file is shared by the rules that target it. Null if the time is not needed.
+     */
+    void add(Path path, String expression, String expectedValue, Consumer<String> onMatch, LongConsumer onEvaluated) {
+        Pattern value = null;
+        if (expectedValue != null) {
+            value = compiledValues.computeIfAbsent(expectedValue,
+                    (v) -> Pattern.compile(Utils.isPattern(v) ? Utils.escapePattern(v) : v));
+        }
+        rules.computeIfAbsent(path, (p) -> new ArrayList<>()).add(new XmlPathRule(expression, value, onMatch, onEvaluated));
+    }
+
+    /**
+     * Evaluate the registered rules, file by file.
+     *
+     * @param errorHandler Called when a file can't be parsed or an expression can't be evaluated.
+     */
+    void evaluate(BiConsumer<Path, Exception> errorHandler) {
+        for (Map.Entry<Path, List<XmlPathRule>> entry : rules.entrySet()) {
+            Path path = entry.getKey();
+            List<XmlPathRule> fileRules = entry.getValue();
+            long start = System.nanoTime();
+            try {
+                // An empty file matches no rule, its rules are still evaluated.
+                if (Files.size(path) > 0) {
+                    boolean streamable = true;
+                    for (XmlPathRule rule : fileRules) {
+                        if (rule.steps == null) {
+                            streamable = false;
+                            break;
+                        }
+                    }
+                    if (streamable) {
+                        stream(path, fileRules);
+                    } else {
+                        evaluateDocument(path, fileRules, errorHandler);
+                    }
+                }
+            } catch (Exception ex) {
+                errorHandler.accept(path, ex);
+            }
+            long time = (System.nanoTime() - start) / fileRules.size();
+            for (XmlPathRule rule : fileRules) {
+                if (rule.onEvaluated != null) {
+                    rule.onEvaluated.accept(time);
+                }
+            }
+        }
+        rules.clear();
+    }
+
+    private void evaluateDocument(Path path, List<XmlPathRule> fileRules, BiConsumer<Path, Exception> errorHandler) throws Exception {
+        if (documentBuilderFactory == null) {
+            documentBuilderFactory = DocumentBuilderFactory.newInstance();
+            xPathFactory = XPathFactory.newInstance();
+        }
+        Document document;
+        try (InputStream reader = Files.newInputStream(path)) {
+            document = documentBuilderFactory.newDocumentBuilder().parse(reader);
+        }
+        for (XmlPathRule rule : fileRules) {
+            NodeList nodes;
+            try {
+                XPathExpression expression = compiledExpressions.get(rule.expression);
+                if (expression == null) {
+                    expression = xPathFactory.newXPath().compile(rule.expression);
+                    compiledExpressions.put(rule.expression, expression);
+                }
+                nodes = (NodeList) expression.evaluate(document, XPathConstants.NODESET);
+            } catch (XPathExpressionException ex) {
+                errorHandler.accept(path, ex);
+                continue;
+            }
+            if (nodes.getLength() != 0) {
+                if (rule.value == null) {
+                    rule.onMatch.accept(null);
+                } else {
+                    for (int i = 0; i < nodes.getLength(); i++) {
+                        String content = nodes.item(i).getTextContent();
+                        if (rule.value.matcher(content).matches()) {
+                            rule.onMatch.accept(content);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void stream(Path path, List<XmlPathRule> fileRules) throws Exception {
+        if (xmlInputFactory == null) {
+            xmlInputFactory = XMLInputFactory.newInstance();
+            // Only the elements and their content are needed, read as the DOM does.
+            xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+            xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        }
+        List<XmlPathRule> pending = new ArrayList<>(fileRules);
+        // The rules are only notified once the whole file has been successfully parsed.
+        Map<XmlPathRule, String> matches = new HashMap<>();
+        List<String> elements = new ArrayList<>();
+        // The rules that expect a value and selected the current element, with the element content.
+        Map<XmlPathRule, StringBuilder> contents = new LinkedHashMap<>();
+        try (InputStream in = Files.newInputStream(path)) {
+            XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    switch (reader.next()) {
+                        case XMLStreamConstants.START_ELEMENT: {
+                            // The qualified name, the reader is not namespace aware.
+                            elements.add(reader.getLocalName());
+                            Iterator<XmlPathRule> it = pending.iterator();
+                            while (it.hasNext()) {
+                                XmlPathRule rule = it.next();
+                                if (rule.selects(elements)) {
+                                    if (rule.value == null) {
+                                        it.remove();
+                                        matches.put(rule, null);
+                                    } else {
+                                        contents.put(rule, new StringBuilder());
+                                    }
+                                }
+                            }
+                            break;
+                        }
+                        case XMLStreamConstants.CHARACTERS:
+                        case XMLStreamConstants.CDATA: {
+                            for (StringBuilder content : contents.values()) {
+                                content.append(reader.getText());
+                            }
+                            break;
+                        }
+                        case XMLStreamConstants.END_ELEMENT: {
+                            // A rule selects elements at the depth of its expression.
+                            Iterator<Map.Entry<XmlPathRule, StringBuilder>> it = contents.entrySet().iterator();
+                            while (it.hasNext()) {
+                                Map.Entry<XmlPathRule, StringBuilder> entry = it.next();
+                                XmlPathRule rule = entry.getKey();
+                                if (rule.steps.length == elements.size()) {
+                                    it.remove();
+                                    String content = entry.getValue().toString();
+                                    if (rule.value.matcher(content).matches()) {
+                                        pending.remove(rule);
+                                        matches.put(rule, content);
+                                    }
+                                }
+                            }
+                            elements.remove(elements.size() - 1);
+                            break;
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        for (XmlPathRule rule : fileRules) {
+            if (matches.containsKey(rule)) {
+                rule.onMatch.accept(matches.get(rule));
+            }
+        }
+    }
+
+    private static final class XmlPathRule {
+
+        private final String expression;
+        private final String[] steps;
+        private final Pattern value;
+        private final Consumer<String> onMatch;
+        private final LongConsumer onEvaluated;
+
+        private XmlPathRule(String expression, Pattern value, Consumer<String> onMatch, LongConsumer onEvaluated) {
+            this.expression = expression;
+            this.steps = STREAMABLE_EXPRESSION.matcher(expression).matches() ? expression.substring(1).split("/") : null;
+            this.value = value;
+            this.onMatch = onMatch;
+            this.onEvaluated = onEvaluated;
+        }
+
+        private boolean selects(List<String> elements) {
+            if (steps.length != elements.size()) {
+                return false;
+            }
+            for (int i = 0; i < steps.length; i++) {
+                if (!"*".equals(steps[i]) && !steps[i].equals(localPart(elements.get(i)))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static String localPart(String qualifiedName) {
+            int index = qualifiedName.indexOf(':');
+            return index < 0 ? qualifiedName : qualifiedName.substring(index + 1);
+        }
+    }
+}
@@ -18,6 +18,7 @@
 package org.wildfly.glow.error;
 
 import org.wildfly.glow.Layer;
+import org.wildfly.glow.ScanEvidence;
 import org.wildfly.glow.Utils;
 
 import java.io.IOException;
@@ -125,8 +126,18 @@ public class DatasourceErrorIdentification implements ErrorIdentification {
         }
     }
 
+    void merge(DatasourceErrorIdentification other) {
+        for (Map.Entry<String, Set<IdentifiedError>> entry : other.errors.entrySet()) {
+            if (NO_DEFAULT_DATASOURCE_ERROR.equals(entry.getKey())) {
+                errors.put(entry.getKey(), entry.getValue());
+            } else {
+                errors.computeIfAbsent(entry.getKey(), k -> new HashSet<>()).addAll(entry.getValue());
+            }
+        }
+    }
+
     @Override
-    public Map<Layer, Set<Env>> refreshErrors(Set<Layer> allBaseLayers) throws Exception {
+    public Map<Layer, Set<Env>> refreshErrors(Set<Layer> allBaseLayers, ScanEvidence evidence) throws Exception {
         Set<IdentifiedError> unboundDatasourcesErrors = errors.get(UNBOUND_DATASOURCES_ERROR);
         Set<String> toRemove = new HashSet<>();
         Map<Layer, Set<Env>> ret = new HashMap<>();
@@ -166,7 +177,7 @@ public class DatasourceErrorIdentification implements ErrorIdentification {
                                             envs.add(new Env(fix.getEnvName(), Fix.getEnvValue(content), false, true, false, null));
                                         }
                                     }
-                                    String errorMessage = getAddOnFix(l.getAddOn(), content);
+                                    String errorMessage = getAddOnFix(l.getAddOn(), content, evidence);
                                     error.setFixed(errorMessage);
                                 }
                             }
@@ -198,7 +209,7 @@ public class DatasourceErrorIdentification implements ErrorIdentification {
                                 }
                                 envs.add(new Env(fix.getEnvName(), Fix.getEnvValue(content), false, true, false, null));
                             }
-                            String errorMessage = getAddOnFix(l.getAddOn(), content);
+                            String errorMessage = getAddOnFix(l.getAddOn(), content, evidence);
                             error.setFixed(errorMessage);
                         }
                     }
@@ -18,6 +18,7 @@
 package org.wildfly.glow.error;
 
 import org.wildfly.glow.Layer;
+import org.wildfly.glow.ScanEvidence;
 
 import java.nio.file.Path;
 import java.util.List;
@@ -31,6 +32,6 @@ import org.wildfly.glow.Env;
  */
 public interface ErrorIdentification {
     void collectErrors(Path rootPath) throws Exception;
-    Map<Layer, Set<Env>> refreshErrors(Set<Layer> allBaseLayers) throws Exception;
+    Map<Layer, Set<Env>> refreshErrors(Set<Layer> allBaseLayers, ScanEvidence evidence) throws Exception;
     List<IdentifiedError> getErrors();
 }
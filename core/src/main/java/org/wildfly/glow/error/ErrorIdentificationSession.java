@@ -22,6 +22,7 @@ import org.wildfly.glow.ContextLookupInfo;
 import org.wildfly.glow.Layer;
 import org.wildfly.glow.LayerMapping;
 import org.wildfly.glow.ResourceInjectionJndiInfo;
+import org.wildfly.glow.ScanEvidence;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -45,6 +46,25 @@ public class ErrorIdentificationSession {
         set.add(error);
     }
 
+    /**
+     * Add the errors collected by a session used to scan a single deployment.
+     * Errors with an id already known to this session are ignored.
+     */
+    public void merge(ErrorIdentificationSession other) {
+        for (IdentifiedError error : other.set) {
+            boolean allreadySet = false;
+            for (IdentifiedError err : getErrors()) {
+                if (error.getId().equals(err.getId())) {
+                    allreadySet = true;
+                }
+            }
+            if (!allreadySet) {
+                set.add(error);
+            }
+        }
+        ds.merge(other.ds);
+    }
+
     public void collectErrors(Path rootPath) throws Exception {
         ds.collectErrors(rootPath);
     }
@@ -54,13 +74,14 @@ public class ErrorIdentificationSession {
             Map<String, ResourceInjectionJndiInfo> resourceInjectionInfos,
             Set<ContextLookupInfo> initialContextLookupInfos,
             Map<String, DataSourceDefinitionInfo> datasourceDefinitionInfos,
-            Set<String> allClasses) {
-        jndiErrorIdentification.collectErrors(verbose, resourceInjectionInfos, initialContextLookupInfos, allClasses);
+            Set<String> allClasses,
+            ScanEvidence evidence) {
+        jndiErrorIdentification.collectErrors(verbose, resourceInjectionInfos, initialContextLookupInfos, allClasses, evidence);
         ds.setDataSourceDefinitionInfos(datasourceDefinitionInfos);
     }
 
-    public Map<Layer, Set<Env>> refreshErrors(Set<Layer> allBaseLayers, LayerMapping mapping, Set<AddOn> enabledAddOns) throws Exception {
-        Map<Layer, Set<Env>> stronglySuggested = ds.refreshErrors(allBaseLayers);
+    public Map<Layer, Set<Env>> refreshErrors(Set<Layer> allBaseLayers, LayerMapping mapping, Set<AddOn> enabledAddOns, ScanEvidence evidence) throws Exception {
+        Map<Layer, Set<Env>> stronglySuggested = ds.refreshErrors(allBaseLayers, evidence);
         // We could have an Enabbled addOn
         for (IdentifiedError error : getErrors()) {
             if (!error.isFixed()) {
@@ -20,7 +20,7 @@ package org.wildfly.glow.error;
 import org.wildfly.glow.ContextLookupInfo;
 import org.wildfly.glow.Layer;
 import org.wildfly.glow.ResourceInjectionJndiInfo;
-import org.wildfly.glow.Utils;
+import org.wildfly.glow.ScanEvidence;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -56,14 +56,15 @@ public class JndiErrorIdentification {
             boolean verbose,
             Map<String, ResourceInjectionJndiInfo> resourceInjectionInfos,
             Set<ContextLookupInfo> initialContextLookupInfos,
-            Set<String> allClasses)  {
+            Set<String> allClasses,
+            ScanEvidence evidence)  {
 
         for (String resourceInjectionType : resourceInjectionInfos.keySet()) {
             Set<IdentifiedError> errorSet = errors.computeIfAbsent(AMBIGUOUS_RESOURCE_INJECTION, s -> new HashSet<>());
             ResourceInjectionJndiInfo info = resourceInjectionInfos.get(resourceInjectionType);
             Set<Layer> resourceInjectionTypeLayers = info.getLayers();
-            if (resourceInjectionTypeLayers.isEmpty() || Utils.layersAreBanned(resourceInjectionTypeLayers) || info.getResourceClassName().equals("javax.naming.Context")) {
-                // TODO is the Layer.isBanned() check correct?
+            if (resourceInjectionTypeLayers.isEmpty() || evidence.areBanned(resourceInjectionTypeLayers) || info.getResourceClassName().equals("javax.naming.Context")) {
+                // TODO is the banned layers check correct?
                 if (!allClasses.contains(resourceInjectionType)) {
                     errorSet.add(AmbiguousResourceInjectionError.create(verbose, AMBIGUOUS_RESOURCE_INJECTION, AMBIGUOUS_RESOURCE_INJECTION_DESCRIPTION, info));
                 }
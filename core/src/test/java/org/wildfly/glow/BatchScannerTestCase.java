@@ -0,0 +1,56 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BatchScannerTestCase {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testListDeploymentsInDirectory() throws Exception {
+        Path dir = tmp.getRoot().toPath();
+        Files.createFile(dir.resolve("b.war"));
+        Files.createFile(dir.resolve("a.ear"));
+        Files.createFile(dir.resolve("README.txt"));
+        Files.createFile(dir.resolve(".hidden.jar"));
+        Files.createDirectories(dir.resolve("exploded.war"));
+        Files.createDirectories(dir.resolve("other"));
+        List<Path> deployments = BatchScanner.listDeployments(dir);
+        Assert.assertEquals(Arrays.asList(dir.resolve("a.ear"), dir.resolve("b.war"), dir.resolve("exploded.war")), deployments);
+    }
+
+    @Test
+    public void testListDeploymentsInManifest() throws Exception {
+        Path manifest = tmp.getRoot().toPath().resolve("deployments.txt");
+        Files.write(manifest, "# The applications\nb.war\n\n  apps/a.ear  \n/abs/c.jar\n".getBytes(StandardCharsets.UTF_8));
+        List<Path> deployments = BatchScanner.listDeployments(manifest);
+        Path parent = manifest.toAbsolutePath().getParent();
+        Assert.assertEquals(Arrays.asList(parent.resolve("b.war"), parent.resolve("apps/a.ear"), parent.resolve("/abs/c.jar")), deployments);
+    }
+
+    @Test
+    public void testBuilderNotModified() throws Exception {
+        List<Path> binaries = Collections.singletonList(tmp.getRoot().toPath().resolve("a.war"));
+        ScanArguments.Builder builder = Arguments.scanBuilder().setBinaries(binaries).setParallelism(3);
+        new BatchScanner(null, builder, 2).scan(Collections.emptyList(), new StringWriter());
+        ScanArguments arguments = builder.build();
+        Assert.assertEquals(binaries, arguments.getBinaries());
+        Assert.assertEquals(3, arguments.getParallelism());
+        Assert.assertNull(arguments.getModelCache());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.naming.InitialContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClassFactsTestCase {
+
+    public static class Analyzed {
+
+        private Map<String, Thread> field;
+
+        @SuppressWarnings("unchecked")
+        public Set<Runnable> method(StringBuilder[] arg) throws Exception {
+            return (Set<Runnable>) new InitialContext().lookup("java:comp/env/foo");
+        }
+    }
+
+    @Test
+    public void testFacts() throws Exception {
+        ClassFacts facts = ClassFacts.parse(read(Analyzed.class));
+        Assert.assertEquals(Analyzed.class.getName(), facts.getClassName());
+        Set<String> types = facts.getReferencedTypes();
+        for (Class<?> clazz : Arrays.asList(Map.class, Set.class, Runnable.class, StringBuilder.class,
+                InitialContext.class)) {
+            Assert.assertTrue(clazz.getName(), types.contains(clazz.getName()));
+        }
+        Assert.assertEquals(Set.of(InitialContext.class.getName()), facts.getContextLookupTypes());
+        Assert.assertEquals(List.of(Analyzed.class.getName() + ".method()"), facts.getContextLookups());
+    }
+
+    @Test
+    public void testUnsupportedVersion() throws Exception {
+        byte[] content = read(Analyzed.class);
+        // Major version unknown to ASM
+        content[6] = (byte) 0x7F;
+        content[7] = (byte) 0x00;
+        try {
+            ClassFacts.parse(content);
+            Assert.fail("The class version is not supported");
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+        ClassFacts facts = ClassFacts.parse(Paths.get("Analyzed.class"), content);
+        Assert.assertEquals(Analyzed.class.getName(), facts.getClassName());
+        Assert.assertTrue(facts.getReferencedTypes().isEmpty());
+        Assert.assertTrue(facts.getContextLookups().isEmpty());
+    }
+
+    private static byte[] read(Class<?> clazz) throws IOException {
+        String name = clazz.getName();
+        try (InputStream in = clazz.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+            return in.readAllBytes();
+        }
+    }
+}
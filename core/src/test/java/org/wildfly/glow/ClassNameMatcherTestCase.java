@@ -0,0 +1,49 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClassNameMatcherTestCase {
+
+    @Test
+    public void testMatch() {
+        Layer exact = new Layer("exact");
+        Layer pkg = new Layer("pkg");
+        Layer wildcard = new Layer("wildcard");
+        Layer suffix = new Layer("suffix");
+        Map<String, Set<Layer>> rules = new HashMap<>();
+        rules.put("org.foo.Bar", Collections.singleton(exact));
+        rules.put("org.foo", Collections.singleton(pkg));
+        rules.put(Utils.escapePattern("org.*"), Collections.singleton(wildcard));
+        rules.put(Utils.escapePattern("com.*.impl.*Bean"), Collections.singleton(suffix));
+        ClassNameMatcher matcher = ClassNameMatcher.build(rules);
+
+        ClassNameMatcher.Match match = matcher.match("org.foo.Bar");
+        Assert.assertEquals(Collections.singleton(exact), match.getLayers());
+        Assert.assertEquals("org.foo.Bar", match.getRule());
+
+        match = matcher.match("org.foo.Baz");
+        Assert.assertEquals(Collections.singleton(pkg), match.getLayers());
+        Assert.assertEquals("org.foo.*", match.getRule());
+
+        match = matcher.match("org.foo.sub.Baz");
+        Assert.assertEquals(Collections.singleton(wildcard), match.getLayers());
+        Assert.assertEquals(Utils.escapePattern("org.*"), match.getRule());
+
+        match = matcher.match("com.acme.impl.MyBean");
+        Assert.assertEquals(Collections.singleton(suffix), match.getLayers());
+
+        Assert.assertNull(matcher.match("com.acme.impl.MyService"));
+        Assert.assertNull(matcher.match("com.acme.MyBean"));
+        Assert.assertNull(matcher.match("java.lang.String"));
+        Assert.assertNull(matcher.match("org"));
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import org.jboss.galleon.util.IoUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DeploymentWatcherTestCase {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testChanges() throws Exception {
+        Path dir = tmp.getRoot().toPath();
+        Path webInf = Files.createDirectories(dir.resolve("app.war").resolve("WEB-INF"));
+        Path archive = Files.write(dir.resolve("lib.jar"), new byte[] {1});
+        try (DeploymentWatcher watcher = new DeploymentWatcher(Arrays.asList(webInf.getParent(), archive))) {
+            Path classes = Files.createDirectories(webInf.resolve("classes"));
+            Path clazz = Files.write(classes.resolve("Foo.class"), new byte[] {1});
+            Set<Path> changes = watcher.awaitChanges(500);
+            Assert.assertTrue(changes.toString(), changes.contains(classes));
+
+            // A directory created after the watcher is watched.
+            Files.write(clazz, new byte[] {2});
+            changes = watcher.awaitChanges(500);
+            Assert.assertTrue(changes.toString(), changes.contains(clazz));
+
+            // Only the deployments of the parent directory are watched.
+            Files.write(dir.resolve("other.txt"), new byte[] {1});
+            Files.write(archive, new byte[] {2});
+            changes = watcher.awaitChanges(500);
+            Assert.assertTrue(changes.toString(), changes.contains(archive.toAbsolutePath()));
+            Assert.assertFalse(changes.toString(), changes.contains(dir.resolve("other.txt").toAbsolutePath()));
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testNothingLeftToWatch() throws Exception {
+        Path parent = Files.createDirectories(tmp.getRoot().toPath().resolve("deployments"));
+        Path archive = Files.write(parent.resolve("lib.jar"), new byte[] {1});
+        try (DeploymentWatcher watcher = new DeploymentWatcher(Collections.singletonList(archive))) {
+            IoUtils.recursiveDelete(parent);
+            // The deletion is reported, then the watcher stops waiting instead of blocking forever.
+            Set<Path> changes = watcher.awaitChanges(500);
+            while (!changes.isEmpty()) {
+                changes = watcher.awaitChanges(500);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DirectoryFactsCacheTestCase {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testEnabled() throws Exception {
+        // The incremental scan is opt-in.
+        HiddenPropertiesAccessor.setOverrides(Map.of(Utils.CACHE_DIR_PROPERTY, tmp.getRoot().toString()));
+        try {
+            Assert.assertNull(DirectoryFactsCache.newInstance());
+            HiddenPropertiesAccessor.setOverrides(Map.of(Utils.CACHE_DIR_PROPERTY, tmp.getRoot().toString(),
+                    DirectoryFactsCache.INCREMENTAL_SCAN_PROPERTY, "true"));
+            Assert.assertNotNull(DirectoryFactsCache.newInstance());
+        } finally {
+            HiddenPropertiesAccessor.clearOverrides();
+        }
+    }
+
+    @Test
+    public void testStoreAndLoad() throws Exception {
+        Path dir = tmp.getRoot().toPath();
+        DirectoryFactsCache cache = new DirectoryFactsCache(dir.resolve("cache"), Long.MAX_VALUE);
+        Path deployment = Files.createDirectories(dir.resolve("classes"));
+        Assert.assertNull(cache.load(deployment));
+
+        byte[] hash = DirectoryFactsCache.hash(new byte[] {1, 2, 3});
+        Map<String, DirectoryFactsCache.ClassFile> classes = new HashMap<>();
+        classes.put("org/foo/Bar.class", new DirectoryFactsCache.ClassFile(3, 1000, hash, index(DirectoryFactsCacheTestCase.class),
+                new ClassFacts("org.foo.Bar", new LinkedHashSet<>(Arrays.asList("org.foo.Bar", "java.lang.Object")),
+                        Collections.emptySet(), Collections.emptyList())));
+        cache.store(deployment, new DirectoryFactsCache.Entry(10000, classes));
+        Assert.assertNull(cache.load(dir.resolve("other")));
+
+        DirectoryFactsCache.Entry entry = cache.load(deployment);
+        Assert.assertNotNull(entry);
+        Assert.assertEquals(10000, entry.getTimestamp());
+        DirectoryFactsCache.ClassFile classFile = entry.getClasses().get("org/foo/Bar.class");
+        Assert.assertTrue(classFile.hasContent(hash));
+        Assert.assertEquals("org.foo.Bar", classFile.getFacts().getClassName());
+        Assert.assertNotNull(classFile.getIndex().getClassByName(DotName.createSimple(DirectoryFactsCacheTestCase.class.getName())));
+    }
+
+    @Test
+    public void testUnchanged() throws Exception {
+        byte[] hash = DirectoryFactsCache.hash(new byte[] {1, 2, 3});
+        Map<String, DirectoryFactsCache.ClassFile> classes = new HashMap<>();
+        ClassFacts facts = new ClassFacts("Foo", Collections.emptySet(), Collections.emptySet(), Collections.emptyList());
+        classes.put("Old.class", new DirectoryFactsCache.ClassFile(3, 1000, hash, null, facts));
+        // Modified just before the previous scan, it could have been modified again with the same time.
+        classes.put("Recent.class", new DirectoryFactsCache.ClassFile(3, 9000, hash, null, facts));
+        DirectoryFactsCache.Entry entry = new DirectoryFactsCache.Entry(10000, classes);
+
+        Assert.assertNotNull(entry.getUnchanged("Old.class", 3, 1000));
+        Assert.assertNull(entry.getUnchanged("Old.class", 4, 1000));
+        Assert.assertNull(entry.getUnchanged("Old.class", 3, 2000));
+        Assert.assertNull(entry.getUnchanged("Recent.class", 3, 9000));
+        Assert.assertNull(entry.getUnchanged("New.class", 3, 1000));
+    }
+
+    private static Index index(Class<?> clazz) throws IOException {
+        Indexer indexer = new Indexer();
+        try (InputStream in = clazz.getResourceAsStream(clazz.getSimpleName() + ".class")) {
+            indexer.index(in);
+        }
+        return indexer.complete();
+    }
+}
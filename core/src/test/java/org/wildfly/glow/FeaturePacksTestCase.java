@@ -0,0 +1,56 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FeaturePacksTestCase {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testDocumentsFetchedOnce() throws Exception {
+        Path dir = tmp.getRoot().toPath();
+        Path versions = dir.resolve("versions.yaml");
+        Files.write(versions, "latest: 2.0.Final\nversions: 1.0.Final, 2.0.Final\n".getBytes(StandardCharsets.UTF_8));
+        Files.createDirectories(dir.resolve("spaces"));
+        Path spaces = dir.resolve("spaces").resolve("spaces.yaml");
+        Files.write(spaces, "spaces:\n  - name: incubating\n    description: Incubating\n".getBytes(StandardCharsets.UTF_8));
+        Files.createDirectories(dir.resolve("2.0"));
+        Path variants = dir.resolve("2.0").resolve("variants.json");
+        Files.write(variants, "{\"variants\":[{\"name\":\"default\",\"description\":\"Default\"},{\"name\":\"ee\",\"description\":\"EE\",\"directory\":\"ee-dir\"}]}".getBytes(StandardCharsets.UTF_8));
+
+        FeaturePacks featurePacks = new FeaturePacks(dir.toUri(), -1);
+        Assert.assertEquals("2.0.Final", featurePacks.getLatestVersion());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("1.0.Final", "2.0.Final")), featurePacks.getAllVersions());
+        Assert.assertEquals("incubating", featurePacks.getSpace("incubating").getName());
+        Assert.assertEquals("ee-dir", featurePacks.getVariantDirectory("2.0", "ee"));
+
+        // The documents are not fetched again.
+        Files.delete(versions);
+        Files.delete(spaces);
+        Files.delete(variants);
+        Assert.assertEquals("2.0.Final", featurePacks.getLatestVersion());
+        Assert.assertEquals(1, featurePacks.getAllSpaces().size());
+        Assert.assertEquals(1, featurePacks.getAllVariants("2.0").size());
+
+        // Expired documents are fetched again.
+        FeaturePacks expired = new FeaturePacks(dir.toUri(), 0);
+        Files.write(versions, "latest: 1.0.Final\nversions: 1.0.Final\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals("1.0.Final", expired.getLatestVersion());
+        Thread.sleep(10);
+        Files.write(versions, "latest: 3.0.Final\nversions: 3.0.Final\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals("3.0.Final", expired.getLatestVersion());
+    }
+}
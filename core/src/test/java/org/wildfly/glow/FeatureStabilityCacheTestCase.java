@@ -0,0 +1,43 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FeatureStabilityCacheTestCase {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testStoreAndLoad() throws Exception {
+        Path dir = tmp.getRoot().toPath();
+        FeatureStabilityCache cache = new FeatureStabilityCache(dir);
+        Assert.assertTrue(cache.load("foo").isEmpty());
+
+        Map<String, Map<String, String>> inventory = new HashMap<>();
+        Map<String, String> stabilities = new LinkedHashMap<>();
+        stabilities.put("subsystem.foo", "preview");
+        stabilities.put("subsystem.bar.param", "experimental");
+        inventory.put("layer-a", stabilities);
+        inventory.put("layer-b", Collections.emptyMap());
+        cache.store("foo", inventory);
+
+        Assert.assertEquals(inventory, cache.load("foo"));
+        Assert.assertTrue(cache.load("bar").isEmpty());
+
+        Files.write(dir.resolve("foo.stability"), new byte[] {1, 2, 3});
+        Assert.assertTrue(cache.load("foo").isEmpty());
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FileRulesTestCase {
+
+    @Test
+    public void testMatch() {
+        Layer a = new Layer("a");
+        Layer b = new Layer("b");
+        Map<Layer, Map<String, String>> properties = new HashMap<>();
+        Map<String, String> aRules = new HashMap<>();
+        aRules.put(LayerMetadata.EXPECTED_FILE, "/META-INF/foo.xml");
+        aRules.put(LayerMetadata.PROPERTIES_FILE_MATCH, "[/META-INF/*.properties,WEB-INF/bar.properties],key,val*");
+        properties.put(a, aRules);
+        Map<String, String> bRules = new HashMap<>();
+        bRules.put(LayerMetadata.NOT_EXPECTED_FILE, "/META-INF/missing.xml");
+        bRules.put(LayerMetadata.HIDDEN_IF + "-" + LayerMetadata.XML_PATH, "/META-INF/foo.xml,/root/key");
+        bRules.put(LayerMetadata.NOT_EXPECTED_FILE + ".foo", "/WEB-INF/*");
+        properties.put(b, bRules);
+        FileRules rules = FileRules.build(properties);
+        Assert.assertEquals(2, rules.getNotExpectedFileRules().size());
+
+        Map<String, Path> files = new HashMap<>();
+        for (String f : Arrays.asList("", "META-INF", "META-INF/foo.xml", "META-INF/foo.properties", "META-INF/other.properties", "WEB-INF", "WEB-INF/bar.properties")) {
+            files.put(f, Paths.get("/deployment").resolve(f));
+        }
+        Map<FileRules.FileRule, List<Path>> matches = rules.match(files);
+        Map<String, Integer> matched = new HashMap<>();
+        for (Map.Entry<FileRules.FileRule, List<Path>> entry : matches.entrySet()) {
+            FileRules.FileRule rule = entry.getKey();
+            matched.put(rule.getLayer() + " " + rule.getKind() + (rule.isCondition() ? " condition" : ""), entry.getValue().size());
+            if (rule.getKind() == FileRules.Kind.PROPERTIES_FILE) {
+                Assert.assertEquals("key", rule.getValueParts().get(0).getValue());
+                Assert.assertTrue(rule.getValueParts().get(1).equalsOrMatches("value"));
+            }
+        }
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("a EXPECTED_FILE", 1);
+        expected.put("a PROPERTIES_FILE", 3);
+        expected.put("b XML_PATH condition", 1);
+        // WEB-INF/bar.properties
+        expected.put("b NOT_EXPECTED_FILE", 1);
+        Assert.assertEquals(expected, matched);
+
+        Assert.assertEquals(Collections.emptyMap(), rules.match(Collections.singletonMap("", Paths.get("/deployment"))));
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LayerGraphTestCase {
+
+    @Test
+    public void testTransitiveDependencies() {
+        Map<String, Layer> all = new HashMap<>();
+        for (String name : Arrays.asList("e", "d", "c", "b", "a")) {
+            all.put(name, new Layer(name));
+        }
+        // a -> b -> c -> b, a -> d, e alone
+        Map<String, List<String>> dependencies = new HashMap<>();
+        dependencies.put("a", Arrays.asList("b", "d"));
+        dependencies.put("b", Arrays.asList("c"));
+        dependencies.put("c", Arrays.asList("b"));
+        Utils.linkLayers(all, dependencies);
+        LayerGraph graph = new LayerGraph(all);
+
+        Assert.assertEquals(new LinkedHashSet<>(Arrays.asList(all.get("b"), all.get("c"), all.get("d"))),
+                graph.toLayers(graph.getTransitiveDependencies(all.get("a"))));
+        // Part of a cycle, the layer depends on itself.
+        Assert.assertEquals(new LinkedHashSet<>(Arrays.asList(all.get("b"), all.get("c"))),
+                graph.toLayers(graph.getTransitiveDependencies(all.get("b"))));
+        Assert.assertTrue(graph.getTransitiveDependencies(all.get("e")).isEmpty());
+        Assert.assertEquals(Collections.singleton(all.get("c")), graph.toLayers(graph.getDependencies(all.get("b"))));
+
+        // Ids follow the names order.
+        Assert.assertEquals("a", graph.getLayer(0).getName());
+        Assert.assertEquals(4, graph.getId(all.get("e")));
+
+        BitSet set = graph.toBitSet(Arrays.asList(all.get("a"), all.get("b"), all.get("d")));
+        Assert.assertTrue(LayerGraph.containsAll(set, graph.getDependencies(all.get("a"))));
+        Assert.assertFalse(LayerGraph.containsAll(set, graph.getTransitiveDependencies(all.get("a"))));
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import org.jboss.galleon.universe.FeaturePackLocation;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.FeaturePackLocation.ProducerSpec;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LayerModelCacheTestCase {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testStoreAndLoad() throws Exception {
+        Path dir = tmp.getRoot().toPath();
+        LayerModelCache cache = new LayerModelCache(dir);
+        String key = LayerModelCache.key(new LinkedHashSet<>(Arrays.asList("org.foo:foo-pack:1.0", "org.foo:bar-pack:1.0")));
+        Assert.assertEquals(64, key.length());
+        Assert.assertNull(cache.load(key, new HashMap<>()));
+
+        FPID foo = FeaturePackLocation.fromString("org.foo:foo-pack:1.0").getFPID();
+        FPID bar = FeaturePackLocation.fromString("org.foo:bar-pack:1.0").getFPID();
+        Layer a = new Layer("a", Collections.singletonMap(LayerMetadata.EXPECTED_FILE, "/META-INF/foo.xml"),
+                Collections.singleton(foo), true);
+        Layer b = new Layer("b", Collections.emptyMap(), new HashSet<>(Arrays.asList(foo, bar)), false);
+        Map<String, Layer> layers = new HashMap<>();
+        layers.put("a", a);
+        layers.put("b", b);
+        Utils.linkLayers(layers, Collections.singletonMap("b", Collections.singletonList("a")));
+        Map<FPID, Set<ProducerSpec>> fpDependencies = new HashMap<>();
+        fpDependencies.put(foo, Collections.singleton(bar.getProducer()));
+        fpDependencies.put(bar, Collections.emptySet());
+        cache.store(key, layers, fpDependencies);
+
+        Map<FPID, Set<ProducerSpec>> loadedFpDependencies = new HashMap<>();
+        Map<String, Layer> loaded = cache.load(key, loadedFpDependencies);
+        Assert.assertNotNull(loaded);
+        Assert.assertEquals(fpDependencies, loadedFpDependencies);
+        Assert.assertEquals(layers.keySet(), loaded.keySet());
+        Layer loadedA = loaded.get("a");
+        Layer loadedB = loaded.get("b");
+        Assert.assertNotSame(a, loadedA);
+        Assert.assertEquals(a.getProperties(), loadedA.getProperties());
+        Assert.assertTrue(loadedA.isIsAutomaticInjection());
+        Assert.assertFalse(loadedB.isIsAutomaticInjection());
+        Assert.assertEquals(b.getFeaturePacks(), loadedB.getFeaturePacks());
+        Assert.assertEquals(1, loadedB.getDependencies().size());
+        Assert.assertSame(loadedA, loadedB.getDependencies().iterator().next());
+
+        // Keyed by the set of feature-packs, whatever their order.
+        Assert.assertEquals(key, LayerModelCache.key(new LinkedHashSet<>(Arrays.asList("org.foo:bar-pack:1.0", "org.foo:foo-pack:1.0"))));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RuleProfilerTestCase {
+
+    @Test
+    public void testProfiles() {
+        Layer a = new Layer("a");
+        Layer b = new Layer("b");
+        RuleProfiler profiler = new RuleProfiler();
+        profiler.record(LayerMetadata.CLASS, "org.foo.*", a, true, 10);
+        profiler.record(LayerMetadata.CLASS, "org.foo.*", a, false, 20);
+        profiler.record(LayerMetadata.XML_PATH, "/WEB-INF/*.xml,/root", b, false, 100);
+        profiler.record(LayerMetadata.ANNOTATIONS, "org.foo.Bar", Arrays.asList(b, a), true, 0);
+
+        List<RuleProfiler.RuleProfile> profiles = profiler.getProfiles();
+        Assert.assertEquals(3, profiles.size());
+        RuleProfiler.RuleProfile xml = profiles.get(0);
+        Assert.assertEquals(LayerMetadata.XML_PATH, xml.getKind());
+        Assert.assertEquals(1, xml.getEvaluations());
+        Assert.assertEquals(0, xml.getHits());
+        Assert.assertEquals(100, xml.getTime());
+        RuleProfiler.RuleProfile wildcard = profiles.get(1);
+        Assert.assertEquals("org.foo.*", wildcard.getRule());
+        Assert.assertEquals("a", wildcard.getLayers());
+        Assert.assertEquals(2, wildcard.getEvaluations());
+        Assert.assertEquals(1, wildcard.getHits());
+        Assert.assertEquals(30, wildcard.getTime());
+        Assert.assertEquals("a,b", profiles.get(2).getLayers());
+
+        String[] lines = profiler.getReport().split("\n");
+        Assert.assertEquals(4, lines.length);
+        Assert.assertTrue(lines[1], lines[1].contains("/WEB-INF/*.xml,/root"));
+    }
+
+    @Test
+    public void testClassNameMatcher() {
+        Layer pkg = new Layer("pkg");
+        Layer wildcard = new Layer("wildcard");
+        Map<String, Set<Layer>> rules = new HashMap<>();
+        rules.put("org.foo", Collections.singleton(pkg));
+        rules.put(Utils.escapePattern("com.*.impl.*Bean"), Collections.singleton(wildcard));
+        ClassNameMatcher matcher = ClassNameMatcher.build(rules);
+        RuleProfiler profiler = new RuleProfiler();
+        matcher.match("org.foo.Bar", profiler);
+        matcher.match("com.acme.impl.MyBean", profiler);
+        matcher.match("com.acme.impl.MyService", profiler);
+        matcher.match("java.lang.String", profiler);
+
+        Map<String, RuleProfiler.RuleProfile> profiles = new HashMap<>();
+        for (RuleProfiler.RuleProfile profile : profiler.getProfiles()) {
+            Assert.assertEquals(LayerMetadata.CLASS, profile.getKind());
+            profiles.put(profile.getLayers(), profile);
+        }
+        Assert.assertEquals(2, profiles.size());
+        Assert.assertEquals("org.foo.*", profiles.get("pkg").getRule());
+        Assert.assertEquals(1, profiles.get("pkg").getHits());
+        Assert.assertEquals(2, profiles.get("wildcard").getEvaluations());
+        Assert.assertEquals(1, profiles.get("wildcard").getHits());
+    }
+}
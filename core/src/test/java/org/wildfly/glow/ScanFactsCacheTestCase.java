@@ -0,0 +1,79 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ScanFactsCacheTestCase {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testStoreAndLoad() throws Exception {
+        Path dir = tmp.getRoot().toPath();
+        ScanFactsCache cache = new ScanFactsCache(dir, Long.MAX_VALUE);
+        Path archive = dir.resolve("foo.jar");
+        Files.write(archive, new byte[] {1, 2, 3});
+        String key = cache.key(archive);
+        Assert.assertEquals(64, key.length());
+        Assert.assertNull(cache.load(key));
+
+        Map<String, ClassFacts> facts = new HashMap<>();
+        facts.put("org/foo/Bar.class", new ClassFacts("org.foo.Bar",
+                new LinkedHashSet<>(Arrays.asList("org.foo.Bar", "java.lang.Object")),
+                Collections.singleton("javax.naming.Context"), Arrays.asList("org.foo.Bar.run()", "org.foo.Bar.run()")));
+        cache.store(key, new DeploymentScanner.ClassAnalysis(Collections.singletonList(index(ScanFactsCacheTestCase.class)), facts));
+
+        DeploymentScanner.ClassAnalysis analysis = cache.load(key);
+        Assert.assertNotNull(analysis);
+        Assert.assertEquals(1, analysis.getIndexes().size());
+        Assert.assertNotNull(analysis.getIndex().getClassByName(DotName.createSimple(ScanFactsCacheTestCase.class.getName())));
+        ClassFacts loaded = analysis.getFacts().get("org/foo/Bar.class");
+        Assert.assertEquals("org.foo.Bar", loaded.getClassName());
+        Assert.assertEquals(Arrays.asList("org.foo.Bar", "java.lang.Object"), Arrays.asList(loaded.getReferencedTypes().toArray()));
+        Assert.assertEquals(Collections.singleton("javax.naming.Context"), loaded.getContextLookupTypes());
+        Assert.assertEquals(2, loaded.getContextLookups().size());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        Path dir = tmp.getRoot().toPath();
+        DeploymentScanner.ClassAnalysis analysis = new DeploymentScanner.ClassAnalysis(Collections.singletonList(index(ScanFactsCacheTestCase.class)), Collections.emptyMap());
+        new ScanFactsCache(dir, Long.MAX_VALUE).store("old", analysis);
+        Path old = dir.resolve("old.facts");
+        Files.setLastModifiedTime(old, FileTime.fromMillis(0));
+        // Room for a single entry, the least recently used one is evicted.
+        ScanFactsCache cache = new ScanFactsCache(dir, Files.size(old));
+        cache.store("new", analysis);
+        cache.evict();
+        Assert.assertFalse(Files.exists(old));
+        Assert.assertNotNull(cache.load("new"));
+    }
+
+    private static Index index(Class<?> clazz) throws IOException {
+        Indexer indexer = new Indexer();
+        try (InputStream in = clazz.getResourceAsStream(clazz.getSimpleName() + ".class")) {
+            indexer.index(in);
+        }
+        return indexer.complete();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ScanMetricsTestCase {
+
+    @Test
+    public void testCounters() {
+        ScanMetrics metrics = new ScanMetrics();
+        IntStream.range(0, 1000).parallel().forEach((i) -> metrics.increment(ScanMetrics.Counter.CLASSES_PARSED));
+        metrics.add(ScanMetrics.Counter.BYTES_READ, 4096);
+        metrics.add(ScanMetrics.Counter.BYTES_READ, 1024);
+        Assert.assertEquals(1000, metrics.getCount(ScanMetrics.Counter.CLASSES_PARSED));
+        Assert.assertEquals(5120, metrics.getCount(ScanMetrics.Counter.BYTES_READ));
+        Assert.assertEquals(0, metrics.getCount(ScanMetrics.Counter.CACHE_HITS));
+        Assert.assertEquals(Long.valueOf(1000), metrics.getCounters().get("classes-parsed"));
+    }
+
+    @Test
+    public void testTimes() throws Exception {
+        ScanMetrics metrics = new ScanMetrics();
+        metrics.record(ScanMetrics.Phase.DEPLOYMENTS, System.nanoTime() - 5_000_000);
+        metrics.record(ScanMetrics.Phase.DEPLOYMENTS, System.nanoTime() - 5_000_000);
+        Assert.assertTrue(metrics.getTime(ScanMetrics.Phase.DEPLOYMENTS) >= 10);
+        Assert.assertEquals(0, metrics.getTime(ScanMetrics.Phase.STABILITY));
+    }
+
+    @Test
+    public void testJson() throws Exception {
+        ScanMetrics metrics = new ScanMetrics();
+        metrics.increment(ScanMetrics.Counter.ARCHIVES_OPENED);
+        JsonNode json = new ObjectMapper().readTree(metrics.toJson());
+        List<String> phases = new ArrayList<>();
+        for (Iterator<String> it = json.get("phases").fieldNames(); it.hasNext();) {
+            phases.add(it.next());
+        }
+        Assert.assertEquals(Arrays.asList("scan", "metadata", "feature-packs", "layers", "mapping", "deployments",
+                "discovery", "stability", "provisioning"), phases);
+        Assert.assertEquals(1, json.get("counters").get("archives-opened").asLong());
+        Assert.assertEquals(0, json.get("counters").get("rule-evaluations").asLong());
+    }
+}
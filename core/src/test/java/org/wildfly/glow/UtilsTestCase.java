@@ -4,6 +4,10 @@
  */
 package org.wildfly.glow;
 
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import org.junit.Assert;
 import org.junit.Test;
@@ -43,4 +47,55 @@ public class UtilsTestCase {
             Assert.assertEquals("=b,a]r2", results.get("foo2"));
         }
     }
+
+    @Test
+    public void testBuildMapping() throws Exception {
+        Map<String, String> dsProperties = new HashMap<>();
+        dsProperties.put(LayerMetadata.ADD_ON, "database,postgresql");
+        dsProperties.put(LayerMetadata.ADD_ON_DEPENDS_ON, "only:base");
+        dsProperties.put(LayerMetadata.ADD_ON_FIX + "no-datasource", "Add a datasource,content");
+        dsProperties.put(LayerMetadata.BRING_DATASOURCE, "PostgreSQLDS");
+        dsProperties.put(LayerMetadata.CONFIGURATION, "ds.yaml");
+        Map<String, Layer> layers = new HashMap<>();
+        layers.put("base", new Layer("base"));
+        layers.put("ds", new Layer("ds", dsProperties, Collections.emptySet(), false));
+        Utils.linkLayers(layers, Collections.singletonMap("ds", Arrays.asList("base", "unknown")));
+        Layer base = layers.get("base");
+        Layer ds = layers.get("ds");
+
+        Assert.assertEquals(Collections.singleton(base), ds.getDependencies());
+        Assert.assertEquals(Collections.singleton("PostgreSQLDS"), ds.getBringDatasources());
+        AddOn addOn = ds.getAddOn();
+        Assert.assertEquals("postgresql", addOn.getName());
+        Assert.assertEquals("database", addOn.getFamily());
+        Assert.assertEquals(Collections.singleton(base), addOn.getLayersThatExpectSomeDependencies().get(ds));
+        Assert.assertNull(base.getAddOn());
+        try {
+            ds.getDependencies().add(base);
+            Assert.fail("The dependencies are immutable");
+        } catch (UnsupportedOperationException ex) {
+            // Expected
+        }
+        try {
+            ds.link(Collections.emptySet(), null);
+            Assert.fail("The layer is already linked");
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+
+        LayerConfigurationProvider provider = (layerName, version, spaces, context, variant, uri)
+                -> URI.create("https://example.org/" + context + "/" + uri);
+        LayerMapping mapping = Utils.buildMapping(provider, null, Collections.emptySet(), "cloud", null, layers, Collections.emptySet());
+        Assert.assertSame(addOn, mapping.getAddOns().get("postgresql"));
+        Assert.assertEquals(Collections.singleton(addOn), mapping.getAddOnFamilyMembers().get("database"));
+        Assert.assertEquals(Collections.singleton(addOn), mapping.getFixedByAddons().get("no-datasource"));
+        Assert.assertEquals(Collections.singleton("https://example.org/cloud/ds.yaml"), mapping.getConfiguration(ds));
+        Assert.assertTrue(mapping.getConfiguration(base).isEmpty());
+
+        // The configuration depends on the execution context, the layers are left untouched.
+        LayerMapping bareMetal = Utils.buildMapping(provider, null, Collections.emptySet(), "bare-metal", null, layers, Collections.emptySet());
+        Assert.assertEquals(Collections.singleton("https://example.org/bare-metal/ds.yaml"), bareMetal.getConfiguration(ds));
+        Assert.assertEquals(Collections.singleton("https://example.org/cloud/ds.yaml"), mapping.getConfiguration(ds));
+        Assert.assertEquals(5, ds.getProperties().size());
+    }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class XmlPathEvaluatorTestCase {
+
+    private static final String XML = "<root xmlns=\"urn:test\"><a><key-only/></a>"
+            + "<key-value>one</key-value><key-value><![CDATA[value]]>B</key-value></root>";
+
+    @Test
+    public void testStreamed() throws Exception {
+        Assert.assertEquals(Arrays.asList("/root/*/key-only", "/root/key-value==valueB", "/root/key-value==*B"), evaluate(XML, null));
+    }
+
+    @Test
+    public void testDocument() throws Exception {
+        // An expression that can't be streamed, the file is parsed in a DOM for all the expressions.
+        Assert.assertEquals(Arrays.asList("/root/*/key-only", "/root/key-value==valueB", "/root/key-value==*B", "//a"), evaluate(XML, "//a"));
+    }
+
+    @Test
+    public void testPrefixed() throws Exception {
+        // The streamed and the DOM evaluations of the paths of element names match the elements the same way,
+        // whatever their prefix.
+        String body = "<t:a><t:key-only/></t:a><t:key-value>one</t:key-value><t:key-value><![CDATA[value]]>B</t:key-value></t:root>";
+        // With a declared and an undeclared prefix.
+        for (String prefixed : Arrays.asList("<t:root xmlns:t=\"urn:test\">" + body, "<t:root>" + body)) {
+            Assert.assertEquals(prefixed, Arrays.asList("/root/*/key-only", "/root/key-value==valueB", "/root/key-value==*B"), evaluate(prefixed, null));
+            Assert.assertEquals(prefixed, Arrays.asList("/root/*/key-only", "/root/key-value==valueB", "/root/key-value==*B", "/root/a[1]"), evaluate(prefixed, "/root/a[1]"));
+        }
+    }
+
+    @Test
+    public void testInvalid() throws Exception {
+        Assert.assertEquals(Collections.singletonList("error"), evaluate("<root><key-only/>", null));
+        Assert.assertEquals(Collections.singletonList("error"), evaluate("<root><key-only/>", "//a"));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        Path file = Files.createTempFile("glow-xml-path", ".xml");
+        try {
+            List<String> events = new ArrayList<>();
+            XmlPathEvaluator evaluator = new XmlPathEvaluator();
+            evaluator.add(file, "/root/key-only", null, (content) -> events.add("match"), (time) -> events.add("evaluated"));
+            evaluator.add(file, "//a", null, (content) -> events.add("match"), (time) -> events.add("evaluated"));
+            evaluator.evaluate((path, ex) -> events.add("error"));
+            // An empty file is not an error, its rules are evaluated and don't match.
+            Assert.assertEquals(Arrays.asList("evaluated", "evaluated"), events);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static List<String> evaluate(String xml, String otherExpression) throws Exception {
+        Path file = Files.createTempFile("glow-xml-path", ".xml");
+        try {
+            Files.write(file, xml.getBytes(StandardCharsets.UTF_8));
+            List<String> matches = new ArrayList<>();
+            XmlPathEvaluator evaluator = new XmlPathEvaluator();
+            evaluator.add(file, "/root/*/key-only", null, (content) -> matches.add("/root/*/key-only"));
+            evaluator.add(file, "/root/key-only", null, (content) -> matches.add("/root/key-only"));
+            evaluator.add(file, "/root/key-value", "valueB", (content) -> matches.add("/root/key-value==" + content));
+            evaluator.add(file, "/root/key-value", "*B", (content) -> matches.add("/root/key-value==*B"));
+            evaluator.add(file, "/root/key-value", "two", (content) -> matches.add("/root/key-value==two"));
+            if (otherExpression != null) {
+                evaluator.add(file, otherExpression, null, (content) -> matches.add(otherExpression));
+            }
+            evaluator.evaluate((path, ex) -> matches.add("error"));
+            return matches;
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
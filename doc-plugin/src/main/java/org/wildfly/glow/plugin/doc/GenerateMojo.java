@@ -55,6 +55,7 @@ import org.jboss.galleon.util.ZipUtils;
 import org.wildfly.channel.Channel;
 import org.wildfly.glow.DefaultLayerConfigurationProvider;
 import org.wildfly.glow.Layer;
+import org.wildfly.glow.LayerMapping;
 import org.wildfly.glow.MetadataProvider;
 import org.wildfly.glow.Space;
 import org.wildfly.glow.Utils;
@@ -267,13 +268,13 @@ public class GenerateMojo extends AbstractMojo {
             }
             Set<String> set = new HashSet<>();
             set.add(space.getName());
-            Utils.buildMapping(new DefaultLayerConfigurationProvider(), version, set, context, variant, all, new HashSet<>());
+            LayerMapping mapping = Utils.buildMapping(new DefaultLayerConfigurationProvider(), version, set, context, variant, all, new HashSet<>());
             for (Layer l : all.values()) {
-                if (!l.getConfiguration().isEmpty()) {
+                if (!mapping.getConfiguration(l).isEmpty()) {
                     Path layerDir = layersConfigRootDir.resolve(WildFlyMavenMetadataProvider.toPath(version, space.getName(), context, variant));
                     layerDir = layerDir.resolve(l.getName());
                     Files.createDirectories(layerDir);
-                    for (String c : l.getConfiguration()) {
+                    for (String c : mapping.getConfiguration(l)) {
                         URI uri = new URI(c);
                         Path filePath = layerDir.resolve(Paths.get(WildFlyMavenMetadataProvider.URItoPath(uri)));
                         try (InputStream in = uri.toURL().openStream()) {
@@ -57,11 +57,15 @@ import org.jboss.galleon.universe.maven.repo.MavenRepoManager;
 import org.jboss.galleon.util.IoUtils;
 import org.wildfly.channel.Channel;
 import org.wildfly.glow.AddOn;
+import org.wildfly.glow.Arguments;
 import org.wildfly.glow.DefaultLayerConfigurationProvider;
+import org.wildfly.glow.GlowMessageWriter;
+import org.wildfly.glow.GlowSession;
 import org.wildfly.glow.LayerConfigurationProvider;
 import org.wildfly.glow.LayerMapping;
 import org.wildfly.glow.LayerMetadata;
 import org.wildfly.glow.MetadataProvider;
+import org.wildfly.glow.ScanResults;
 import org.wildfly.glow.Space;
 import org.wildfly.glow.Utils;
 import org.wildfly.glow.Variant;
@@ -145,6 +149,17 @@ public class ScanDocMojo extends AbstractMojo {
     @Parameter(required = false, defaultValue = "true")
     boolean spaces;
 
+    /**
+     * Deployments scanned with the bare-metal rules of the latest version when generating the known feature-packs.
+     * The time spent evaluating each rule, the number of evaluations and matches are written to
+     * {@code rulesProfileFile}, the most expensive rules first.
+     */
+    @Parameter(required = false)
+    List<String> profiledDeployments;
+
+    @Parameter(required = false, defaultValue = "rules-profile.txt")
+    String rulesProfileFile;
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         try {
@@ -267,6 +282,9 @@ public class ScanDocMojo extends AbstractMojo {
                             }
                         }
                     }
+                    if (profiledDeployments != null && !profiledDeployments.isEmpty()) {
+                        profileRules(artifactResolver, metadataProvider, configProvider);
+                    }
                 } finally {
                     if(tmpDirectory != null) {
                         IoUtils.recursiveDelete(tmpDirectory);
@@ -281,6 +299,26 @@ public class ScanDocMojo extends AbstractMojo {
         }
     }
 
+    private void profileRules(MavenRepoManager artifactResolver, MetadataProvider metadataProvider,
+            LayerConfigurationProvider configProvider) throws Exception {
+        List<Path> binaries = new ArrayList<>();
+        for (String deployment : profiledDeployments) {
+            binaries.add(Paths.get(deployment));
+        }
+        Arguments arguments = Arguments.scanBuilder().
+                setBinaries(binaries).
+                setExecutionContext("bare-metal").
+                setVersion(metadataProvider.getLatestVersion()).
+                setMetadataProider(metadataProvider).
+                setLayerConfigurationProider(configProvider).
+                setProfileRules(true).build();
+        try (ScanResults results = GlowSession.scan(artifactResolver, arguments, GlowMessageWriter.DEFAULT)) {
+            Path file = Paths.get(targetDir).resolve(rulesProfileFile);
+            results.getRuleProfiler().write(file);
+            getLog().info("Rules profile written to " + file);
+        }
+    }
+
     private String buildTable(Space space, GalleonBuilder provider, String context, Map<Layer, Map<String, String>> rules, String variant, MetadataProvider metadataProvider) throws Exception {
 
         StringBuilder rulesBuilder = new StringBuilder();
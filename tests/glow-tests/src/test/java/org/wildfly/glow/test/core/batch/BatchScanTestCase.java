@@ -0,0 +1,112 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.glow.test.core.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.jboss.galleon.universe.maven.repo.MavenRepoManager;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.glow.Arguments;
+import org.wildfly.glow.BatchScanner;
+import org.wildfly.glow.GlowMessageWriter;
+import org.wildfly.glow.GlowSession;
+import org.wildfly.glow.Layer;
+import org.wildfly.glow.ScanResults;
+import org.wildfly.glow.maven.MavenResolver;
+import org.wildfly.glow.test.core.exploded.jar.StatelessBean;
+import org.wildfly.glow.test.core.exploded.war.TestServlet;
+
+public class BatchScanTestCase {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testBatchScan() throws Exception {
+        Path war = tmp.getRoot().toPath().resolve("web.war");
+        ShrinkWrap.create(WebArchive.class, "web.war").addClass(TestServlet.class)
+                .as(ZipExporter.class).exportTo(war.toFile());
+        Path jar = tmp.getRoot().toPath().resolve("ejb.jar");
+        ShrinkWrap.create(JavaArchive.class, "ejb.jar").addClass(StatelessBean.class)
+                .as(ZipExporter.class).exportTo(jar.toFile());
+        Path missing = tmp.getRoot().toPath().resolve("missing.war");
+
+        MavenRepoManager resolver = MavenResolver.newMavenResolver();
+        // The deployments share the layer models, their layers are the ones of a scan of each deployment.
+        BatchScanner scanner = new BatchScanner(resolver, Arguments.scanBuilder(), 2);
+        StringWriter output = new StringWriter();
+        BatchScanner.Summary summary = scanner.scan(Arrays.asList(war, jar, missing), output);
+        Assert.assertEquals(3, summary.getDeployments());
+        Assert.assertEquals(1, summary.getFailed());
+
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, JsonNode> results = new HashMap<>();
+        JsonNode summaryLine = null;
+        for (String line : output.toString().split(System.lineSeparator())) {
+            JsonNode node = mapper.readTree(line);
+            if (node.has("summary")) {
+                summaryLine = node.get("summary");
+            } else {
+                results.put(node.get("deployment").asText(), node);
+            }
+        }
+        Assert.assertNotNull(summaryLine);
+        Assert.assertEquals(3, summaryLine.get("deployments").asInt());
+        Assert.assertEquals("failed", results.get(missing.toString()).get("status").asText());
+        Map<String, Integer> frequencies = new TreeMap<>();
+        for (Path deployment : Arrays.asList(war, jar)) {
+            JsonNode result = results.get(deployment.toString());
+            Assert.assertEquals("ok", result.get("status").asText());
+            List<String> layers = new ArrayList<>();
+            result.get("layers").forEach(layer -> layers.add(layer.asText()));
+            Collections.sort(layers);
+            List<String> expected = scanLayers(resolver, deployment);
+            Assert.assertEquals(deployment.toString(), expected, layers);
+            expected.forEach(layer -> frequencies.merge(layer, 1, Integer::sum));
+        }
+        Assert.assertEquals(frequencies, summary.getLayers());
+    }
+
+    @Test
+    public void testProfileRulesRejected() throws Exception {
+        BatchScanner scanner = new BatchScanner(MavenResolver.newMavenResolver(),
+                Arguments.scanBuilder().setProfileRules(true), 1);
+        try {
+            scanner.scan(Collections.emptyList(), new StringWriter());
+            Assert.fail("The rules can't be profiled in batch mode");
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+    }
+
+    private static List<String> scanLayers(MavenRepoManager resolver, Path deployment) throws Exception {
+        Arguments arguments = Arguments.scanBuilder().setBinaries(Collections.singletonList(deployment)).build();
+        try (ScanResults results = GlowSession.scan(resolver, arguments, GlowMessageWriter.DEFAULT)) {
+            List<String> layers = new ArrayList<>();
+            layers.add(results.getBaseLayer().getName());
+            for (Layer layer : results.getDecorators()) {
+                layers.add(layer.getName());
+            }
+            Collections.sort(layers);
+            return layers;
+        }
+    }
+}
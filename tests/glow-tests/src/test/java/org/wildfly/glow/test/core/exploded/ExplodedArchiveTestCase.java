@@ -30,7 +30,11 @@ import org.junit.Test;
 import org.wildfly.glow.Arguments;
 import org.wildfly.glow.GlowMessageWriter;
 import org.wildfly.glow.GlowSession;
+import org.wildfly.glow.HiddenPropertiesAccessor;
+import org.wildfly.glow.Layer;
+import org.wildfly.glow.LayerMapping;
 import org.wildfly.glow.ScanResults;
+import org.wildfly.glow.error.IdentifiedError;
 import org.wildfly.glow.maven.MavenResolver;
 import org.wildfly.glow.test.core.exploded.jar.Pojo;
 import org.wildfly.glow.test.core.exploded.jar.StatelessBean;
@@ -48,7 +52,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Consumer;
 
 /**
@@ -305,6 +314,66 @@ public class ExplodedArchiveTestCase {
     // EAR - end
     ///////////////////////
 
+    ///////////////////////////////////////////////////////////////////////////////////////////////////
+    // Parallel scan tests
+    @Test
+    public void testParallelScan() throws Exception {
+        EnterpriseArchive archive = createEar();
+        // Enough classes for the class files to be analyzed by concurrent tasks
+        archive.addAsLibrary(ShrinkWrap.create(JavaArchive.class, "cdi-api.jar").addPackages(true, "jakarta.enterprise"));
+        Path archivePath = exportArchive(archive);
+        checkParallelScan(Collections.singletonList(archivePath));
+        unzipArchive(archivePath);
+        unzipArchive(archivePath.resolve("lib/web.war"));
+        unzipArchive(archivePath.resolve("lib/cdi-api.jar"));
+        checkParallelScan(Collections.singletonList(archivePath));
+    }
+
+    @Test
+    public void testParallelScanOfDeployments() throws Exception {
+        List<Path> deployments = Arrays.asList(exportArchive(createWar()), exportArchive(createSar()),
+                exportArchive(createRar()), exportArchive(createJar()));
+        unzipArchive(deployments.get(0));
+        checkParallelScan(deployments);
+    }
+
+    private void checkParallelScan(List<Path> deployments) throws Exception {
+        // The cached analysis would be used by the second scan.
+        HiddenPropertiesAccessor.setOverrides(Map.of("org.wildfly.glow.scan.cache", "false"));
+        try {
+            Assert.assertEquals(runScan(deployments, 1), runScan(deployments, 8));
+        } finally {
+            HiddenPropertiesAccessor.clearOverrides();
+        }
+    }
+
+    private String runScan(List<Path> deployments, int parallelism) throws Exception {
+        Arguments arguments = Arguments.scanBuilder().setBinaries(deployments).setParallelism(parallelism).build();
+        try (ScanResults scanResults = GlowSession.scan(MavenResolver.newMavenResolver(), arguments, GlowMessageWriter.DEFAULT)) {
+            StringBuilder builder = new StringBuilder(scanResults.getCompactInformation());
+            for (IdentifiedError error : scanResults.getErrorSession().getErrors()) {
+                builder.append(System.lineSeparator()).append(error.getId()).append(": ").append(error.getDescription());
+            }
+            // The rules that matched, per layer, in a stable order.
+            Set<Layer> layers = new TreeSet<>(scanResults.getDiscoveredLayers());
+            layers.addAll(scanResults.getDecorators());
+            layers.addAll(scanResults.getExcludedLayers());
+            if (scanResults.getBaseLayer() != null) {
+                layers.add(scanResults.getBaseLayer());
+            }
+            for (Layer layer : layers) {
+                for (Map.Entry<LayerMapping.RULE, Set<String>> rule : scanResults.getEvidence().getMatchingRules(layer).entrySet()) {
+                    builder.append(System.lineSeparator()).append(layer.getName()).append(" ").append(rule.getKey())
+                            .append(": ").append(new TreeSet<>(rule.getValue()));
+                }
+            }
+            return builder.toString();
+        }
+    }
+
+    // Parallel scan - end
+    ///////////////////////
+
     private Path exportArchive(Archive archive) throws Exception {
         ZipExporter exporter = archive.as(ZipExporter.class);
         Path path = archivesPath.resolve(archive.getName());